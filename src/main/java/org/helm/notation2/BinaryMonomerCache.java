@@ -0,0 +1,410 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package org.helm.notation2;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.helm.notation2.exception.MonomerException;
+
+/**
+ * This class reads and writes a MonomerCache in a compact, versioned binary
+ * format. All strings are stored once in a string table and referenced by
+ * index; the SMILES database is stored with the already canonicalized SMILES
+ * and references the monomers of the monomer database. The file is memory
+ * mapped for reading and protected by a CRC32 checksum.
+ *
+ * Layout: magic, version, string table, attachment database, monomer database,
+ * SMILES database, checksum.
+ *
+ * @author zhangtianhong
+ */
+public final class BinaryMonomerCache {
+
+  /** "HELM" */
+  public static final int MAGIC = 0x48454C4D;
+
+  public static final int VERSION = 1;
+
+  private static final int NULL_STRING = -1;
+
+  private static final byte REFERENCE = 0;
+
+  private static final byte INLINE = 1;
+
+  private static final int NEW_MONOMER_FLAG = 1;
+
+  private static final int ADHOC_MONOMER_FLAG = 2;
+
+  private BinaryMonomerCache() {
+  }
+
+  /**
+   * writes the monomer cache to the given file; the file is replaced only
+   * after it was written completely
+   *
+   * @param cache monomer cache
+   * @param file binary cache file
+   * @throws IOException if the file can not be written
+   */
+  public static void write(MonomerCache cache, File file) throws IOException {
+    Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+    collectStrings(cache, strings);
+
+    File tmp = new File(file.getPath() + ".tmp");
+    boolean renamed = false;
+    try {
+      FileOutputStream fos = new FileOutputStream(tmp);
+      CRC32 crc = new CRC32();
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fos, crc)));
+      try {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        /* string table */
+        out.writeInt(strings.size());
+        for (String s : strings.keySet()) {
+          byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+
+        /* attachment database */
+        Map<String, Attachment> attachmentDB = nonNull(cache.getAttachmentDB());
+        out.writeInt(attachmentDB.size());
+        for (Map.Entry<String, Attachment> e : attachmentDB.entrySet()) {
+          writeString(out, strings, e.getKey());
+          writeAttachment(out, strings, e.getValue());
+        }
+
+        /* monomer database */
+        Map<String, Map<String, Monomer>> monomerDB = nonNull(cache.getMonomerDB());
+        Map<Monomer, String[]> keys = new HashMap<Monomer, String[]>();
+        out.writeInt(monomerDB.size());
+        for (Map.Entry<String, Map<String, Monomer>> type : monomerDB.entrySet()) {
+          writeString(out, strings, type.getKey());
+          out.writeInt(type.getValue().size());
+          for (Map.Entry<String, Monomer> e : type.getValue().entrySet()) {
+            writeString(out, strings, e.getKey());
+            writeMonomer(out, strings, e.getValue());
+            keys.put(e.getValue(), new String[] {type.getKey(), e.getKey()});
+          }
+        }
+
+        /* smiles database, referencing the monomers */
+        Map<String, Monomer> smilesDB = nonNull(cache.getSmilesMonomerDB());
+        out.writeInt(smilesDB.size());
+        for (Map.Entry<String, Monomer> e : smilesDB.entrySet()) {
+          writeString(out, strings, e.getKey());
+          String[] key = keys.get(e.getValue());
+          if (key != null) {
+            out.writeByte(REFERENCE);
+            writeString(out, strings, key[0]);
+            writeString(out, strings, key[1]);
+          } else {
+            out.writeByte(INLINE);
+            writeMonomer(out, strings, e.getValue());
+          }
+        }
+        out.flush();
+
+        /* checksum of everything written before */
+        long checksum = crc.getValue();
+        out.writeLong(checksum);
+      } finally {
+        out.close();
+      }
+
+      if (file.exists() && !file.delete()) {
+        throw new IOException("Unable to replace binary monomer cache " + file.getPath());
+      }
+      if (!tmp.renameTo(file)) {
+        throw new IOException("Unable to write binary monomer cache " + file.getPath());
+      }
+      renamed = true;
+    } finally {
+      /* no partial cache file is left behind */
+      if (!renamed) {
+        tmp.delete();
+      }
+    }
+  }
+
+  /**
+   * reads the monomer cache from the given file
+   *
+   * @param file binary cache file
+   * @return monomer cache
+   * @throws IOException if the file can not be read
+   * @throws MonomerException if the file is not a valid binary monomer cache
+   */
+  public static MonomerCache read(File file) throws IOException, MonomerException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      long size = channel.size();
+      if (size < 16 || size > Integer.MAX_VALUE) {
+        throw new MonomerException("Invalid binary monomer cache size");
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      checkChecksum(buffer, (int) size - 8);
+      try {
+        return read(buffer);
+      } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+        throw new MonomerException("Corrupted binary monomer cache");
+      }
+    } finally {
+      raf.close();
+    }
+  }
+
+  private static MonomerCache read(ByteBuffer buffer) throws MonomerException {
+    if (buffer.getInt() != MAGIC) {
+      throw new MonomerException("File is not a binary monomer cache");
+    }
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new MonomerException("Unsupported binary monomer cache version " + version);
+    }
+
+    /* string table */
+    String[] strings = new String[buffer.getInt()];
+    for (int i = 0; i < strings.length; i++) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /* attachment database */
+    int count = buffer.getInt();
+    Map<String, Attachment> attachmentDB = new HashMap<String, Attachment>(capacity(count));
+    for (int i = 0; i < count; i++) {
+      String key = readString(buffer, strings);
+      attachmentDB.put(key, readAttachment(buffer, strings));
+    }
+
+    /* monomer database */
+    int types = buffer.getInt();
+    Map<String, Map<String, Monomer>> monomerDB = new HashMap<String, Map<String, Monomer>>(capacity(types));
+    for (int i = 0; i < types; i++) {
+      String polymerType = readString(buffer, strings);
+      count = buffer.getInt();
+      Map<String, Monomer> monomers = new HashMap<String, Monomer>(capacity(count));
+      for (int j = 0; j < count; j++) {
+        String key = readString(buffer, strings);
+        monomers.put(key, readMonomer(buffer, strings));
+      }
+      monomerDB.put(polymerType, monomers);
+    }
+
+    /* smiles database */
+    count = buffer.getInt();
+    Map<String, Monomer> smilesDB = new HashMap<String, Monomer>(capacity(count));
+    for (int i = 0; i < count; i++) {
+      String smiles = readString(buffer, strings);
+      byte kind = buffer.get();
+      Monomer monomer;
+      if (kind == REFERENCE) {
+        String polymerType = readString(buffer, strings);
+        String key = readString(buffer, strings);
+        Map<String, Monomer> monomers = monomerDB.get(polymerType);
+        monomer = (monomers == null) ? null : monomers.get(key);
+        if (monomer == null) {
+          throw new MonomerException("Binary monomer cache references unknown monomer " + key);
+        }
+      } else if (kind == INLINE) {
+        monomer = readMonomer(buffer, strings);
+      } else {
+        throw new MonomerException("Corrupted binary monomer cache");
+      }
+      smilesDB.put(smiles, monomer);
+    }
+
+    MonomerCache cache = new MonomerCache();
+    cache.setAttachmentDB(attachmentDB);
+    cache.setMonomerDB(monomerDB);
+    cache.setSmilesMonomerDB(smilesDB);
+    return cache;
+  }
+
+  private static void checkChecksum(ByteBuffer buffer, int length) throws MonomerException {
+    ByteBuffer data = buffer.duplicate();
+    CRC32 crc = new CRC32();
+    byte[] chunk = new byte[8192];
+    int remaining = length;
+    while (remaining > 0) {
+      int n = Math.min(chunk.length, remaining);
+      data.get(chunk, 0, n);
+      crc.update(chunk, 0, n);
+      remaining -= n;
+    }
+    if (crc.getValue() != buffer.getLong(length)) {
+      throw new MonomerException("Checksum of binary monomer cache does not match");
+    }
+  }
+
+  private static void collectStrings(MonomerCache cache, Map<String, Integer> strings) {
+    for (Map.Entry<String, Attachment> e : nonNull(cache.getAttachmentDB()).entrySet()) {
+      addString(strings, e.getKey());
+      addStrings(strings, e.getValue());
+    }
+    for (Map.Entry<String, Map<String, Monomer>> type : nonNull(cache.getMonomerDB()).entrySet()) {
+      addString(strings, type.getKey());
+      for (Map.Entry<String, Monomer> e : type.getValue().entrySet()) {
+        addString(strings, e.getKey());
+        addStrings(strings, e.getValue());
+      }
+    }
+    for (Map.Entry<String, Monomer> e : nonNull(cache.getSmilesMonomerDB()).entrySet()) {
+      addString(strings, e.getKey());
+      addStrings(strings, e.getValue());
+    }
+  }
+
+  private static void addStrings(Map<String, Integer> strings, Monomer monomer) {
+    addString(strings, monomer.getAlternateId());
+    addString(strings, monomer.getNaturalAnalog());
+    addString(strings, monomer.getName());
+    addString(strings, monomer.getCanSMILES());
+    addString(strings, monomer.getMolfile());
+    addString(strings, monomer.getMonomerType());
+    addString(strings, monomer.getPolymerType());
+    for (Attachment attachment : nonNull(monomer.getAttachmentList())) {
+      addStrings(strings, attachment);
+    }
+  }
+
+  private static void addStrings(Map<String, Integer> strings, Attachment attachment) {
+    addString(strings, attachment.getAlternateId());
+    addString(strings, attachment.getLabel());
+    addString(strings, attachment.getCapGroupName());
+    addString(strings, attachment.getCapGroupSMILES());
+  }
+
+  private static void addString(Map<String, Integer> strings, String s) {
+    if (s != null && !strings.containsKey(s)) {
+      strings.put(s, strings.size());
+    }
+  }
+
+  private static void writeString(DataOutputStream out, Map<String, Integer> strings, String s) throws IOException {
+    out.writeInt(s == null ? NULL_STRING : strings.get(s));
+  }
+
+  private static String readString(ByteBuffer buffer, String[] strings) {
+    int index = buffer.getInt();
+    return index == NULL_STRING ? null : strings[index];
+  }
+
+  private static void writeMonomer(DataOutputStream out, Map<String, Integer> strings, Monomer monomer) throws IOException {
+    out.writeInt(monomer.getId());
+    writeString(out, strings, monomer.getAlternateId());
+    writeString(out, strings, monomer.getNaturalAnalog());
+    writeString(out, strings, monomer.getName());
+    writeString(out, strings, monomer.getCanSMILES());
+    writeString(out, strings, monomer.getMolfile());
+    writeString(out, strings, monomer.getMonomerType());
+    writeString(out, strings, monomer.getPolymerType());
+    int flags = 0;
+    if (monomer.isNewMonomer()) {
+      flags |= NEW_MONOMER_FLAG;
+    }
+    if (monomer.isAdHocMonomer()) {
+      flags |= ADHOC_MONOMER_FLAG;
+    }
+    out.writeByte(flags);
+    List<Attachment> attachments = nonNull(monomer.getAttachmentList());
+    out.writeInt(attachments.size());
+    for (Attachment attachment : attachments) {
+      writeAttachment(out, strings, attachment);
+    }
+  }
+
+  private static Monomer readMonomer(ByteBuffer buffer, String[] strings) {
+    Monomer monomer = new Monomer();
+    monomer.setId(buffer.getInt());
+    monomer.setAlternateId(readString(buffer, strings));
+    monomer.setNaturalAnalog(readString(buffer, strings));
+    monomer.setName(readString(buffer, strings));
+    monomer.setCanSMILES(readString(buffer, strings));
+    monomer.setMolfile(readString(buffer, strings));
+    monomer.setMonomerType(readString(buffer, strings));
+    monomer.setPolymerType(readString(buffer, strings));
+    int flags = buffer.get();
+    monomer.setNewMonomer((flags & NEW_MONOMER_FLAG) != 0);
+    monomer.setAdHocMonomer((flags & ADHOC_MONOMER_FLAG) != 0);
+    int count = buffer.getInt();
+    List<Attachment> attachments = new ArrayList<Attachment>(count);
+    for (int i = 0; i < count; i++) {
+      attachments.add(readAttachment(buffer, strings));
+    }
+    monomer.setAttachmentList(attachments);
+    return monomer;
+  }
+
+  private static void writeAttachment(DataOutputStream out, Map<String, Integer> strings, Attachment attachment) throws IOException {
+    out.writeInt(attachment.getId());
+    writeString(out, strings, attachment.getAlternateId());
+    /* getLabel() never returns null, the field is written as it is */
+    writeString(out, strings, " ".equals(attachment.getLabel()) ? null : attachment.getLabel());
+    writeString(out, strings, attachment.getCapGroupName());
+    writeString(out, strings, attachment.getCapGroupSMILES());
+  }
+
+  private static Attachment readAttachment(ByteBuffer buffer, String[] strings) {
+    Attachment attachment = new Attachment();
+    attachment.setId(buffer.getInt());
+    attachment.setAlternateId(readString(buffer, strings));
+    attachment.setLabel(readString(buffer, strings));
+    attachment.setCapGroupName(readString(buffer, strings));
+    attachment.setCapGroupSMILES(readString(buffer, strings));
+    return attachment;
+  }
+
+  private static int capacity(int size) {
+    return Math.max(16, (int) (size / 0.75f) + 1);
+  }
+
+  private static <K, V> Map<K, V> nonNull(Map<K, V> map) {
+    return map == null ? new HashMap<K, V>() : map;
+  }
+
+  private static <T> List<T> nonNull(List<T> list) {
+    return list == null ? new ArrayList<T>() : list;
+  }
+}
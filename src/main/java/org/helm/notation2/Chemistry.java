@@ -41,7 +41,9 @@ import org.helm.chemtoolkit.ManipulatorFactory;
 import org.helm.notation2.exception.ChemistryException;
 
 /**
- * Chemistry, singleton class to define which Chemistry-Plugin is used
+ * Chemistry, singleton class to define which Chemistry-Plugin is used. Every
+ * thread gets its own manipulator instance of the configured plugin, so
+ * chemistry work of concurrent requests does not share plugin state.
  *
  * @author hecht
  */
@@ -50,11 +52,24 @@ public final class Chemistry {
 
   private static final String CHEMISTRY_PLUGIN = "chemistry";
 
-  private static Chemistry _instance;
+  private static volatile Chemistry _instance;
 
   public static String chemistry;
 
-  private static AbstractChemistryManipulator manipulator;
+  /** plugin class the manipulators are created from */
+  private final String plugin;
+
+  /** manipulator instance of every thread */
+  private final ThreadLocal<AbstractChemistryManipulator> manipulators = new ThreadLocal<AbstractChemistryManipulator>() {
+    @Override
+    protected AbstractChemistryManipulator initialValue() {
+      try {
+        return buildManipulator(plugin);
+      } catch (ChemistryException e) {
+        throw new IllegalStateException(e.getMessage(), e);
+      }
+    }
+  };
 
   /**
    * Default constructor.
@@ -64,8 +79,21 @@ public final class Chemistry {
   private Chemistry() throws ChemistryException {
     refresh();
     readConfigFile();
+    plugin = chemistry;
+    /* the plugin is checked with the manipulator of the creating thread */
+    manipulators.set(buildManipulator(plugin));
+  }
+
+  /**
+   * method to create a new manipulator instance of the given plugin
+   *
+   * @param plugin class name of the plugin
+   * @return new manipulator
+   * @throws ChemistryException if the manipulator can not be created
+   */
+  private static AbstractChemistryManipulator buildManipulator(final String plugin) throws ChemistryException {
     try {
-      manipulator = ManipulatorFactory.buildManipulator(chemistry);
+      return ManipulatorFactory.buildManipulator(plugin);
     } catch (ClassNotFoundException | NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
       e.printStackTrace();
       throw new ChemistryException("Chemistry Engine could not be initialized");
@@ -109,19 +137,27 @@ public final class Chemistry {
    * @throws ChemistryException
    */
   public static Chemistry getInstance() throws ChemistryException {
-    if (_instance == null) {
-      _instance = new Chemistry();
+    Chemistry instance = _instance;
+    if (instance == null) {
+      synchronized (Chemistry.class) {
+        instance = _instance;
+        if (instance == null) {
+          instance = new Chemistry();
+          _instance = instance;
+        }
+      }
     }
-    return _instance;
+    return instance;
   }
 
   /**
-   * method to get the Manipulator
+   * method to get the Manipulator of the current thread; the manipulator is
+   * created on the first call of each thread
    *
    * @return AbstractChemistryManipulator
    */
-  public synchronized AbstractChemistryManipulator getManipulator() {
-    return manipulator;
+  public AbstractChemistryManipulator getManipulator() {
+    return manipulators.get();
   }
 
   public void refresh() {
@@ -34,6 +34,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * Deep copies of the data model objects. Monomers, attachments, nucleotides
+ * and lists of them (or of strings and string arrays) are copied structurally;
+ * only unknown objects are copied by a serialization round trip.
  * 
  * @author lih25
  */
@@ -41,117 +44,73 @@ public class DeepCopy {
 
 	public static List copy(List list) throws IOException,
 			ClassNotFoundException {
-		// serialize ArrayList into byte array
-
-		ByteArrayOutputStream baos = new ByteArrayOutputStream(100);
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(list);
-		byte buf[] = baos.toByteArray();
-		oos.close();
-
-		// deserialize byte array into ArrayList
-
-		ByteArrayInputStream bais = new ByteArrayInputStream(buf);
-		ObjectInputStream ois = new ObjectInputStream(bais);
-		ArrayList newlist = (ArrayList) ois.readObject();
-		ois.close();
-
-		return newlist;
+		return copyList(list);
 	}
 
 	public static ArrayList copy(ArrayList list) throws IOException,
 			ClassNotFoundException {
-		// serialize ArrayList into byte array
-
-		ByteArrayOutputStream baos = new ByteArrayOutputStream(100);
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(list);
-		byte buf[] = baos.toByteArray();
-		oos.close();
-
-		// deserialize byte array into ArrayList
-
-		ByteArrayInputStream bais = new ByteArrayInputStream(buf);
-		ObjectInputStream ois = new ObjectInputStream(bais);
-		ArrayList newlist = (ArrayList) ois.readObject();
-		ois.close();
-
-		return newlist;
+		return copyList(list);
 	}
 
 	public static Monomer copy(Monomer monomer) throws IOException,
 			MonomerException {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream(100);
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(monomer);
-		byte buf[] = baos.toByteArray();
-		oos.close();
-
-		// deserialize byte array into ArrayList
-
-		ByteArrayInputStream bais = new ByteArrayInputStream(buf);
-		ObjectInputStream ois = new ObjectInputStream(bais);
-		Monomer newMonomer;
-		try {
-			newMonomer = (Monomer) ois.readObject();
-		} catch (ClassNotFoundException cnfe) {
-			throw new MonomerException("Unable to copy Monomer");
-		}
-		ois.close();
-
-		return newMonomer;
+		return new Monomer(monomer);
 	}
 
 	public static Attachment copy(Attachment attachment) throws IOException,
 			MonomerException {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream(100);
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(attachment);
-		byte buf[] = baos.toByteArray();
-		oos.close();
-
-		// deserialize byte array into ArrayList
-
-		ByteArrayInputStream bais = new ByteArrayInputStream(buf);
-		ObjectInputStream ois = new ObjectInputStream(bais);
-		Attachment newAttachment;
-		try {
-			newAttachment = (Attachment) ois.readObject();
-		} catch (ClassNotFoundException cnfe) {
-			throw new MonomerException("Unable to copy Attachment");
-		}
-
-		ois.close();
-
-		return newAttachment;
+		return new Attachment(attachment);
 	}
 
 	public static Nucleotide copy(Nucleotide nucleotide) throws IOException,
 			NotationException {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream(100);
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(nucleotide);
-		byte buf[] = baos.toByteArray();
-		oos.close();
-
-		// deserialize byte array into ArrayList
+		return new Nucleotide(nucleotide);
+	}
 
-		ByteArrayInputStream bais = new ByteArrayInputStream(buf);
-		ObjectInputStream ois = new ObjectInputStream(bais);
-		Nucleotide nuc;
+	public static Serializable copy(Serializable input) throws IOException,
+			NotationException {
 		try {
-			nuc = (Nucleotide) ois.readObject();
+			return copyElement(input);
 		} catch (ClassNotFoundException cnfe) {
-			throw new NotationException("Unable to copy Nucleotide");
+			throw new NotationException("Unable to copy input object");
 		}
+	}
 
-		ois.close();
+	private static ArrayList copyList(List list) throws IOException,
+			ClassNotFoundException {
+		if (list == null) {
+			return null;
+		}
+		ArrayList newlist = new ArrayList(list.size());
+		for (Object element : list) {
+			newlist.add(copyElement(element));
+		}
+		return newlist;
+	}
 
-		return nuc;
+	private static Serializable copyElement(Object element)
+			throws IOException, ClassNotFoundException {
+		if (element == null || element instanceof String
+				|| element instanceof Number || element instanceof Boolean
+				|| element instanceof Character) {
+			// immutable
+			return (Serializable) element;
+		} else if (element instanceof String[]) {
+			return ((String[]) element).clone();
+		} else if (element instanceof List) {
+			return copyList((List) element);
+		} else if (element instanceof Monomer) {
+			return new Monomer((Monomer) element);
+		} else if (element instanceof Attachment) {
+			return new Attachment((Attachment) element);
+		} else if (element instanceof Nucleotide) {
+			return new Nucleotide((Nucleotide) element);
+		}
+		return serialize(element);
 	}
 
-	public static Serializable copy(Serializable input) throws IOException,
-			NotationException {
+	private static Serializable serialize(Object input) throws IOException,
+			ClassNotFoundException {
 		ByteArrayOutputStream baos = new ByteArrayOutputStream(100);
 		ObjectOutputStream oos = new ObjectOutputStream(baos);
 		oos.writeObject(input);
@@ -160,12 +119,7 @@ public class DeepCopy {
 
 		ByteArrayInputStream bais = new ByteArrayInputStream(buf);
 		ObjectInputStream ois = new ObjectInputStream(bais);
-		Serializable output;
-		try {
-			output = (Serializable) ois.readObject();
-		} catch (ClassNotFoundException cnfe) {
-			throw new NotationException("Unable to copy input object");
-		}
+		Serializable output = (Serializable) ois.readObject();
 		ois.close();
 
 		return output;
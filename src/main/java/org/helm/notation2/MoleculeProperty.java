@@ -20,6 +20,15 @@ public class MoleculeProperty {
 
   private float extinctionCoefficient;
 
+  /* time spent in the single stages of the calculation, in nanoseconds */
+  private long buildTime;
+
+  private long cappingTime;
+
+  private long calculationTime;
+
+  private long extinctionCoefficientTime;
+
   public double getMolecularWeight() {
     return molecularWeight;
   }
@@ -52,4 +61,48 @@ public class MoleculeProperty {
     return extinctionCoefficient;
   }
 
+  /**
+   * @return time in nanoseconds to build the molecules of the notation
+   */
+  public long getBuildTime() {
+    return buildTime;
+  }
+
+  public void setBuildTime(long buildTime) {
+    this.buildTime = buildTime;
+  }
+
+  /**
+   * @return time in nanoseconds to merge the unused rgroups into the molecules
+   */
+  public long getCappingTime() {
+    return cappingTime;
+  }
+
+  public void setCappingTime(long cappingTime) {
+    this.cappingTime = cappingTime;
+  }
+
+  /**
+   * @return time in nanoseconds to calculate formula, weight and exact mass
+   */
+  public long getCalculationTime() {
+    return calculationTime;
+  }
+
+  public void setCalculationTime(long calculationTime) {
+    this.calculationTime = calculationTime;
+  }
+
+  /**
+   * @return time in nanoseconds to calculate the extinction coefficient
+   */
+  public long getExtinctionCoefficientTime() {
+    return extinctionCoefficientTime;
+  }
+
+  public void setExtinctionCoefficientTime(long extinctionCoefficientTime) {
+    this.extinctionCoefficientTime = extinctionCoefficientTime;
+  }
+
 }
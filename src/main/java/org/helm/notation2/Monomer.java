@@ -31,7 +31,12 @@ import org.helm.chemtoolkit.AbstractMolecule;
 import org.helm.chemtoolkit.CTKException;
 import org.helm.chemtoolkit.IAtomBase;
 import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.EncoderException;
+import org.helm.notation2.exception.MonomerException;
 import org.helm.notation2.tools.BuilderMolecule;
+import org.helm.notation2.tools.MolfileEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -43,6 +48,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 public class Monomer implements Serializable {
 
+  private static final Logger LOG = LoggerFactory.getLogger(Monomer.class);
+
   public static final String NUCLIEC_ACID_POLYMER_TYPE = "RNA";
 
   public static final String PEPTIDE_POLYMER_TYPE = "PEPTIDE";
@@ -77,7 +84,11 @@ public class Monomer implements Serializable {
 
   private String canSMILES;
 
-  private String molfile; // monomer type, Backone, Branch, UnDefined
+  private String molfile; // encoded molfile, decoded on first access
+
+  private volatile String encodedMolfile; // monomer type, Backone, Branch, UnDefined
+
+  private volatile boolean invalidMolfile;
 
   private String monomerType; // polymer type, NucleicAcid, Peptide,
   // ChemicalStructure
@@ -178,6 +189,31 @@ public class Monomer implements Serializable {
     setAlternateId(alternateId);
   }
 
+  /**
+   * copy constructor, the attachments are copied as well
+   *
+   * @param monomer monomer to copy
+   */
+  public Monomer(Monomer monomer) {
+    this.id = monomer.id;
+    this.alternateId = monomer.alternateId;
+    this.naturalAnalog = monomer.naturalAnalog;
+    this.name = monomer.name;
+    this.canSMILES = monomer.canSMILES;
+    this.molfile = monomer.molfile;
+    this.encodedMolfile = monomer.encodedMolfile;
+    this.monomerType = monomer.monomerType;
+    this.polymerType = monomer.polymerType;
+    this.newMonomer = monomer.newMonomer;
+    this.adHocMonomer = monomer.adHocMonomer;
+    if (monomer.attachmentList != null) {
+      this.attachmentList = new ArrayList<Attachment>(monomer.attachmentList.size());
+      for (Attachment attachment : monomer.attachmentList) {
+        this.attachmentList.add(attachment == null ? null : new Attachment(attachment));
+      }
+    }
+  }
+
   public int getId() {
     return id;
   }
@@ -251,11 +287,59 @@ public class Monomer implements Serializable {
   }
 
   public String getMolfile() {
+    String encoded = encodedMolfile;
+    if (encoded != null) {
+      /* decoding twice by concurrent readers yields the same molfile */
+      try {
+        molfile = MolfileEncoder.decode(encoded);
+      } catch (EncoderException e) {
+        LOG.error("Invalid molfile of monomer " + alternateId, e);
+        molfile = null;
+        invalidMolfile = true;
+      }
+      encodedMolfile = null;
+    }
     return molfile;
   }
 
   public void setMolfile(String molfile) {
     this.molfile = molfile;
+    this.encodedMolfile = null;
+    this.invalidMolfile = false;
+  }
+
+  /**
+   * decodes the molfile of the monomer, if it is still encoded, and checks
+   * that it could be decoded; the loaders do not call it, a corrupt molfile is
+   * found when the monomer is used the first time
+   *
+   * @throws MonomerException if the encoded molfile is corrupt
+   */
+  public void checkMolfile() throws MonomerException {
+    getMolfile();
+    if (invalidMolfile) {
+      throw new MonomerException("Molfile of monomer " + alternateId + " can not be decoded");
+    }
+  }
+
+  /**
+   * set the gzipped Base64 encoded molfile of the monomer, it is decoded on
+   * the first call of getMolfile()
+   *
+   * @param encodedMolfile encoded molfile
+   */
+  public void setEncodedMolfile(String encodedMolfile) {
+    this.molfile = null;
+    this.encodedMolfile = encodedMolfile;
+    this.invalidMolfile = false;
+  }
+
+  /**
+   * @return true, if the monomer has a molfile, without decoding it; false if
+   *         the molfile was found to be corrupt
+   */
+  public boolean hasMolfile() {
+    return !invalidMolfile && (encodedMolfile != null || molfile != null);
   }
 
   /**
@@ -30,9 +30,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -40,6 +38,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,14 +48,14 @@ import org.helm.notation2.exception.EncoderException;
 import org.helm.notation2.exception.MonomerException;
 import org.helm.notation2.exception.MonomerLoadingException;
 import org.helm.notation2.tools.MethodsMonomerUtils;
+import org.helm.notation2.tools.MonomerMoleculeCache;
 import org.helm.notation2.tools.MonomerParser;
+import org.helm.notation2.tools.MonomerStreamParser;
 import org.helm.notation2.wsadapter.MonomerStoreConfiguration;
 import org.helm.notation2.wsadapter.MonomerWSLoader;
 import org.jdom2.Attribute;
-import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
-import org.jdom2.input.SAXBuilder;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 import org.slf4j.LoggerFactory;
@@ -79,6 +78,11 @@ public class MonomerFactory {
   public static final String MONOMER_CACHE_FILE_PATH = NOTATION_DIRECTORY
       + System.getProperty("file.separator") + MONOMER_CACHE_FILE_NAME;
 
+  public static final String MONOMER_CACHE_BINARY_FILE_NAME = "MonomerCache.bin";
+
+  public static final String MONOMER_CACHE_BINARY_FILE_PATH = NOTATION_DIRECTORY
+      + System.getProperty("file.separator") + MONOMER_CACHE_BINARY_FILE_NAME;
+
   public static final String MONOMER_DB_FILE_NAME = "MonomerDBGZEncoded.xml";
 
   public static final String MONOMER_DB_FILE_PATH = NOTATION_DIRECTORY
@@ -102,37 +106,41 @@ public class MonomerFactory {
 
   public static final String ATTACHMENT_LIST_ELEMENT = "AttachmentList";
 
-  private static MonomerFactory instance;
+  private static volatile MonomerFactory instance;
 
-  /**
-   * First key is polymer Type, such as "RNA" Second key is monomer ID, such as
-   * "A"
-   */
-  private static Map<String, Map<String, Monomer>> monomerDB; // key is
-  // monomer
-  // SMILES, value
-  // is Monomer
+  // private static Map<String, Map<String, Monomer>> externalMonomerDB;
 
-  private static Map<String, Monomer> smilesMonomerDB; // key is
-  // AttachementID,
-  // value is
-  // Attachment
+  private static Logger logger = Logger.getLogger(MonomerFactory.class.toString());
 
-  private static Map<String, Attachment> attachmentDB;
+  private static volatile boolean dbChanged = true;
 
-  // private static Map<String, Map<String, Monomer>> externalMonomerDB;
-  private static SAXBuilder builder;
+  private static final AtomicLong storeVersion = new AtomicLong();
 
-  private static Logger logger = Logger.getLogger(MonomerFactory.class.toString());
+  /**
+   * monomer database and smiles database of this factory, published as
+   * immutable snapshot
+   */
+  private final MonomerStore monomerStore;
 
-  private static boolean dbChanged = true;
+  /** key is attachment ID, value is Attachment */
+  private volatile Map<String, Attachment> attachmentDB;
+
+  /**
+   * constructs the factory for the given monomer cache
+   *
+   * @param cache monomer cache
+   */
+  private MonomerFactory(MonomerCache cache) {
+    monomerStore = new MonomerStore(cache.getMonomerDB(), cache.getSmilesMonomerDB());
+    attachmentDB = unmodifiableCopy(cache.getAttachmentDB());
+  }
 
   /**
    * retruns the monomer database
    *
    * @return Map as Map<String, Map<String, Monomer>>
    */
-  public synchronized Map<String, Map<String, Monomer>> getMonomerDB() {
+  public Map<String, Map<String, Monomer>> getMonomerDB() {
     return getMonomerDB(true);
   }
 
@@ -143,8 +151,9 @@ public class MonomerFactory {
    * @param includeNewMonomers
    * @return Map as Map<String, Map<String, Monomer>>
    */
-  public synchronized Map<String, Map<String, Monomer>> getMonomerDB(
+  public Map<String, Map<String, Monomer>> getMonomerDB(
       boolean includeNewMonomers) {
+    Map<String, Map<String, Monomer>> monomerDB = monomerStore.getMonomerDB();
     if (includeNewMonomers) {
       return monomerDB;
     } else {
@@ -157,39 +166,34 @@ public class MonomerFactory {
     }
   }
 
-  protected MonomerStore monomerStore;
-
   /**
-   * create a MonomerStore instance based on MonomerFactory's monomerDB and
+   * returns the MonomerStore with MonomerFactory's monomerDB and
    * smilesMonomerDB
    *
    * @return MonomerStore
    */
-  public synchronized MonomerStore getMonomerStore() {
-    if (monomerStore == null) {
-      monomerStore = new MonomerStore(monomerDB, smilesMonomerDB);
-    }
+  public MonomerStore getMonomerStore() {
     return monomerStore;
   }
 
-  public synchronized Map<String, Attachment> getAttachmentDB() {
+  public Map<String, Attachment> getAttachmentDB() {
     return attachmentDB;
   }
 
-  public synchronized Map<String, Monomer> getSmilesMonomerDB() {
+  public Map<String, Monomer> getSmilesMonomerDB() {
     return getSmilesMonomerDB(true);
   }
 
-  public synchronized Map<String, Monomer> getSmilesMonomerDB(
+  public Map<String, Monomer> getSmilesMonomerDB(
       boolean includeNewMonomers) {
     if (includeNewMonomers) {
-      return smilesMonomerDB;
+      return monomerStore.getSmilesMonomerDB();
     } else {
-      return excludeNewMonomers(smilesMonomerDB);
+      return excludeNewMonomers(monomerStore.getSmilesMonomerDB());
     }
   }
 
-  private synchronized Map<String, Monomer> excludeNewMonomers(
+  private Map<String, Monomer> excludeNewMonomers(
       Map<String, Monomer> monomerMap) {
     Map<String, Monomer> reducedMonomerMap = new HashMap<String, Monomer>();
     for (String identifier : monomerMap.keySet()) {
@@ -201,16 +205,16 @@ public class MonomerFactory {
     return reducedMonomerMap;
   }
 
-  public synchronized List<String> getPolymerTypes() {
+  public List<String> getPolymerTypes() {
     List<String> l = new ArrayList<String>();
-    l.addAll(monomerDB.keySet());
+    l.addAll(getMonomerDB().keySet());
     Collections.sort(l);
     return l;
   }
 
-  public synchronized List<String> getMonomerTypes() {
+  public List<String> getMonomerTypes() {
     List<String> monomerTypeList = new ArrayList<String>();
-    Object[] col = monomerDB.values().toArray();
+    Object[] col = getMonomerDB().values().toArray();
     for (int i = 0; i < col.length; i++) {
       Map<String, Monomer> map = (Map<String, Monomer>) col[i];
       Monomer[] monomers = map.values().toArray(new Monomer[0]);
@@ -224,8 +228,9 @@ public class MonomerFactory {
     return monomerTypeList;
   }
 
-  public synchronized Map<String, List<String>> getAttachmentLabelIDs() {
+  public Map<String, List<String>> getAttachmentLabelIDs() {
     Map<String, List<String>> labelMap = new HashMap<String, List<String>>();
+    Map<String, Attachment> attachmentDB = this.attachmentDB;
 
     // group attachments based on R value (label)
     Set<String> idSet = attachmentDB.keySet();
@@ -251,15 +256,6 @@ public class MonomerFactory {
     return labelMap;
   }
 
-  public static void setupBuilder() {
-    URL schema = MonomerFactory.class.getResource(MONOMER_DB_SCHEMA_RESOURCE);
-    builder = new SAXBuilder(false); // checks both well-formedness and
-    // validity
-    builder.setFeature(XML_SCHEMA_VALIDATION_FEATURE, true);
-    builder.setProperty(EXTERNAL_SCHEMA_LOCATION_KEY, DEFAULT_NAME_SPACE
-        + " " + schema.toString());
-  }
-
   private MonomerFactory() {
   }
 
@@ -274,25 +270,56 @@ public class MonomerFactory {
    * @throws org.jdom.JDOMException
    */
   public static MonomerFactory getInstance() throws MonomerLoadingException, ChemistryException {
-    if (null == instance) {
-      refreshMonomerCache();
+    MonomerFactory current = instance;
+    if (null == current) {
+      synchronized (MonomerFactory.class) {
+        current = instance;
+        if (null == current) {
+          refreshMonomerCache();
+          current = instance;
+        }
+      }
     }
 
     else if (MonomerStoreConfiguration.getInstance().isUseWebservice() && MonomerStoreConfiguration.getInstance().isUpdateAutomatic()) {
       refreshMonomerCache();
+      current = instance;
     }
-    return instance;
+    return current;
   }
 
-  public static void refreshMonomerCache() throws MonomerLoadingException, ChemistryException {
-    initializeMonomerCache();
-    instance = new MonomerFactory();
+  /**
+   * reloads the monomer cache; the new monomers are published in one step, so
+   * readers see either the old or the new monomer cache
+   *
+   * @throws MonomerLoadingException
+   * @throws ChemistryException
+   */
+  public static synchronized void refreshMonomerCache() throws MonomerLoadingException, ChemistryException {
+    MonomerCache cache = initializeMonomerCache();
+    instance = new MonomerFactory(cache);
+    setDBChanged(true);
+    MonomerMoleculeCache.clear();
   }
 
   public static void setDBChanged(boolean isChanged) {
+    if (isChanged) {
+      storeVersion.incrementAndGet();
+    }
     dbChanged = isChanged;
   }
 
+  /**
+   * Returns the version of the monomer database. It is incremented whenever
+   * the database changes and, unlike hasDBChanged(), never reset, so caches
+   * of results which depend on the monomers can detect outdated entries.
+   *
+   * @return version of the monomer database
+   */
+  public static long getStoreVersion() {
+    return storeVersion.get();
+  }
+
   /**
    * Returns whether one of the stored databases has changed, for example by
    * adding or removing monomers.
@@ -307,15 +334,6 @@ public class MonomerFactory {
     dbChanged = false;
   }
 
-  private static void serializeMonomerCache(MonomerCache monomerCache,
-      String fileName) throws IOException {
-    FileOutputStream fos = new FileOutputStream(fileName);
-    ObjectOutputStream oos = new ObjectOutputStream(fos);
-    oos.writeObject(monomerCache);
-    oos.close();
-    fos.close();
-  }
-
   private static MonomerCache deserializeMonomerCache(String fileName)
       throws IOException, MonomerException {
     FileInputStream fis = new FileInputStream(fileName);
@@ -342,37 +360,9 @@ public class MonomerFactory {
    *
    * @param monomer
    */
-  public synchronized void addNewMonomer(Monomer monomer) throws IOException,
+  public void addNewMonomer(Monomer monomer) throws IOException,
       MonomerException {
-    monomer.setNewMonomer(true);
-    addMonomer(monomerDB, smilesMonomerDB, monomer);
-
-    dbChanged = true;
-  }
-
-  private void addMonomer(Map<String, Map<String, Monomer>> monomerDB,
-      Map<String, Monomer> smilesMonomerDB, Monomer monomer)
-          throws IOException, MonomerException {
-    Map<String, Monomer> monomerMap = monomerDB.get(monomer.getPolymerType());
-    if (null == monomerMap) {
-      Map<String, Monomer> map = new HashMap<String, Monomer>();
-      Monomer copyMonomer = DeepCopy.copy(monomer);
-      map.put(monomer.getAlternateId(), copyMonomer);
-      monomerDB.put(monomer.getPolymerType(), map);
-    } else {
-      if (!monomerMap.containsKey(monomer.getAlternateId())) {
-        monomerMap.put(monomer.getAlternateId(), monomer);
-      }
-    }
-
-    if (monomer.getCanSMILES() != null
-        && monomer.getCanSMILES().length() > 0) {
-      if (!smilesMonomerDB.containsKey(monomer.getCanSMILES())) {
-        smilesMonomerDB.put(monomer.getCanSMILES(), monomer);
-      }
-    }
-
-    dbChanged = true;
+    monomerStore.addNewMonomer(monomer);
   }
 
   /**
@@ -410,20 +400,15 @@ public class MonomerFactory {
     } else {
       Map<String, Map<String, Monomer>> monoDB = remoteMonomerCache.getMonomerDB();
 
-      Set<String> polymerTypeSet = monoDB.keySet();
-      for (Iterator i = polymerTypeSet.iterator(); i.hasNext();) {
-        String polymerType = (String) i.next();
-        Map<String, Monomer> map = monoDB.get(polymerType);
-        Set<String> monomerSet = map.keySet();
-        for (Iterator it = monomerSet.iterator(); it.hasNext();) {
-          String id = (String) it.next();
-          Monomer m = map.get(id);
-          addMonomer(monomerDB, smilesMonomerDB, m);
-        }
+      /* publish all remote monomers in one snapshot */
+      List<Monomer> monomers = new ArrayList<Monomer>();
+      for (Map<String, Monomer> map : monoDB.values()) {
+        monomers.addAll(map.values());
       }
+      monomerStore.addMonomers(monomers, false);
     }
 
-    dbChanged = true;
+    setDBChanged(true);
   }
 
   /**
@@ -435,11 +420,11 @@ public class MonomerFactory {
    */
   public synchronized void setMonomerCache(MonomerCache remoteMonomerCache)
       throws IOException, MonomerException {
-    monomerDB = remoteMonomerCache.getMonomerDB();
-    attachmentDB = remoteMonomerCache.getAttachmentDB();
-    smilesMonomerDB = remoteMonomerCache.getSmilesMonomerDB();
+    monomerStore.setMonomers(remoteMonomerCache.getMonomerDB(), remoteMonomerCache.getSmilesMonomerDB());
+    attachmentDB = unmodifiableCopy(remoteMonomerCache.getAttachmentDB());
+    MonomerMoleculeCache.clear();
 
-    dbChanged = true;
+    setDBChanged(true);
   }
 
   /**
@@ -457,7 +442,7 @@ public class MonomerFactory {
     Map<String, Monomer> remoteSmilesDB = remoteMonomerCache.getSmilesMonomerDB();
 
     Map<Monomer, Monomer> map = new HashMap<Monomer, Monomer>();
-    List<Monomer> newMonomers = getNewMonomers(monomerDB);
+    List<Monomer> newMonomers = getNewMonomers(getMonomerDB());
     if (newMonomers.size() > 0) {
 
       for (int i = 0; i < newMonomers.size(); i++) {
@@ -615,25 +600,14 @@ public class MonomerFactory {
 
   private static MonomerCache buildMonomerCacheFromXML(
       InputStream monomerDBInputStream) throws MonomerException,
-          IOException, JDOMException, ChemistryException, CTKException {
-
-    if (null == builder) {
-      setupBuilder();
-    }
-    Document doc = builder.build(monomerDBInputStream);
-    Element root = doc.getRootElement();
-
-    Element polymerList = root.getChild(POLYMER_LIST_ELEMENT, root.getNamespace());
-    Element attachmentList = root.getChild(ATTACHMENT_LIST_ELEMENT, root.getNamespace());
+          IOException, ChemistryException, CTKException {
 
-    Map<String, Attachment> newAttachmentDB = buildAttachmentDB(attachmentList);
-    Map<String, Map<String, Monomer>> newMonomerDB = buildMonomerDB(polymerList);
-    Map<String, Monomer> newSmilesMonomerDB = buildSmilesMonomerDB(newMonomerDB);
-
-    MonomerCache cache = new MonomerCache();
-    cache.setMonomerDB(newMonomerDB);
-    cache.setAttachmentDB(newAttachmentDB);
-    cache.setSmilesMonomerDB(newSmilesMonomerDB);
+    /* every monomer is validated once by the parser */
+    MonomerCache cache = MonomerStreamParser.parse(monomerDBInputStream,
+        MonomerStoreConfiguration.getInstance().getMonomerLoadParallelism());
+    long start = System.currentTimeMillis();
+    cache.setSmilesMonomerDB(buildSmilesMonomerDB(cache.getMonomerDB()));
+    LOG.info("Indexed monomer SMILES in {} ms", System.currentTimeMillis() - start);
 
     return cache;
   }
@@ -687,9 +661,11 @@ public class MonomerFactory {
   }
 
   /**
-   * This method is called during startup, use serialized version if exists,
-   * otherwise use XML version (First from local, then from jar)
+   * This method is called during startup, use binary version if exists, then
+   * the legacy serialized version, otherwise use XML version (First from local,
+   * then from jar)
    *
+   * @return the loaded monomer cache
    * @throws ChemistryException
    * @throws CTKException
    *
@@ -697,7 +673,7 @@ public class MonomerFactory {
    * @throws java.io.IOException
    * @throws org.jdom.JDOMException
    */
-  private static void initializeMonomerCache() throws MonomerLoadingException, ChemistryException {
+  private static MonomerCache initializeMonomerCache() throws MonomerLoadingException, ChemistryException {
     MonomerCache cache = null;
     InputStream in = null;
 
@@ -718,7 +694,6 @@ public class MonomerFactory {
       try {
         in = new FileInputStream(MONOMER_DB_FILE_PATH);
         cache = buildMonomerCacheFromXML(in);
-        validate(cache.getMonomerDB());
         logger.log(Level.INFO, MonomerStoreConfiguration.getInstance().getExternalMonomersPath()
             + " is used for monomer cache initialization");
       } catch (Exception e) {
@@ -727,8 +702,26 @@ public class MonomerFactory {
       }
 
     } else {
+      File binaryCacheFile = new File(MONOMER_CACHE_BINARY_FILE_PATH);
+      if (binaryCacheFile.exists()) {
+        try {
+          long start = System.currentTimeMillis();
+          /* the binary cache is written from validated monomers and checksummed */
+          cache = BinaryMonomerCache.read(binaryCacheFile);
+          LOG.debug("Binary monomer cache loaded in {} ms", System.currentTimeMillis() - start);
+          logger.log(Level.INFO, MONOMER_CACHE_BINARY_FILE_PATH
+              + " is used for monomer cache initialization");
+        } catch (Exception e) {
+          logger.log(Level.INFO, "Unable to use local binary monomer cache file: "
+              + MONOMER_CACHE_BINARY_FILE_NAME);
+          binaryCacheFile.delete();
+          logger.log(Level.INFO, "Deleted local binary monomer cache file: "
+              + MONOMER_CACHE_BINARY_FILE_NAME);
+        }
+      }
+
       File cacheFile = new File(MONOMER_CACHE_FILE_PATH);
-      if (cacheFile.exists()) {
+      if (null == cache && cacheFile.exists()) {
         try {
           cache = deserializeMonomerCache(MONOMER_CACHE_FILE_PATH);
           validate(cache.getMonomerDB());
@@ -748,7 +741,6 @@ public class MonomerFactory {
         try {
           in = new FileInputStream(MONOMER_DB_FILE_PATH);
           cache = buildMonomerCacheFromXML(in);
-          validate(cache.getMonomerDB());
           logger.log(Level.INFO, MONOMER_DB_FILE_PATH
               + " is used for monomer cache initialization");
         } catch (Exception e) {
@@ -765,8 +757,7 @@ public class MonomerFactory {
         try {
           LOG.info("BuildMonomerCacheFromXML");
           cache = buildMonomerCacheFromXML(in);
-          validate(cache.getMonomerDB());
-        } catch (MonomerException | IOException | JDOMException | CTKException e) {
+        } catch (MonomerException | IOException | CTKException e) {
           throw new MonomerLoadingException(
               "Initializing MonomerStore failed because of "
                   + e.getClass().getSimpleName(), e);
@@ -778,12 +769,7 @@ public class MonomerFactory {
 
     }
 
-    monomerDB = cache.getMonomerDB();
-    attachmentDB = cache.getAttachmentDB();
-    smilesMonomerDB = cache.getSmilesMonomerDB();
-
-    dbChanged = true;
-
+    return cache;
   }
 
   /**
@@ -800,7 +786,9 @@ public class MonomerFactory {
     cache.setMonomerDB(getMonomerDB(false));
     cache.setAttachmentDB(getAttachmentDB());
     cache.setSmilesMonomerDB(getSmilesMonomerDB(false));
-    serializeMonomerCache(cache, MONOMER_CACHE_FILE_PATH);
+    BinaryMonomerCache.write(cache, new File(MONOMER_CACHE_BINARY_FILE_PATH));
+    /* the legacy serialized cache would be outdated from now on */
+    new File(MONOMER_CACHE_FILE_PATH).delete();
 
     String monomerDbXML = buildMonomerDbXMLFromCache(cache);
 
@@ -809,54 +797,6 @@ public class MonomerFactory {
     fos.close();
   }
 
-  private static Map<String, Map<String, Monomer>> buildMonomerDB(
-      Element polymerList) throws MonomerException, IOException,
-          JDOMException, CTKException, ChemistryException {
-    Map<String, Map<String, Monomer>> map = new HashMap<String, Map<String, Monomer>>();
-    List poplymers = polymerList.getChildren();
-
-    Iterator i = poplymers.iterator();
-    while (i.hasNext()) {
-      Element polymer = (Element) i.next();
-      Attribute polymerType = polymer.getAttribute(POLYMER_TYPE_ATTRIBUTE);
-
-      Map idMonomerMap = new HashMap<String, Monomer>();
-
-      List monomers = polymer.getChildren();
-      Iterator it = monomers.iterator();
-      while (it.hasNext()) {
-        Element monomer = (Element) it.next();
-        Monomer m = MonomerParser.getMonomer(monomer);
-        if (MonomerParser.validateMonomer(m)) {
-          idMonomerMap.put(m.getAlternateId(), m);
-        }
-      }
-      map.put(polymerType.getValue(), idMonomerMap);
-    }
-
-    return map;
-  }
-
-  private static Map<String, Attachment> buildAttachmentDB(
-      Element attachmentList) throws MonomerException, IOException,
-          JDOMException, ChemistryException {
-    Map<String, Attachment> map = new HashMap<String, Attachment>();
-
-    List attachments = attachmentList.getChildren();
-    Iterator i = attachments.iterator();
-    while (i.hasNext()) {
-      Element attachment = (Element) i.next();
-      Attachment att = MonomerParser.getAttachment(attachment);
-
-      if (MonomerParser.validateAttachement(att)) {
-        map.put(att.getAlternateId(), att);
-      }
-
-    }
-
-    return map;
-  }
-
   private static Map<String, Monomer> buildSmilesMonomerDB(
       Map<String, Map<String, Monomer>> monomerDB) {
     Map<String, Monomer> map = new HashMap<String, Monomer>();
@@ -868,18 +808,11 @@ public class MonomerFactory {
       for (Iterator it = monomerSet.iterator(); it.hasNext();) {
         String monomerID = (String) it.next();
         Monomer monomer = monomerMap.get(monomerID);
-        String smiles = monomer.getCanSMILES();
-
-        try {
-          Chemistry.getInstance().getManipulator().canonicalize(smiles);
-        } catch (Exception e) {
-          smiles = monomer.getCanSMILES();
-
-        }
-
-        monomer.setCanSMILES(smiles);
-        map.put(smiles, monomer);
-
+        /*
+         * the monomers are indexed by their SMILES as stored; the result of
+         * canonicalize was never used here, so the call is not made anymore
+         */
+        map.put(monomer.getCanSMILES(), monomer);
       }
     }
     return map;
@@ -887,26 +820,28 @@ public class MonomerFactory {
 
   private static boolean validate(Map<String, Map<String, Monomer>> monomerDB)
       throws MonomerException, IOException, CTKException, ChemistryException {
-    Set<String> polymers = monomerDB.keySet();
-    for (String polymer : polymers) {
-      Map<String, Monomer> monomerMap = monomerDB.get(polymer);
-      Set<String> monomers = monomerMap.keySet();
-      for (String monomer : monomers) {
-        Monomer m = monomerMap.get(monomer);
-        logger.info(m.getAlternateId());
-        MonomerParser.validateMonomer(m);
-      }
+    long start = System.currentTimeMillis();
+    List<Monomer> monomers = new ArrayList<Monomer>();
+    for (Map<String, Monomer> monomerMap : monomerDB.values()) {
+      monomers.addAll(monomerMap.values());
     }
+    int parallelism = MonomerStoreConfiguration.getInstance().getMonomerLoadParallelism();
+    MonomerParser.validateMonomers(monomers, parallelism);
+    LOG.info("Validated {} monomers in {} ms with parallelism {}", monomers.size(), System.currentTimeMillis() - start, parallelism);
     return true;
   }
 
   public static void finalizeMonomerCache() {
 
-    monomerDB = null;
-    attachmentDB = null;
-    smilesMonomerDB = null;
-    dbChanged = true;
+    setDBChanged(true);
     instance = null;
   }
 
+  private static Map<String, Attachment> unmodifiableCopy(Map<String, Attachment> attachments) {
+    if (attachments == null) {
+      return Collections.emptyMap();
+    }
+    return Collections.unmodifiableMap(new HashMap<String, Attachment>(attachments));
+  }
+
 }
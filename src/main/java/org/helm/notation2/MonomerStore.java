@@ -2,12 +2,16 @@ package org.helm.notation2;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.helm.notation2.exception.MonomerException;
+import org.helm.notation2.tools.MonomerMoleculeCache;
 import org.helm.notation2.tools.SMILES;
 
 /**
@@ -15,13 +19,15 @@ import org.helm.notation2.tools.SMILES;
  * monomers coming from a single (XHELM) file from the monomers within the local
  * database.
  *
+ * The monomers are published as an immutable snapshot: readers never lock and
+ * never see a half-updated store, adding monomers builds a new snapshot and
+ * swaps it in atomically. The maps returned by this class are unmodifiable.
+ *
  * @author maisel
  *
  */
 public class MonomerStore {
-  private Map<String, Map<String, Monomer>> monomerDB;
-
-  private Map<String, Monomer> smilesMonomerDB;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<Snapshot>();
 
   /**
    * Constructor with Monomer- and SmilesDB
@@ -31,8 +37,7 @@ public class MonomerStore {
    */
   public MonomerStore(Map<String, Map<String, Monomer>> monomerDB,
       Map<String, Monomer> smilesMonomerDB) {
-    this.monomerDB = monomerDB;
-    this.smilesMonomerDB = smilesMonomerDB;
+    snapshot.set(Snapshot.copyOf(monomerDB, smilesMonomerDB));
   }
 
   /**
@@ -41,26 +46,25 @@ public class MonomerStore {
    *
    */
   public MonomerStore() {
-    monomerDB = new HashMap<String, Map<String, Monomer>>();
-    smilesMonomerDB = new HashMap<String, Monomer>();
+    snapshot.set(Snapshot.copyOf(null, null));
   }
 
   /**
    * returns MonomerDB
    *
-   * @return MonomerDB as Map<String, Map<String, Monomer>>
+   * @return MonomerDB as unmodifiable Map<String, Map<String, Monomer>>
    */
   public Map<String, Map<String, Monomer>> getMonomerDB() {
-    return monomerDB;
+    return snapshot.get().monomerDB;
   }
 
   /**
    * returns SmilesMonomerDB
    *
-   * @return SmilesMonomerDB as Map<String, Monomer>
+   * @return SmilesMonomerDB as unmodifiable Map<String, Monomer>
    */
   public Map<String, Monomer> getSmilesMonomerDB() {
-    return smilesMonomerDB;
+    return snapshot.get().smilesMonomerDB;
   }
 
   /**
@@ -83,45 +87,78 @@ public class MonomerStore {
    * @throws IOException
    * @throws MonomerException
    */
-  public void addMonomer(Monomer monomer, boolean dbChanged)
+  public synchronized void addMonomer(Monomer monomer, boolean dbChanged)
       throws IOException, MonomerException {
-    Map<String, Monomer> monomerMap = monomerDB.get(monomer.getPolymerType());
-    String polymerType = monomer.getPolymerType();
-    String alternateId = monomer.getAlternateId();
-    String smilesString = monomer.getCanSMILES();
-
-    try {
-      smilesString = SMILES.getUniqueExtendedSMILES(smilesString);
-    } catch (Exception e) {
-      smilesString = monomer.getCanSMILES();
-    }
+    addMonomers(Collections.singletonList(monomer), dbChanged);
+  }
 
-    boolean hasSmilesString = (smilesString != null && smilesString.length() > 0);
+  /**
+   * Adds the given monomers to the store in one step and optionally sets the
+   * dbChanged flag once; readers see either none or all of the new monomers
+   *
+   * @param monomers
+   * @param dbChanged
+   * @throws IOException
+   * @throws MonomerException
+   */
+  public synchronized void addMonomers(Collection<Monomer> monomers, boolean dbChanged)
+      throws IOException, MonomerException {
+    Snapshot current = snapshot.get();
+    Map<String, Map<String, Monomer>> newMonomerDB = new HashMap<String, Map<String, Monomer>>(current.monomerDB);
+    /* polymer types whose monomer map was already copied */
+    Map<String, Map<String, Monomer>> changedMaps = new HashMap<String, Map<String, Monomer>>();
+    Map<String, Monomer> newSmilesMonomerDB = null;
+
+    for (Monomer monomer : monomers) {
+      String polymerType = monomer.getPolymerType();
+      String alternateId = monomer.getAlternateId();
+      String smilesString = monomer.getCanSMILES();
+
+      try {
+        smilesString = SMILES.getUniqueExtendedSMILES(smilesString);
+      } catch (Exception e) {
+        smilesString = monomer.getCanSMILES();
+      }
 
-    if (null == monomerMap) {
-      monomerMap = new HashMap<String, Monomer>();
-      monomerDB.put(polymerType, monomerMap);
-    }
+      boolean hasSmilesString = (smilesString != null && smilesString.length() > 0);
 
-    Monomer copyMonomer = DeepCopy.copy(monomer);
+      Map<String, Monomer> monomerMap = changedMaps.get(polymerType);
+      if (monomerMap == null) {
+        monomerMap = newMonomerDB.get(polymerType);
+      }
+      if (monomerMap != null && monomerMap.containsKey(alternateId)) {
+        continue;
+      }
 
-    // ensure the canonical SMILES is indexed in the monomer store
-    if (hasSmilesString) {
-      copyMonomer.setCanSMILES(smilesString);
-    }
+      Monomer copyMonomer = DeepCopy.copy(monomer);
 
-    boolean alreadyAdded = false;
-    alreadyAdded = monomerMap.containsKey(alternateId);
+      // ensure the canonical SMILES is indexed in the monomer store
+      if (hasSmilesString) {
+        copyMonomer.setCanSMILES(smilesString);
+      }
 
-    if (!alreadyAdded) {
+      if (!changedMaps.containsKey(polymerType)) {
+        monomerMap = (monomerMap == null) ? new HashMap<String, Monomer>() : new HashMap<String, Monomer>(monomerMap);
+        changedMaps.put(polymerType, monomerMap);
+      }
       monomerMap.put(alternateId, copyMonomer);
 
-      boolean alreadyInSMILESMap = hasSmilesString
-          && (smilesMonomerDB.containsKey(smilesString));
-
+      Map<String, Monomer> smilesMap = (newSmilesMonomerDB == null) ? current.smilesMonomerDB : newSmilesMonomerDB;
+      boolean alreadyInSMILESMap = hasSmilesString && smilesMap.containsKey(smilesString);
       if (!alreadyInSMILESMap) {
-        smilesMonomerDB.put(smilesString, copyMonomer);
+        if (newSmilesMonomerDB == null) {
+          newSmilesMonomerDB = new HashMap<String, Monomer>(current.smilesMonomerDB);
+        }
+        newSmilesMonomerDB.put(smilesString, copyMonomer);
+      }
+    }
+
+    if (!changedMaps.isEmpty()) {
+      for (Map.Entry<String, Map<String, Monomer>> e : changedMaps.entrySet()) {
+        newMonomerDB.put(e.getKey(), Collections.unmodifiableMap(e.getValue()));
       }
+      snapshot.set(new Snapshot(Collections.unmodifiableMap(newMonomerDB),
+          (newSmilesMonomerDB == null) ? current.smilesMonomerDB : Collections.unmodifiableMap(newSmilesMonomerDB)));
     }
 
     if (dbChanged) {
@@ -129,6 +166,17 @@ public class MonomerStore {
     }
   }
 
+  /**
+   * Replaces the content of the store with the given databases in one step
+   *
+   * @param monomerDB
+   * @param smilesMonomerDB
+   */
+  synchronized void setMonomers(Map<String, Map<String, Monomer>> monomerDB,
+      Map<String, Monomer> smilesMonomerDB) {
+    snapshot.set(Snapshot.copyOf(monomerDB, smilesMonomerDB));
+  }
+
   /**
    * Checks if a specific monomer exists in the store
    *
@@ -137,7 +185,8 @@ public class MonomerStore {
    * @return true if monomer exists, false if not
    */
   public boolean hasMonomer(String polymerType, String alternateId) {
-    return ((monomerDB.get(polymerType) != null) && getMonomer(polymerType, alternateId) != null);
+    Map<String, Monomer> monomerMap = getMonomers(polymerType);
+    return (monomerMap != null && monomerMap.get(alternateId) != null);
   }
 
   /**
@@ -148,7 +197,7 @@ public class MonomerStore {
    * @return the matching monomer
    */
   public Monomer getMonomer(String polymerType, String alternateId) {
-    return monomerDB.get(polymerType).get(alternateId);
+    return snapshot.get().monomerDB.get(polymerType).get(alternateId);
   }
 
   /**
@@ -158,7 +207,7 @@ public class MonomerStore {
    * @return the matching monomer
    */
   public Monomer getMonomer(String smiles) {
-    return smilesMonomerDB.get(smiles);
+    return snapshot.get().smilesMonomerDB.get(smiles);
   }
 
   /**
@@ -168,7 +217,7 @@ public class MonomerStore {
    * @return All monomers with polymerType
    */
   public Map<String, Monomer> getMonomers(String polymerType) {
-    return monomerDB.get(polymerType);
+    return snapshot.get().monomerDB.get(polymerType);
   }
 
   /**
@@ -182,6 +231,7 @@ public class MonomerStore {
       MonomerException {
     monomer.setNewMonomer(true);
     addMonomer(monomer, true);
+    MonomerMoleculeCache.invalidate(monomer.getPolymerType(), monomer.getAlternateId());
   }
 
   /**
@@ -190,21 +240,20 @@ public class MonomerStore {
    * @return true if the store is empty, false if not
    */
   public boolean isMonomerStoreEmpty() {
-    return (this.monomerDB == null || this.monomerDB.values() == null || this.monomerDB.values().size() == 0);
+    return snapshot.get().monomerDB.isEmpty();
   }
 
   /**
    * Clears the MonomerStore
    */
   public synchronized void clearMonomers() {
-    this.monomerDB.clear();
-    this.smilesMonomerDB.clear();
+    snapshot.set(Snapshot.copyOf(null, null));
   }
 
   @Override
   public String toString() {
     String str = "";
-    for (Map<String, Monomer> val : this.monomerDB.values()) {
+    for (Map<String, Monomer> val : getMonomerDB().values()) {
       for (Monomer mon : val.values()) {
         str += mon.getAlternateId() + "(" + mon.getPolymerType()
             + "); ";
@@ -221,7 +270,7 @@ public class MonomerStore {
    * @return the polymer type set as Set<String>
    */
   public Set<String> getPolymerTypeSet() {
-    return monomerDB.keySet();
+    return getMonomerDB().keySet();
   }
 
   /**
@@ -232,11 +281,40 @@ public class MonomerStore {
    */
   public List<Monomer> getAllMonomersList() {
     List<Monomer> monomers = new ArrayList<Monomer>();
-    for (String polymerType : getPolymerTypeSet()) {
-      Map<String, Monomer> map = getMonomers(polymerType);
+    for (Map<String, Monomer> map : getMonomerDB().values()) {
       monomers.addAll(map.values());
     }
     return monomers;
 
   }
+
+  /**
+   * immutable state of the store
+   */
+  private static final class Snapshot {
+    private final Map<String, Map<String, Monomer>> monomerDB;
+
+    private final Map<String, Monomer> smilesMonomerDB;
+
+    private Snapshot(Map<String, Map<String, Monomer>> monomerDB,
+        Map<String, Monomer> smilesMonomerDB) {
+      this.monomerDB = monomerDB;
+      this.smilesMonomerDB = smilesMonomerDB;
+    }
+
+    /**
+     * builds a snapshot from unmodifiable copies of the given databases
+     */
+    private static Snapshot copyOf(Map<String, Map<String, Monomer>> monomerDB,
+        Map<String, Monomer> smilesMonomerDB) {
+      Map<String, Map<String, Monomer>> map = new HashMap<String, Map<String, Monomer>>();
+      if (monomerDB != null) {
+        for (Map.Entry<String, Map<String, Monomer>> e : monomerDB.entrySet()) {
+          map.put(e.getKey(), Collections.unmodifiableMap(new HashMap<String, Monomer>(e.getValue())));
+        }
+      }
+      Map<String, Monomer> smilesMap = (smilesMonomerDB == null) ? new HashMap<String, Monomer>() : new HashMap<String, Monomer>(smilesMonomerDB);
+      return new Snapshot(Collections.unmodifiableMap(map), Collections.unmodifiableMap(smilesMap));
+    }
+  }
 }
@@ -25,6 +25,7 @@ package org.helm.notation2.calculation;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Enumeration;
@@ -178,6 +179,12 @@ public final class ExtinctionCoefficient {
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
   public float calculate(HELM2Notation helm2notation, int unitType) throws ExtinctionCoefficientException, ChemistryException {
+    ResultCache cache = ResultCacheManager.getResultCache();
+    String key = (cache == null) ? null : ResultCacheManager.generateKey(helm2notation, "extinctionCoefficient:" + unitType);
+    Serializable cached = (key == null) ? null : cache.get(key);
+    if (cached instanceof Float) {
+      return (Float) cached;
+    }
     LOG.debug("ExtinctionCalculation is starting with the unitType: " + unitType);
     float result = 0.0f;
     List<PolymerNotation> polymerNodes = helm2notation.getListOfPolymers();
@@ -207,6 +214,9 @@ public final class ExtinctionCoefficient {
       }
       result = result + ext;
     }
+    if (key != null) {
+      cache.put(key, result);
+    }
     return result;
   }
 
@@ -0,0 +1,426 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.calculation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * bounded in-memory ResultCache. Results evicted from memory can be spilled
+ * into a directory; they are looked up there on a miss, also after a restart
+ * of the JVM. A spilled result is removed from the directory when it is read
+ * back into memory, and the directory holds at most a given number of
+ * results, the oldest ones are deleted first. Only Double, Float and String
+ * results are spilled; they are written in a typed format, nothing is
+ * deserialized from the directory.
+ *
+ * @author hecht
+ */
+public class MemoryResultCache implements ResultCache {
+
+  /** The Logger for this class */
+  private static final Logger LOG = LoggerFactory.getLogger(MemoryResultCache.class);
+
+  /** default maximal number of results in the spill directory */
+  public static final int DEFAULT_MAXIMUM_SPILLED_ENTRIES = 10000;
+
+  private static final String SPILL_FILE_SUFFIX = ".result";
+
+  /* type tags of the spilled results */
+  private static final byte TYPE_DOUBLE = 'D';
+
+  private static final byte TYPE_FLOAT = 'F';
+
+  private static final byte TYPE_STRING = 'S';
+
+  /**
+   * order in which results are evicted from memory
+   */
+  public enum EvictionPolicy {
+    /** least recently used result first */
+    LRU,
+    /** oldest result first */
+    FIFO
+  }
+
+  private final int maximumEntries;
+
+  private final File spillDirectory;
+
+  private final int maximumSpilledEntries;
+
+  private final LinkedHashMap<String, Serializable> entries;
+
+  /* names of the spill files, oldest first; guarded by itself */
+  private final LinkedHashSet<String> spillFiles = new LinkedHashSet<String>();
+
+  private long hitCount;
+
+  private long missCount;
+
+  private long evictionCount;
+
+  private long spillHitCount;
+
+  /**
+   * Constructs a cache without spill directory.
+   *
+   * @param maximumEntries maximal number of results held in memory
+   * @param policy eviction policy
+   */
+  public MemoryResultCache(int maximumEntries, EvictionPolicy policy) {
+    this(maximumEntries, policy, null);
+  }
+
+  /**
+   * Constructs a cache which spills evicted results into the given directory,
+   * holding at most DEFAULT_MAXIMUM_SPILLED_ENTRIES results there.
+   *
+   * @param maximumEntries maximal number of results held in memory
+   * @param policy eviction policy
+   * @param spillDirectory directory for evicted results, null to drop them
+   */
+  public MemoryResultCache(int maximumEntries, EvictionPolicy policy, File spillDirectory) {
+    this(maximumEntries, policy, spillDirectory, DEFAULT_MAXIMUM_SPILLED_ENTRIES);
+  }
+
+  /**
+   * Constructs a cache which spills evicted results into the given directory.
+   *
+   * @param maximumEntries maximal number of results held in memory
+   * @param policy eviction policy
+   * @param spillDirectory directory for evicted results, null to drop them
+   * @param maximumSpilledEntries maximal number of results in the spill
+   *          directory
+   */
+  public MemoryResultCache(int maximumEntries, EvictionPolicy policy, File spillDirectory, int maximumSpilledEntries) {
+    if (maximumEntries < 1) {
+      throw new IllegalArgumentException("Maximal number of entries must be positive");
+    }
+    if (maximumSpilledEntries < 1) {
+      throw new IllegalArgumentException("Maximal number of spilled entries must be positive");
+    }
+    this.maximumEntries = maximumEntries;
+    this.maximumSpilledEntries = maximumSpilledEntries;
+    this.entries = new LinkedHashMap<String, Serializable>(64, 0.75f, policy == EvictionPolicy.LRU);
+    this.spillDirectory = spillDirectory;
+    if (spillDirectory != null) {
+      if (!spillDirectory.exists()) {
+        spillDirectory.mkdirs();
+      }
+      loadSpillFiles();
+    }
+  }
+
+  @Override
+  public Serializable get(String key) {
+    synchronized (this) {
+      Serializable value = entries.get(key);
+      if (value != null) {
+        hitCount++;
+        return value;
+      }
+    }
+    Serializable value = readSpilled(key);
+    List<Map.Entry<String, Serializable>> evicted = Collections.emptyList();
+    synchronized (this) {
+      if (value == null) {
+        missCount++;
+      } else {
+        hitCount++;
+        spillHitCount++;
+        entries.put(key, value);
+        evicted = evict();
+      }
+    }
+    spill(evicted);
+    return value;
+  }
+
+  @Override
+  public void put(String key, Serializable value) {
+    List<Map.Entry<String, Serializable>> evicted;
+    synchronized (this) {
+      entries.put(key, value);
+      evicted = evict();
+    }
+    spill(evicted);
+  }
+
+  /**
+   * removes the eldest entries above the maximal size; must be called while
+   * holding the monitor of the cache, the returned entries are spilled after
+   * releasing it
+   */
+  private List<Map.Entry<String, Serializable>> evict() {
+    if (entries.size() <= maximumEntries) {
+      return Collections.emptyList();
+    }
+    List<Map.Entry<String, Serializable>> evicted = new ArrayList<Map.Entry<String, Serializable>>();
+    for (Iterator<Map.Entry<String, Serializable>> it = entries.entrySet().iterator(); entries.size() > maximumEntries && it.hasNext();) {
+      Map.Entry<String, Serializable> eldest = it.next();
+      evicted.add(new AbstractMap.SimpleImmutableEntry<String, Serializable>(eldest));
+      it.remove();
+      evictionCount++;
+    }
+    return evicted;
+  }
+
+  /**
+   * method to remove all results from memory, spilled results are kept
+   */
+  @Override
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  @Override
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  @Override
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  @Override
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * @return number of hits which were read from the spill directory
+   */
+  public synchronized long getSpillHitCount() {
+    return spillHitCount;
+  }
+
+  /**
+   * @return number of results in the spill directory
+   */
+  public int getSpilledCount() {
+    synchronized (spillFiles) {
+      return spillFiles.size();
+    }
+  }
+
+  @Override
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "MemoryResultCache[size=" + entries.size() + ", hits=" + hitCount + ", spillHits=" + spillHitCount + ", misses=" + missCount
+        + ", evictions=" + evictionCount + "]";
+  }
+
+  private void loadSpillFiles() {
+    File[] files = spillDirectory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.getName().endsWith(SPILL_FILE_SUFFIX);
+      }
+    });
+    if (files == null) {
+      return;
+    }
+    Arrays.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File one, File two) {
+        long first = one.lastModified();
+        long second = two.lastModified();
+        return first < second ? -1 : (first == second ? 0 : 1);
+      }
+    });
+    for (File file : files) {
+      registerSpillFile(file.getName());
+    }
+  }
+
+  private void registerSpillFile(String name) {
+    synchronized (spillFiles) {
+      spillFiles.remove(name);
+      spillFiles.add(name);
+      for (Iterator<String> it = spillFiles.iterator(); spillFiles.size() > maximumSpilledEntries && it.hasNext();) {
+        new File(spillDirectory, it.next()).delete();
+        it.remove();
+      }
+    }
+  }
+
+  private void unregisterSpillFile(File file) {
+    synchronized (spillFiles) {
+      spillFiles.remove(file.getName());
+      file.delete();
+    }
+  }
+
+  private void spill(List<Map.Entry<String, Serializable>> evicted) {
+    if (spillDirectory == null) {
+      return;
+    }
+    for (Map.Entry<String, Serializable> entry : evicted) {
+      spill(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void spill(String key, Serializable value) {
+    if (!(value instanceof Double || value instanceof Float || value instanceof String)) {
+      LOG.debug("Result of type " + value.getClass().getName() + " is not spilled");
+      return;
+    }
+    File file = getSpillFile(key);
+    /* write into a temporary file first, readers never see a partial result */
+    File tmp = new File(spillDirectory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+      try {
+        writeString(out, key);
+        if (value instanceof Double) {
+          out.writeByte(TYPE_DOUBLE);
+          out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+          out.writeByte(TYPE_FLOAT);
+          out.writeFloat((Float) value);
+        } else {
+          out.writeByte(TYPE_STRING);
+          writeString(out, (String) value);
+        }
+      } finally {
+        out.close();
+      }
+      file.delete();
+      if (!tmp.renameTo(file)) {
+        throw new IOException("Unable to rename " + tmp.getPath());
+      }
+      registerSpillFile(file.getName());
+    } catch (IOException e) {
+      LOG.debug("Unable to spill result into " + file.getPath(), e);
+      tmp.delete();
+    }
+  }
+
+  private Serializable readSpilled(String key) {
+    if (spillDirectory == null) {
+      return null;
+    }
+    File file = getSpillFile(key);
+    if (!file.exists()) {
+      return null;
+    }
+    Serializable value;
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try {
+        /* the file name is a hash, the key itself decides */
+        if (!key.equals(readString(in, file.length()))) {
+          return null;
+        }
+        byte type = in.readByte();
+        switch (type) {
+        case TYPE_DOUBLE:
+          value = in.readDouble();
+          break;
+        case TYPE_FLOAT:
+          value = in.readFloat();
+          break;
+        case TYPE_STRING:
+          value = readString(in, file.length());
+          break;
+        default:
+          throw new IOException("Unknown type of spilled result: " + type);
+        }
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      LOG.debug("Unable to read spilled result from " + file.getPath(), e);
+      return null;
+    }
+    /* the result is held in memory again, it is spilled anew on eviction */
+    unregisterSpillFile(file);
+    return value;
+  }
+
+  /* writeUTF is limited to 64k bytes, keys can be longer */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in, long maximumLength) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > maximumLength) {
+      throw new IOException("Invalid length of spilled string: " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private File getSpillFile(String key) {
+    return new File(spillDirectory, hash(key) + SPILL_FILE_SUFFIX);
+  }
+
+  static String hash(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        sb.append(String.format("%02x", b));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      /* every Java platform supports SHA-1 */
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -23,6 +23,7 @@
  */
 package org.helm.notation2.calculation;
 
+import java.io.Serializable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +32,7 @@ import java.util.TreeMap;
 
 import org.helm.chemtoolkit.AbstractMolecule;
 import org.helm.chemtoolkit.CTKException;
+import org.helm.chemtoolkit.MoleculeInfo;
 import org.helm.notation2.Chemistry;
 import org.helm.notation2.MoleculeProperty;
 import org.helm.notation2.exception.BuilderMoleculeException;
@@ -78,25 +80,17 @@ public final class MoleculePropertyCalculator {
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
   public static double getMolecularWeight(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ChemistryException {
+    ResultCache cache = ResultCacheManager.getResultCache();
+    String key = (cache == null) ? null : ResultCacheManager.generateKey(helm2notation, "molecularWeight");
+    Serializable cached = (key == null) ? null : cache.get(key);
+    if (cached instanceof Double) {
+      return (Double) cached;
+    }
     /* First build one big molecule; List of molecules? */
     List<AbstractMolecule> molecules = buildMolecule(helm2notation);
-    return calculateMolecularWeight(molecules);
-  }
-
-  /**
-   * intern method to calculate the molecular weight for a list of molecules
-   *
-   * @param molecules
-   * @return
-   * @throws BuilderMoleculeException
-   * @throws CTKException
-   * @throws ChemistryException if the Chemistry Engine can not be initialized
-   */
-  private static double calculateMolecularWeight(List<AbstractMolecule> molecules) throws BuilderMoleculeException, CTKException, ChemistryException {
-    Double result = 0.0;
-    for (AbstractMolecule molecule : molecules) {
-      molecule = BuilderMolecule.mergeRgroups(molecule);
-      result += Chemistry.getInstance().getManipulator().getMoleculeInfo(molecule).getMolecularWeight();
+    double result = calculateProperties(molecules, new MoleculeProperty()).getMolecularWeight();
+    if (key != null) {
+      cache.put(key, result);
     }
     return result;
   }
@@ -111,61 +105,111 @@ public final class MoleculePropertyCalculator {
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
   public static double getExactMass(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ChemistryException {
+    ResultCache cache = ResultCacheManager.getResultCache();
+    String key = (cache == null) ? null : ResultCacheManager.generateKey(helm2notation, "exactMass");
+    Serializable cached = (key == null) ? null : cache.get(key);
+    if (cached instanceof Double) {
+      return (Double) cached;
+    }
     /* First build one big molecule; List of molecules */
     List<AbstractMolecule> molecules = buildMolecule(helm2notation);
-    return calculateExactMass(molecules);
+    double result = calculateProperties(molecules, new MoleculeProperty()).getExactMass();
+    if (key != null) {
+      cache.put(key, result);
+    }
+    return result;
   }
 
   /**
-   * intern method to calculate the exact mass for a list of molecules
+   * method to get the MolecularFormular for the whole HELM
    *
-   * @param molecules
-   * @return
+   * @param helm2notation input HELM2Notation
+   * @return MolecularFormular of the whole HELM
+   * @throws BuilderMoleculeException if the whole molecule can not be built
    * @throws CTKException
    * @throws ChemistryException if the Chemistry Engine can not be initialized
- * @throws BuilderMoleculeException 
    */
-  private static double calculateExactMass(List<AbstractMolecule> molecules) throws CTKException, ChemistryException, BuilderMoleculeException {
-    Double result = 0.0;
-    for (AbstractMolecule molecule : molecules) {
-        molecule = BuilderMolecule.mergeRgroups(molecule);
-      result += Chemistry.getInstance().getManipulator().getMoleculeInfo(molecule).getExactMass();
+  public static String getMolecularFormular(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ChemistryException {
+    ResultCache cache = ResultCacheManager.getResultCache();
+    String key = (cache == null) ? null : ResultCacheManager.generateKey(helm2notation, "molecularFormula");
+    Serializable cached = (key == null) ? null : cache.get(key);
+    if (cached instanceof String) {
+      return (String) cached;
+    }
+    /* First build HELM molecule */
+    List<AbstractMolecule> molecules = buildMolecule(helm2notation);
+    LOG.info("Build process is finished");
+    String result = calculateProperties(molecules, new MoleculeProperty()).getMolecularFormula();
+    if (key != null) {
+      cache.put(key, result);
     }
     return result;
   }
 
   /**
-   * method to get the MolecularFormular for the whole HELM
+   * method to get the molecular formula, the molecular weight and the exact
+   * mass for the whole HELM; the molecule is built only once
    *
    * @param helm2notation input HELM2Notation
-   * @return MolecularFormular of the whole HELM
+   * @return MoleculeProperty without extinction coefficient
    * @throws BuilderMoleculeException if the whole molecule can not be built
    * @throws CTKException
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
-  public static String getMolecularFormular(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ChemistryException {
-    /* First build HELM molecule */
+  public static MoleculeProperty getMassProperties(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ChemistryException {
+    MoleculeProperty result = new MoleculeProperty();
+    long start = System.nanoTime();
     List<AbstractMolecule> molecules = buildMolecule(helm2notation);
-    LOG.info("Build process is finished");
-    return calculateMolecularFormula(molecules);
+    result.setBuildTime(System.nanoTime() - start);
+    return calculateProperties(molecules, result);
   }
 
   /**
-   * intern method to calculate the molecular formular for a list of molecules
+   * intern method to calculate molecular formula, molecular weight and exact
+   * mass for a list of molecules in one pass: the unused rgroups of every
+   * molecule are merged only once and the molecule information is only
+   * requested once per molecule
    *
-   * @param molecules
-   * @return
-   * @throws BuilderMoleculeException
+   * @param molecules list of molecules
+   * @param result MoleculeProperty to fill
+   * @return the given MoleculeProperty with formula, weight, exact mass and
+   *         the capping and calculation time
+   * @throws BuilderMoleculeException if the unused rgroups can not be merged
    * @throws CTKException
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
-  private static String calculateMolecularFormula(List<AbstractMolecule> molecules) throws BuilderMoleculeException, CTKException, ChemistryException {
+  private static MoleculeProperty calculateProperties(List<AbstractMolecule> molecules, MoleculeProperty result) throws BuilderMoleculeException, CTKException, ChemistryException {
     Map<String, Integer> atomNumberMap = new TreeMap<String, Integer>();
+    double molecularWeight = 0.0;
+    double exactMass = 0.0;
+    long cappingTime = 0;
+    long calculationTime = 0;
     for (AbstractMolecule molecule : molecules) {
-      LOG.info(molecule.getMolecule().toString());
-      atomNumberMap = generateAtomNumberMap(molecule, atomNumberMap);
+      long start = System.nanoTime();
+      AbstractMolecule capped = BuilderMolecule.mergeRgroups(molecule);
+      long cappingEnd = System.nanoTime();
+      MoleculeInfo info = Chemistry.getInstance().getManipulator().getMoleculeInfo(capped);
+      molecularWeight += info.getMolecularWeight();
+      exactMass += info.getExactMass();
+      generateAtomNumberMap(info.getMolecularFormula(), atomNumberMap);
+      cappingTime += cappingEnd - start;
+      calculationTime += System.nanoTime() - cappingEnd;
     }
-    LOG.info("GET map");
+    result.setMolecularFormula(generateMolecularFormula(atomNumberMap));
+    result.setMolecularWeight(molecularWeight);
+    result.setExactMass(exactMass);
+    result.setCappingTime(cappingTime);
+    result.setCalculationTime(calculationTime);
+    return result;
+  }
+
+  /**
+   * intern method to generate the molecular formula from the number of atoms
+   *
+   * @param atomNumberMap Map of atoms with the number of its occurences
+   * @return molecular formula
+   */
+  static String generateMolecularFormula(Map<String, Integer> atomNumberMap) {
     StringBuilder sb = new StringBuilder();
     Set<String> atoms = atomNumberMap.keySet();
     for (Iterator<String> i = atoms.iterator(); i.hasNext();) {
@@ -181,7 +225,9 @@ public final class MoleculePropertyCalculator {
   }
 
   /**
-   * method to get all molecule properties for one HELM2Notation
+   * method to get all molecule properties for one HELM2Notation; the molecule
+   * is built and capped only once, the time spent in every stage is stored in
+   * the result
    *
    * @param helm2notation
    * @return List of molecule properties: molecular formula, molecular weight,
@@ -194,34 +240,28 @@ public final class MoleculePropertyCalculator {
   public static MoleculeProperty getMoleculeProperties(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ExtinctionCoefficientException, ChemistryException {
     MoleculeProperty result = new MoleculeProperty();
     /* First build HELM molecule */
+    long start = System.nanoTime();
     List<AbstractMolecule> molecules = buildMolecule(helm2notation);
-    /* calculate molecular formula */
-    result.setMolecularFormula(calculateMolecularFormula(molecules));
-    /* calculate molecular weight */
-    result.setMolecularWeight(calculateMolecularWeight(molecules));
-    /* calculate exact mass */
-    result.setExactMass(calculateExactMass(molecules));
+    result.setBuildTime(System.nanoTime() - start);
+    /* calculate molecular formula, molecular weight and exact mass */
+    calculateProperties(molecules, result);
     /* add Extinction Coefficient calculation to it */
+    start = System.nanoTime();
     result.setExtinctionCoefficient(ExtinctionCoefficient.getInstance().calculate(helm2notation));
-
+    result.setExtinctionCoefficientTime(System.nanoTime() - start);
+    LOG.debug("Molecule properties calculated: build " + result.getBuildTime() + " ns, capping " + result.getCappingTime() + " ns, calculation "
+        + result.getCalculationTime() + " ns, extinction coefficient " + result.getExtinctionCoefficientTime() + " ns");
     return result;
   }
 
   /**
    * method to get for every atom the number of occurences
    *
-   * @param molecule input Molecule
+   * @param formula molecular formula of the capped molecule
    * @param mapAtoms Map of atoms with the number its occurences
    * @return Map of atoms with the number of its occurences
-   * @throws BuilderMoleculeException if the Rgroups of the molecule can not be
-   *           merged into it
-   * @throws CTKException
-   * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
-  private static Map<String, Integer> generateAtomNumberMap(AbstractMolecule molecule, Map<String, Integer> mapAtoms) throws BuilderMoleculeException, CTKException, ChemistryException {
-    molecule = BuilderMolecule.mergeRgroups(molecule);
-    LOG.info("Merge group is finished");
-    String formula = Chemistry.getInstance().getManipulator().getMoleculeInfo(molecule).getMolecularFormula();
+  static Map<String, Integer> generateAtomNumberMap(String formula, Map<String, Integer> mapAtoms) {
     String atom = "";
     String number = "";
 
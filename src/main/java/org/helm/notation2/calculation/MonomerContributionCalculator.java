@@ -0,0 +1,353 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.calculation;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.helm.chemtoolkit.AbstractMolecule;
+import org.helm.chemtoolkit.CTKException;
+import org.helm.chemtoolkit.MoleculeInfo;
+import org.helm.notation2.Attachment;
+import org.helm.notation2.Chemistry;
+import org.helm.notation2.MoleculeProperty;
+import org.helm.notation2.Monomer;
+import org.helm.notation2.exception.BuilderMoleculeException;
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.HELM2HandledException;
+import org.helm.notation2.parser.notation.HELM2Notation;
+import org.helm.notation2.parser.notation.connection.ConnectionNotation;
+import org.helm.notation2.parser.notation.polymer.PeptideEntity;
+import org.helm.notation2.parser.notation.polymer.PolymerNotation;
+import org.helm.notation2.parser.notation.polymer.RNAEntity;
+import org.helm.notation2.tools.BuilderMolecule;
+import org.helm.notation2.tools.HELM2NotationUtils;
+import org.helm.notation2.tools.MethodsMonomerUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MonomerContributionCalculator, class to calculate molecular weight, exact
+ * mass and molecular formula of PEPTIDE and RNA polymers without building the
+ * whole molecule. Every monomer contributes its core (the capped monomer
+ * without its cap groups), every unused rgroup contributes its cap group. The
+ * contributions of each monomer are calculated once and reused.
+ *
+ * Notations with CHEM or BLOB polymers, ad-hoc monomers, group connections or
+ * ambiguous connections are calculated with the
+ * {@link MoleculePropertyCalculator}.
+ *
+ * @author hecht
+ */
+public final class MonomerContributionCalculator {
+  /** The Logger for this class */
+  private static final Logger LOG = LoggerFactory.getLogger(MonomerContributionCalculator.class);
+
+  private static final Map<String, Contribution> CONTRIBUTIONS = new ConcurrentHashMap<String, Contribution>();
+
+  /**
+   * Default constructor.
+   */
+  private MonomerContributionCalculator() {
+
+  }
+
+  /**
+   * method to get the molecular weight for the whole HELM
+   *
+   * @param helm2notation input HELM2Notation
+   * @return MolecularWeight of the whole HELM
+   * @throws BuilderMoleculeException if the whole molecule can not be built
+   * @throws CTKException
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  public static double getMolecularWeight(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ChemistryException {
+    MoleculeProperty property = calculate(helm2notation);
+    if (property == null) {
+      return MoleculePropertyCalculator.getMolecularWeight(helm2notation);
+    }
+    return property.getMolecularWeight();
+  }
+
+  /**
+   * method to get the ExactMass for the whole HELM
+   *
+   * @param helm2notation input HELM2Notation
+   * @return ExactMass of the whole HELM
+   * @throws BuilderMoleculeException if the whole molecule can not be built
+   * @throws CTKException
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  public static double getExactMass(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ChemistryException {
+    MoleculeProperty property = calculate(helm2notation);
+    if (property == null) {
+      return MoleculePropertyCalculator.getExactMass(helm2notation);
+    }
+    return property.getExactMass();
+  }
+
+  /**
+   * method to get the MolecularFormular for the whole HELM
+   *
+   * @param helm2notation input HELM2Notation
+   * @return MolecularFormular of the whole HELM
+   * @throws BuilderMoleculeException if the whole molecule can not be built
+   * @throws CTKException
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  public static String getMolecularFormular(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ChemistryException {
+    MoleculeProperty property = calculate(helm2notation);
+    if (property == null) {
+      return MoleculePropertyCalculator.getMolecularFormular(helm2notation);
+    }
+    return property.getMolecularFormula();
+  }
+
+  /**
+   * method to remove all calculated monomer contributions
+   */
+  public static void clear() {
+    CONTRIBUTIONS.clear();
+  }
+
+  /**
+   * method to sum up the contributions of all monomers and of all unused
+   * rgroups
+   *
+   * @param helm2notation input HELM2Notation
+   * @return MoleculeProperty with molecular formula, molecular weight and exact
+   *         mass, null if the notation can not be handled additively
+   * @throws BuilderMoleculeException if a monomer can not be built
+   * @throws CTKException
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  private static MoleculeProperty calculate(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKException, ChemistryException {
+    Map<String, List<Monomer>> mapMonomers = new HashMap<String, List<Monomer>>();
+    Map<String, Set<String>> usedRgroups = new HashMap<String, Set<String>>();
+
+    /* intra polymer connections of the backbone and the branches */
+    for (PolymerNotation polymer : helm2notation.getListOfPolymers()) {
+      if (!(polymer.getPolymerID() instanceof PeptideEntity || polymer.getPolymerID() instanceof RNAEntity)) {
+        LOG.debug("Polymer " + polymer.getPolymerID().getId() + " can not be calculated additively");
+        return null;
+      }
+      String id = polymer.getPolymerID().getId();
+      List<Monomer> monomers;
+      try {
+        monomers = MethodsMonomerUtils.getListOfHandledMonomers(polymer.getPolymerElements().getListOfElements());
+      } catch (HELM2HandledException e) {
+        return null;
+      }
+      if (monomers.size() == 0) {
+        return null;
+      }
+      int prev = 1;
+      for (int i = 1; i <= monomers.size(); i++) {
+        Monomer monomer = monomers.get(i - 1);
+        if (monomer == null || monomer.isAdHocMonomer()) {
+          return null;
+        }
+        if (i > 1) {
+          if (monomer.getMonomerType().equals(Monomer.BACKBONE_MOMONER_TYPE)) {
+            if (!(use(usedRgroups, monomers, id, prev, "R2") && use(usedRgroups, monomers, id, i, "R1"))) {
+              return null;
+            }
+            prev = i;
+          } else if (monomer.getMonomerType().equals(Monomer.BRANCH_MOMONER_TYPE)) {
+            if (!(use(usedRgroups, monomers, id, prev, "R3") && use(usedRgroups, monomers, id, i, "R1"))) {
+              return null;
+            }
+          } else {
+            return null;
+          }
+        }
+      }
+      mapMonomers.put(id, monomers);
+    }
+
+    /* connections between the polymers */
+    for (ConnectionNotation connection : HELM2NotationUtils.getAllEdgeConnections(helm2notation.getListOfConnections())) {
+      List<Monomer> source = mapMonomers.get(connection.getSourceId().getId());
+      List<Monomer> target = mapMonomers.get(connection.getTargetId().getId());
+      if (source == null || target == null || connection.getrGroupSource().equals("?") || connection.getrGroupTarget().equals("?")) {
+        return null;
+      }
+      try {
+        if (!(use(usedRgroups, source, connection.getSourceId().getId(), Integer.parseInt(connection.getSourceUnit()), connection.getrGroupSource())
+            && use(usedRgroups, target, connection.getTargetId().getId(), Integer.parseInt(connection.getTargetUnit()), connection.getrGroupTarget()))) {
+          return null;
+        }
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    /* sum up the contributions */
+    Map<String, Integer> atomNumberMap = new TreeMap<String, Integer>();
+    double molecularWeight = 0.0;
+    double exactMass = 0.0;
+    for (Map.Entry<String, List<Monomer>> entry : mapMonomers.entrySet()) {
+      List<Monomer> monomers = entry.getValue();
+      for (int i = 1; i <= monomers.size(); i++) {
+        Monomer monomer = monomers.get(i - 1);
+        Contribution contribution = getContribution(monomer);
+        molecularWeight += contribution.molecularWeight;
+        exactMass += contribution.exactMass;
+        add(atomNumberMap, contribution.atoms, 1);
+        Set<String> used = usedRgroups.get(entry.getKey() + ":" + i);
+        for (Map.Entry<String, Contribution> cap : contribution.caps.entrySet()) {
+          if (used == null || !used.contains(cap.getKey())) {
+            molecularWeight += cap.getValue().molecularWeight;
+            exactMass += cap.getValue().exactMass;
+            add(atomNumberMap, cap.getValue().atoms, 1);
+          }
+        }
+      }
+    }
+
+    MoleculeProperty result = new MoleculeProperty();
+    result.setMolecularFormula(MoleculePropertyCalculator.generateMolecularFormula(atomNumberMap));
+    result.setMolecularWeight(molecularWeight);
+    result.setExactMass(exactMass);
+    return result;
+  }
+
+  /**
+   * method to mark the rgroup of a monomer as used
+   *
+   * @param usedRgroups used rgroups of every monomer
+   * @param monomers monomers of the polymer
+   * @param id polymer id
+   * @param position position of the monomer, starting with 1
+   * @param rgroup label of the rgroup
+   * @return false if the rgroup does not exist or is already used
+   */
+  private static boolean use(Map<String, Set<String>> usedRgroups, List<Monomer> monomers, String id, int position, String rgroup) {
+    if (position < 1 || position > monomers.size() || monomers.get(position - 1).getAttachment(rgroup) == null) {
+      return false;
+    }
+    String key = id + ":" + position;
+    Set<String> used = usedRgroups.get(key);
+    if (used == null) {
+      used = new HashSet<String>();
+      usedRgroups.put(key, used);
+    }
+    return used.add(monomers.get(position - 1).getAttachment(rgroup).getLabel());
+  }
+
+  /**
+   * method to get the contribution of the given monomer and its cap groups
+   *
+   * @param monomer input monomer
+   * @return contribution of the monomer
+   * @throws BuilderMoleculeException if the monomer can not be built
+   * @throws CTKException
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  private static Contribution getContribution(Monomer monomer) throws BuilderMoleculeException, CTKException, ChemistryException {
+    String key = monomer.getPolymerType() + ":" + monomer.getAlternateId();
+    String structure = monomer.getMolfile() != null ? monomer.getMolfile() : monomer.getCanSMILES();
+    Contribution contribution = CONTRIBUTIONS.get(key);
+    if (contribution != null && contribution.structure.equals(structure)) {
+      return contribution;
+    }
+
+    /* capped monomer */
+    AbstractMolecule molecule = BuilderMolecule.getMoleculeForMonomer(monomer);
+    if (molecule == null) {
+      throw new BuilderMoleculeException("Monomer " + monomer.getAlternateId() + " has no structure");
+    }
+    molecule = BuilderMolecule.mergeRgroups(molecule);
+    MoleculeInfo info = Chemistry.getInstance().getManipulator().getMoleculeInfo(molecule);
+    contribution = new Contribution(structure, info.getMolecularFormula(), info.getMolecularWeight(), info.getExactMass());
+
+    /* without the cap groups */
+    for (Attachment attachment : monomer.getAttachmentList()) {
+      MoleculeProperty capInfo;
+      try {
+        capInfo = monomer.getCapMoleculeInfo(attachment.getLabel());
+      } catch (IOException e) {
+        throw new BuilderMoleculeException("Cap group of monomer " + monomer.getAlternateId() + " can't be built " + e.getMessage());
+      }
+      Contribution cap = new Contribution(null, capInfo.getMolecularFormula(), capInfo.getMolecularWeight(), capInfo.getExactMass());
+      contribution.caps.put(attachment.getLabel(), cap);
+      contribution.molecularWeight -= cap.molecularWeight;
+      contribution.exactMass -= cap.exactMass;
+      add(contribution.atoms, cap.atoms, -1);
+    }
+
+    CONTRIBUTIONS.put(key, contribution);
+    return contribution;
+  }
+
+  /**
+   * method to add the atoms of one map to another map
+   *
+   * @param mapAtoms Map of atoms to add to
+   * @param atoms Map of atoms to be added
+   * @param factor 1 to add, -1 to subtract the atoms
+   */
+  private static void add(Map<String, Integer> mapAtoms, Map<String, Integer> atoms, int factor) {
+    for (Map.Entry<String, Integer> e : atoms.entrySet()) {
+      Integer number = mapAtoms.get(e.getKey());
+      int sum = (number == null ? 0 : number) + factor * e.getValue();
+      if (sum == 0) {
+        mapAtoms.remove(e.getKey());
+      } else {
+        mapAtoms.put(e.getKey(), sum);
+      }
+    }
+  }
+
+  /**
+   * contribution of a monomer or of a cap group to the whole molecule
+   */
+  private static final class Contribution {
+    private final String structure;
+
+    private final Map<String, Integer> atoms;
+
+    private double molecularWeight;
+
+    private double exactMass;
+
+    private final Map<String, Contribution> caps = new HashMap<String, Contribution>();
+
+    private Contribution(String structure, String formula, double molecularWeight, double exactMass) {
+      this.structure = structure;
+      this.atoms = new TreeMap<String, Integer>();
+      if (formula != null && formula.length() > 0) {
+        MoleculePropertyCalculator.generateAtomNumberMap(formula, atoms);
+      }
+      this.molecularWeight = molecularWeight;
+      this.exactMass = exactMass;
+    }
+  }
+}
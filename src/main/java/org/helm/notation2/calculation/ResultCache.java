@@ -0,0 +1,77 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.calculation;
+
+import java.io.Serializable;
+
+/**
+ * cache of calculation results, see {@link ResultCacheManager}. Keys contain
+ * the canonical HELM, the fingerprint of the monomer store and the name of
+ * the calculated property. Implementations have to be thread-safe.
+ *
+ * @author hecht
+ */
+public interface ResultCache {
+
+  /**
+   * method to get a cached result
+   *
+   * @param key key of the result
+   * @return cached result, null if there is none
+   */
+  Serializable get(String key);
+
+  /**
+   * method to cache a result
+   *
+   * @param key key of the result
+   * @param value result
+   */
+  void put(String key, Serializable value);
+
+  /**
+   * method to remove all cached results
+   */
+  void clear();
+
+  /**
+   * @return number of lookups which returned a cached result
+   */
+  long getHitCount();
+
+  /**
+   * @return number of lookups which did not return a cached result
+   */
+  long getMissCount();
+
+  /**
+   * @return number of results removed from the cache because of its bounds
+   */
+  long getEvictionCount();
+
+  /**
+   * @return number of results held by the cache
+   */
+  int size();
+}
@@ -0,0 +1,179 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.calculation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.helm.notation2.Attachment;
+import org.helm.notation2.Monomer;
+import org.helm.notation2.MonomerFactory;
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.HELM1FormatException;
+import org.helm.notation2.exception.MonomerLoadingException;
+import org.helm.notation2.parser.notation.HELM2Notation;
+import org.helm.notation2.tools.HELM1Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * class to register the ResultCache used by the calculations, no results are
+ * cached unless a cache is set. The keys are built from the canonical HELM,
+ * the fingerprint of the monomer store and the calculated property, so they
+ * stay valid across restarts of the JVM as long as the monomers are the same.
+ *
+ * @author hecht
+ */
+public final class ResultCacheManager {
+
+  /** The Logger for this class */
+  private static final Logger LOG = LoggerFactory.getLogger(ResultCacheManager.class);
+
+  private static volatile ResultCache resultCache;
+
+  private static long fingerprintVersion = -1;
+
+  private static String fingerprint;
+
+  /**
+   * Default constructor.
+   */
+  private ResultCacheManager() {
+
+  }
+
+  /**
+   * @return the registered cache, null if results are not cached
+   */
+  public static ResultCache getResultCache() {
+    return resultCache;
+  }
+
+  /**
+   * method to register the cache used by the calculations
+   *
+   * @param cache result cache, null to disable caching
+   */
+  public static void setResultCache(ResultCache cache) {
+    resultCache = cache;
+  }
+
+  /**
+   * method to generate the cache key of a property of the given notation
+   *
+   * @param helm2notation notation
+   * @param property name of the calculated property
+   * @return key, null if no key can be generated
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  public static String generateKey(HELM2Notation helm2notation, String property) throws ChemistryException {
+    String storeFingerprint;
+    try {
+      storeFingerprint = getStoreFingerprint();
+    } catch (MonomerLoadingException e) {
+      LOG.debug("No result cache key without monomer store", e);
+      return null;
+    }
+    String helm;
+    if (HELM1Utils.containsHELM2Features(helm2notation)) {
+      /* HELM2 features: the notation itself is used */
+      helm = helm2notation.toHELM2();
+    } else {
+      try {
+        helm = HELM1Utils.getCanonical(helm2notation);
+      } catch (HELM1FormatException e) {
+        helm = helm2notation.toHELM2();
+      }
+    }
+    return storeFingerprint + "|" + property + "|" + helm;
+  }
+
+  /**
+   * method to generate the cache key of a property which depends on the order
+   * of the polymers in the given notation, e.g. the SMILES of the molecules
+   * joined in the order of the polymers; the key is built from the notation
+   * itself instead of the canonical HELM
+   *
+   * @param helm2notation notation
+   * @param property name of the calculated property
+   * @return key, null if no key can be generated
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  public static String generateInputKey(HELM2Notation helm2notation, String property) throws ChemistryException {
+    try {
+      return getStoreFingerprint() + "|" + property + "|" + helm2notation.toHELM2();
+    } catch (MonomerLoadingException e) {
+      LOG.debug("No result cache key without monomer store", e);
+      return null;
+    }
+  }
+
+  /**
+   * method to get the fingerprint of the current monomer store, a hash of all
+   * monomers with their structure and attachments; ad-hoc monomers are left
+   * out, they are part of the canonical HELM already and would otherwise
+   * change the fingerprint within every session. It is only recalculated when
+   * the store changes
+   *
+   * @return fingerprint
+   * @throws MonomerLoadingException if the monomer store can not be loaded
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  static synchronized String getStoreFingerprint() throws MonomerLoadingException, ChemistryException {
+    long version = MonomerFactory.getStoreVersion();
+    if (fingerprint == null || version != fingerprintVersion) {
+      Map<String, Map<String, Monomer>> monomerDB = MonomerFactory.getInstance().getMonomerDB();
+      MessageDigest digest;
+      try {
+        digest = MessageDigest.getInstance("SHA-1");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+      for (Map.Entry<String, Map<String, Monomer>> type : new TreeMap<String, Map<String, Monomer>>(monomerDB).entrySet()) {
+        for (Map.Entry<String, Monomer> monomer : new TreeMap<String, Monomer>(type.getValue()).entrySet()) {
+          if (monomer.getValue().isAdHocMonomer()) {
+            continue;
+          }
+          StringBuilder entry = new StringBuilder();
+          entry.append(type.getKey()).append('\t').append(monomer.getKey()).append('\t').append(monomer.getValue().getCanSMILES());
+          for (Attachment attachment : monomer.getValue().getAttachmentList()) {
+            entry.append('\t').append(attachment.getLabel()).append('=').append(attachment.getCapGroupSMILES());
+          }
+          entry.append('\n');
+          digest.update(entry.toString().getBytes(StandardCharsets.UTF_8));
+        }
+      }
+      StringBuilder sb = new StringBuilder();
+      for (byte b : digest.digest()) {
+        sb.append(String.format("%02x", b));
+      }
+      fingerprint = sb.toString();
+      fingerprintVersion = version;
+    }
+    return fingerprint;
+  }
+}
@@ -0,0 +1,65 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+/**
+ * outputs which can be requested for every notation of a batch, see
+ * {@link WebService#processBatch(java.util.List, java.util.Set, int)}
+ *
+ * @author hecht
+ */
+public enum BatchOutput {
+  /** canonical HELM, String */
+  CANONICAL_HELM,
+  /** standard HELM, String */
+  STANDARD_HELM,
+  /** molecular weight, Double */
+  MOLECULAR_WEIGHT,
+  /** molecular formula, String */
+  MOLECULAR_FORMULA,
+  /** exact mass, Double */
+  EXACT_MASS,
+  /** extinction coefficient, Float */
+  EXTINCTION_COEFFICIENT,
+  /** FASTA of all rna and peptide sequences, String */
+  FASTA,
+  /** SMILES of the whole HELM, String */
+  SMILES,
+  /** canonical SMILES of the whole HELM, String */
+  CANONICAL_SMILES,
+  /** HELM as JSON, String */
+  JSON,
+  /** natural analog sequences of the peptides, String */
+  NATURAL_ANALOG_PEPTIDE,
+  /** natural analog sequences of the rnas, String */
+  NATURAL_ANALOG_RNA;
+
+  /**
+   * @return true, if the output is calculated from the built molecule:
+   *         molecular weight, molecular formula and exact mass
+   */
+  public boolean isMassProperty() {
+    return this == MOLECULAR_WEIGHT || this == MOLECULAR_FORMULA || this == EXACT_MASS;
+  }
+}
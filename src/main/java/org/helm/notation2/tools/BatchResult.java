@@ -0,0 +1,137 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * result of one notation of a batch: the requested outputs which could be
+ * calculated and an error message for every output which could not be
+ * calculated. If the notation is not valid, no output is calculated and only
+ * the validation error is set.
+ *
+ * @author hecht
+ */
+public final class BatchResult {
+
+  private final int index;
+
+  private final String notation;
+
+  private String validationError;
+
+  private final Map<BatchOutput, Object> results = new EnumMap<BatchOutput, Object>(BatchOutput.class);
+
+  private final Map<BatchOutput, String> errors = new EnumMap<BatchOutput, String>(BatchOutput.class);
+
+  BatchResult(int index, String notation) {
+    this.index = index;
+    this.notation = notation;
+  }
+
+  /**
+   * @return position of the notation in the batch input
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * @return input notation
+   */
+  public String getNotation() {
+    return notation;
+  }
+
+  /**
+   * @return true, if the notation could be read and validated
+   */
+  public boolean isValid() {
+    return validationError == null;
+  }
+
+  /**
+   * @return reason why the notation is not valid, null if it is valid
+   */
+  public String getValidationError() {
+    return validationError;
+  }
+
+  /**
+   * method to get one calculated output, the type of the value is described
+   * in {@link BatchOutput}
+   *
+   * @param output requested output
+   * @return value of the output, null if it was not requested or could not be
+   *         calculated
+   */
+  public Object getResult(BatchOutput output) {
+    return results.get(output);
+  }
+
+  /**
+   * @return all calculated outputs
+   */
+  public Map<BatchOutput, Object> getResults() {
+    return Collections.unmodifiableMap(results);
+  }
+
+  /**
+   * @param output requested output
+   * @return reason why the output could not be calculated, null otherwise
+   */
+  public String getError(BatchOutput output) {
+    return errors.get(output);
+  }
+
+  /**
+   * @return the reasons of all outputs which could not be calculated
+   */
+  public Map<BatchOutput, String> getErrors() {
+    return Collections.unmodifiableMap(errors);
+  }
+
+  /**
+   * @return true, if the notation is not valid or any output could not be
+   *         calculated
+   */
+  public boolean hasErrors() {
+    return validationError != null || !errors.isEmpty();
+  }
+
+  void setValidationError(String validationError) {
+    this.validationError = validationError;
+  }
+
+  void putResult(BatchOutput output, Object value) {
+    results.put(output, value);
+  }
+
+  void putError(BatchOutput output, String error) {
+    errors.put(output, error);
+  }
+
+}
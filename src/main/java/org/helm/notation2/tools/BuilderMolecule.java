@@ -28,6 +28,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
 
 import org.helm.chemtoolkit.AbstractChemistryManipulator.StType;
 import org.helm.chemtoolkit.AbstractMolecule;
@@ -64,6 +71,15 @@ public final class BuilderMolecule {
   /** The Logger for this class */
   private static final Logger LOG = LoggerFactory.getLogger(BuilderMolecule.class);
 
+  /**
+   * chains up to this number of monomers are built from left to right even if
+   * a pool is given
+   */
+  static final int LINEAR_ASSEMBLY_LIMIT = 32;
+
+  /** number of units a parallel chain merge handles in one task */
+  private static final int PARALLEL_MERGE_UNITS = 16;
+
   /**
    * Default constructor.
    */
@@ -81,6 +97,26 @@ public final class BuilderMolecule {
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
   public static RgroupStructure buildMoleculefromSinglePolymer(final PolymerNotation polymernotation) throws BuilderMoleculeException, HELM2HandledException, ChemistryException {
+    return buildMoleculefromSinglePolymer(polymernotation, null);
+  }
+
+  /**
+   * method to build a molecule for a single polymer; the sub-chains of long
+   * Peptide or RNA polymers are merged in parallel on the given pool. The
+   * molecule is the same, but its atoms are in another order than the ones of
+   * a chain built from left to right, so the SMILES and MDL output differ
+   * unless they are canonicalized
+   *
+   * @param polymernotation a single polymer
+   * @param pool pool to assemble long chains in parallel, null to build them
+   *          from left to right in the calling thread
+   * @return molecule for the given single polymer
+   * @throws BuilderMoleculeException if the polymer type is BLOB or unknown
+   * @throws HELM2HandledException if the polymer contains HELM2 features
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  public static RgroupStructure buildMoleculefromSinglePolymer(final PolymerNotation polymernotation, final ForkJoinPool pool) throws BuilderMoleculeException, HELM2HandledException,
+      ChemistryException {
     LOG.info("Build molecule for single Polymer " + polymernotation.getPolymerID().getId());
     /* Case 1: BLOB -> throw exception */
     if (polymernotation.getPolymerID() instanceof BlobEntity) {
@@ -93,7 +129,7 @@ public final class BuilderMolecule {
         || polymernotation.getPolymerID() instanceof PeptideEntity) {
       List<Monomer> validMonomers =
           MethodsMonomerUtils.getListOfHandledMonomers(polymernotation.getPolymerElements().getListOfElements());
-      return buildMoleculefromPeptideOrRNA(polymernotation.getPolymerID().getId(), validMonomers);
+      return buildMoleculefromPeptideOrRNA(polymernotation.getPolymerID().getId(), validMonomers, pool);
     } else {
       LOG.error("Molecule can't be build for unknown polymer type");
       throw new BuilderMoleculeException("Molecule can't be build for unknown polymer type");
@@ -111,55 +147,213 @@ public final class BuilderMolecule {
    */
   public static List<AbstractMolecule> buildMoleculefromPolymers(final List<PolymerNotation> polymers,
       final List<ConnectionNotation> connections) throws BuilderMoleculeException, ChemistryException {
+    return buildMoleculefromPolymers(polymers, connections, null);
+  }
 
-    LOG.info("Building process for the all polymers is starting");
-    Map<String, PolymerNotation> map = new HashMap<String, PolymerNotation>();
+  /**
+   * method to build molecules for the whole HELMNotation; the molecules of the
+   * single polymers are built concurrently on the given executor, the
+   * connections are merged afterwards in the calling thread
+   *
+   * @param polymers all polymers of the HELMNotation
+   * @param connections all connections of the HELMNotation
+   * @param executor executor to build the single polymers, null to build them
+   *          sequentially
+   * @return list of built molecules
+   * @throws BuilderMoleculeException if HELM2 features were contained
+   * @throws ChemistryException if the Chemistry Engine can not be iniialized
+   */
+  public static List<AbstractMolecule> buildMoleculefromPolymers(final List<PolymerNotation> polymers,
+      final List<ConnectionNotation> connections, final ExecutorService executor) throws BuilderMoleculeException, ChemistryException {
+    return buildMoleculefromPolymers(polymers, connections, executor, null);
+  }
 
-    Map<String, RgroupStructure> mapMolecules = new HashMap<String, RgroupStructure>();
-    Map<String, String> mapConnections = new HashMap<String, String>();
-    Map<String, Map<String, IAtomBase>> mapIAtomBase = new HashMap<String, Map<String, IAtomBase>>();
+  /**
+   * method to build molecules for the whole HELMNotation; the molecules of the
+   * single polymers are built concurrently on the given executor, the
+   * sub-chains of long Peptide or RNA polymers are merged in parallel on the
+   * given pool, see {@link #buildMoleculefromSinglePolymer(PolymerNotation, ForkJoinPool)}
+   *
+   * @param polymers all polymers of the HELMNotation
+   * @param connections all connections of the HELMNotation
+   * @param executor executor to build the single polymers, null to build them
+   *          sequentially
+   * @param pool pool to assemble long chains in parallel, null to build them
+   *          from left to right
+   * @return list of built molecules
+   * @throws BuilderMoleculeException if HELM2 features were contained
+   * @throws ChemistryException if the Chemistry Engine can not be iniialized
+   */
+  public static List<AbstractMolecule> buildMoleculefromPolymers(final List<PolymerNotation> polymers,
+      final List<ConnectionNotation> connections, final ExecutorService executor, final ForkJoinPool pool) throws BuilderMoleculeException, ChemistryException {
 
-    List<AbstractMolecule> listMolecules = new ArrayList<AbstractMolecule>();
-    RgroupStructure current = new RgroupStructure();
+    LOG.info("Building process for the all polymers is starting");
+    /* index of every polymer id, in the order of the polymers */
+    Map<String, Integer> indexes = new HashMap<String, Integer>();
+    for (PolymerNotation polymer : polymers) {
+      indexes.put(polymer.getPolymerID().getId(), indexes.size());
+    }
+
+    /* Plan the merge order: every connection joins two fragments */
+    LOG.info("Plan the connections between the single molecules");
+    List<MergeStep> steps = planConnections(indexes, connections);
 
-    AbstractMolecule molecule = null;
     /* Build for every single polymer a single molecule */
     LOG.info("Build for each polymer a single molecule");
-    for (PolymerNotation polymer : polymers) {
-      map.put(polymer.getPolymerID().getId(), polymer);
-      try {
+    RgroupStructure[] fragments = buildFragments(polymers, executor, pool);
 
-        current = buildMoleculefromSinglePolymer(polymer);
-        mapMolecules.put(polymer.getPolymerID().getId(), current);
-        mapIAtomBase.put(polymer.getPolymerID().getId(), current.getMolecule().getRgroups());
-      } catch (HELM2HandledException | CTKException e) {
+    /* Build interconnections between single molecules */
+    LOG.info("Connect the single molecules together");
+    PolymerUnionFind union = new PolymerUnionFind(polymers.size());
+    for (MergeStep step : steps) {
+      LOG.info("Connection: " + step.connection.toString());
+      int rootOne = union.find(step.source);
+      int rootTwo = union.find(step.target);
+      RgroupStructure one = fragments[rootOne];
+      RgroupStructure two = fragments[rootTwo];
+      try {
+        /* Self cycle */
+        if (rootOne == rootTwo) {
+          LOG.debug("Self-cycle connection: " + step.connection.toString());
+          AbstractMolecule molecule =
+              merge(one.getMolecule(), one.getRgroupMap().get(step.sourceKey), one.getMolecule(), one.getRgroupMap().get(step.targetKey));
+          one.setMolecule(molecule);
+          one.getRgroupMap().remove(step.sourceKey);
+          one.getRgroupMap().remove(step.targetKey);
+        } else {
+          LOG.info("MERGE");
+          AbstractMolecule molecule =
+              merge(one.getMolecule(), one.getRgroupMap().get(step.sourceKey), two.getMolecule(), two.getRgroupMap().get(step.targetKey));
+          LOG.info("Merge completed");
+          one.getRgroupMap().remove(step.sourceKey);
+          two.getRgroupMap().remove(step.targetKey);
+          /* merge the smaller RgroupMap into the larger one */
+          Map<String, IAtomBase> rgroupMap = one.getRgroupMap();
+          if (rgroupMap.size() < two.getRgroupMap().size()) {
+            two.getRgroupMap().putAll(rgroupMap);
+            rgroupMap = two.getRgroupMap();
+          } else {
+            rgroupMap.putAll(two.getRgroupMap());
+          }
+          int root = union.union(rootOne, rootTwo);
+          RgroupStructure actual = new RgroupStructure();
+          actual.setMolecule(molecule);
+          actual.setRgroupMap(rgroupMap);
+          fragments[rootOne] = null;
+          fragments[rootTwo] = null;
+          fragments[root] = actual;
+        }
+      } catch (CTKException e) {
         throw new BuilderMoleculeException(e.getMessage());
       }
     }
 
-    /* Build interconnections between single molecules */
-    LOG.info("Connect the single molecules together");
+    /* one molecule per fragment, in the order of the fragments' first polymer */
+    List<AbstractMolecule> listMolecules = new ArrayList<AbstractMolecule>();
+    boolean[] added = new boolean[polymers.size()];
+    for (int i = 0; i < polymers.size(); i++) {
+      int root = union.find(i);
+      if (!added[root]) {
+        added[root] = true;
+        listMolecules.add(fragments[root].getMolecule());
+      }
+    }
+    return listMolecules;
+  }
+
+  /**
+   * method to build the molecule of every single polymer
+   *
+   * @param polymers all polymers of the HELMNotation
+   * @param executor executor to build the polymers, null to build them
+   *          sequentially
+   * @param pool pool to assemble long chains in parallel, can be null
+   * @return molecules of the polymers, in the order of the polymers
+   * @throws BuilderMoleculeException if a molecule can't be built
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  private static RgroupStructure[] buildFragments(final List<PolymerNotation> polymers, final ExecutorService executor, final ForkJoinPool pool) throws BuilderMoleculeException,
+      ChemistryException {
+    RgroupStructure[] fragments = new RgroupStructure[polymers.size()];
+    if (executor == null || polymers.size() < 2) {
+      for (int i = 0; i < polymers.size(); i++) {
+        try {
+          fragments[i] = buildMoleculefromSinglePolymer(polymers.get(i), pool);
+        } catch (HELM2HandledException e) {
+          throw new BuilderMoleculeException(e.getMessage());
+        }
+      }
+      return fragments;
+    }
+
+    /* initialize the Chemistry Engine before the tasks use it */
+    Chemistry.getInstance();
+    List<Future<RgroupStructure>> results = new ArrayList<Future<RgroupStructure>>(polymers.size());
+    try {
+      for (final PolymerNotation polymer : polymers) {
+        results.add(executor.submit(new Callable<RgroupStructure>() {
+          @Override
+          public RgroupStructure call() throws Exception {
+            return buildMoleculefromSinglePolymer(polymer, pool);
+          }
+        }));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        try {
+          fragments[i] = results.get(i).get();
+        } catch (ExecutionException e) {
+          rethrowBuildException(e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new BuilderMoleculeException("Building of the polymers was interrupted");
+        }
+      }
+    } finally {
+      for (Future<RgroupStructure> result : results) {
+        result.cancel(true);
+      }
+    }
+    return fragments;
+  }
+
+  private static void rethrowBuildException(final Throwable cause) throws BuilderMoleculeException, ChemistryException {
+    if (cause instanceof BuilderMoleculeException) {
+      throw (BuilderMoleculeException) cause;
+    } else if (cause instanceof ChemistryException) {
+      throw (ChemistryException) cause;
+    } else if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    throw new BuilderMoleculeException(cause.getMessage());
+  }
+
+  /**
+   * method to check all connections and to translate them into merge steps
+   * between polymer indexes; all connections are checked before any molecule
+   * is built
+   *
+   * @param indexes index of every polymer id
+   * @param connections all connections of the HELMNotation
+   * @return merge steps in the order of the connections
+   * @throws BuilderMoleculeException if a connection can not be built
+   */
+  private static List<MergeStep> planConnections(final Map<String, Integer> indexes, final List<ConnectionNotation> connections) throws BuilderMoleculeException {
+    List<MergeStep> steps = new ArrayList<MergeStep>(connections.size());
     for (ConnectionNotation connection : connections) {
-      LOG.info("Connection: " + connection.toString());
       /* Group Id -> throw exception */
       if (connection.getSourceId() instanceof GroupEntity || connection.getTargetId() instanceof GroupEntity) {
         LOG.error("Molecule can't be build for group connection");
         throw new BuilderMoleculeException("Molecule can't be build for group connection");
       }
-      /* Get the source molecule + target molecule */
       String idFirst = connection.getSourceId().getId();
       String idSecond = connection.getTargetId().getId();
-      if (mapMolecules.get(idFirst) == null) {
-        idFirst = mapConnections.get(idFirst);
+      Integer indexFirst = indexes.get(idFirst);
+      Integer indexSecond = indexes.get(idSecond);
+      if (indexFirst == null || indexSecond == null) {
+        throw new BuilderMoleculeException("Connection refers to an unknown polymer: " + connection.toString());
       }
-      if (mapMolecules.get(idSecond) == null) {
-        idSecond = mapConnections.get(idSecond);
-      }
-
-      RgroupStructure one = mapMolecules.get(idFirst);
-      RgroupStructure two = mapMolecules.get(idSecond);
-      mapMolecules.remove(idFirst);
-      mapMolecules.remove(idSecond);
 
       /*
        * connection details: have to be an integer value + specific
@@ -174,79 +368,76 @@ public final class BuilderMolecule {
         throw new BuilderMoleculeException("Connection has to be unambiguous");
       }
 
-      /* if the */
-      // if
-      // (!((MethodsForContainerHELM2.isMonomerSpecific(map.get(connection.getSourceId().getID()),
-      // source)
-      // &&
-      // MethodsForContainerHELM2.isMonomerSpecific(map.get(connection.getTargetId().getID()),
-      // target)))) {
-      // throw new BuilderMoleculeException("Connection has to be
-      // unambiguous");
-      // }
-
       /* R group of connection is unknown */
       if (connection.getrGroupSource().equals("?") || connection.getrGroupTarget().equals("?")) {
         throw new BuilderMoleculeException("Connection's R groups have to be known");
       }
 
-      String rgroupOne = connection.getrGroupSource();
-      String rgroupTwo = connection.getrGroupTarget();
-      /* Self cycle */
-      if (idFirst.equals(idSecond)) {
-        try {
-          LOG.debug("Self-cycle connection: " + connection.toString());
-          molecule =
-              Chemistry.getInstance().getManipulator().merge(one.getMolecule(), one.getRgroupMap().get(connection.getSourceId().getId() + ":" + source + ":"
-                  + rgroupOne), one.getMolecule(), one.getRgroupMap().get(connection.getTargetId().getId() + ":"
-                      + target + ":"
-                      + rgroupTwo));
-          one.getRgroupMap().remove(connection.getSourceId().getId() + ":" + source + ":" + rgroupOne);
-          one.getRgroupMap().remove(connection.getSourceId().getId() + ":" + source + ":" + rgroupTwo);
-          mapMolecules.put(idFirst, one);
-        } catch (CTKException e) {
-          throw new BuilderMoleculeException(e.getMessage());
-        }
-      } else {
-        try {
-          LOG.info("MERGE");
-          molecule =
-              Chemistry.getInstance().getManipulator().merge(one.getMolecule(), one.getRgroupMap().get(connection.getSourceId().getId() + ":" + source + ":"
-                  + rgroupOne), two.getMolecule(), two.getRgroupMap().get(connection.getTargetId().getId() + ":"
-                      + target + ":"
-                      + rgroupTwo));
-          LOG.info("Merge completed");
-          RgroupStructure actual = new RgroupStructure();
-          actual.setMolecule(molecule);
-          Map<String, IAtomBase> rgroupMap = new HashMap<String, IAtomBase>();
-          one.getRgroupMap().remove(connection.getSourceId().getId() + ":" + source + ":" + rgroupOne);
-          two.getRgroupMap().remove(connection.getTargetId().getId() + ":" + target + ":" + rgroupTwo);
-          rgroupMap.putAll(one.getRgroupMap());
-          rgroupMap.putAll(two.getRgroupMap());
-          actual.setRgroupMap(rgroupMap);
-          mapMolecules.put(idFirst + idSecond, actual);
-        } catch (CTKException e) {
-          throw new BuilderMoleculeException(e.getMessage());
-        }
-        mapConnections.put(connection.getSourceId().getId(), idFirst + idSecond);
-        mapConnections.put(connection.getTargetId().getId(), idFirst + idSecond);
+      steps.add(new MergeStep(connection, indexFirst, indexSecond, idFirst + ":" + source + ":" + connection.getrGroupSource(), idSecond + ":" + target + ":"
+          + connection.getrGroupTarget()));
+    }
+    return steps;
+  }
 
-        /* HashMap refresh */
-        for (Map.Entry e : mapConnections.entrySet()) {
-          if (e.getValue().equals(idFirst) || e.getValue().equals(idSecond)) {
-            mapConnections.put((String) e.getKey(), idFirst + idSecond);
-          }
-        }
+  /**
+   * single planned connection between two polymers
+   */
+  private static final class MergeStep {
+    private final ConnectionNotation connection;
 
-      }
+    private final int source;
+
+    private final int target;
+
+    private final String sourceKey;
+
+    private final String targetKey;
+
+    private MergeStep(final ConnectionNotation connection, final int source, final int target, final String sourceKey, final String targetKey) {
+      this.connection = connection;
+      this.source = source;
+      this.target = target;
+      this.sourceKey = sourceKey;
+      this.targetKey = targetKey;
+    }
+  }
+
+  /**
+   * union-find over the polymer indexes: every set is one fragment, its root
+   * holds the fragment's molecule
+   */
+  private static final class PolymerUnionFind {
+    private final int[] parent;
 
+    private final int[] rank;
+
+    private PolymerUnionFind(final int size) {
+      parent = new int[size];
+      rank = new int[size];
+      for (int i = 0; i < size; i++) {
+        parent[i] = i;
+      }
     }
 
-    for (Map.Entry<String, RgroupStructure> e : mapMolecules.entrySet()) {
-      listMolecules.add(e.getValue().getMolecule());
+    private int find(int index) {
+      while (parent[index] != index) {
+        parent[index] = parent[parent[index]];
+        index = parent[index];
+      }
+      return index;
     }
 
-    return listMolecules;
+    private int union(final int rootOne, final int rootTwo) {
+      if (rank[rootOne] < rank[rootTwo]) {
+        parent[rootOne] = rootTwo;
+        return rootTwo;
+      }
+      parent[rootTwo] = rootOne;
+      if (rank[rootOne] == rank[rootTwo]) {
+        rank[rootOne]++;
+      }
+      return rootOne;
+    }
   }
 
   /**
@@ -267,14 +458,7 @@ public final class BuilderMolecule {
         String input = getInput(monomer);
         if (input != null) {
           /* Build monomer + Rgroup information! */
-
-          List<Attachment> listAttachments = monomer.getAttachmentList();
-          AttachmentList list = new AttachmentList();
-
-          for (Attachment attachment : listAttachments) {
-            list.add(new org.helm.chemtoolkit.Attachment(attachment.getAlternateId(), attachment.getLabel(), attachment.getCapGroupName(), attachment.getCapGroupSMILES()));
-          }
-          AbstractMolecule molecule = Chemistry.getInstance().getManipulator().getMolecule(input, list);
+          AbstractMolecule molecule = buildMonomerMolecule(monomer, input);
           RgroupStructure result = new RgroupStructure();
           result.setMolecule(molecule);
           result.setRgroupMap(generateRgroupMap(id + ":" + "1", molecule));
@@ -314,7 +498,37 @@ public final class BuilderMolecule {
   }
 
   /**
-   * method to build a molecule from a Peptide or RNA component
+   * method to build a molecule from a Peptide or RNA component; without a
+   * pool the chain is built from left to right, with a pool long chains are
+   * assembled by {@link #buildChainBalanced(String, List, ForkJoinPool)}
+   *
+   * @param id name of the molecule
+   * @param validMonomers all valid monomers of the component
+   * @param pool pool to assemble long chains in parallel, can be null
+   * @return generated molecule
+   * @throws BuilderMoleculeException if the molecule can't be built
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  private static RgroupStructure buildMoleculefromPeptideOrRNA(final String id, final List<Monomer> validMonomers, final ForkJoinPool pool) throws BuilderMoleculeException,
+      ChemistryException {
+    if (validMonomers == null || validMonomers.size() == 0) {
+      LOG.error("Polymer (Peptide/RNA) has no contents");
+      throw new BuilderMoleculeException("Polymer (Peptide/RNA) has no contents");
+    }
+    long start = System.currentTimeMillis();
+    RgroupStructure result;
+    if (pool == null || validMonomers.size() <= LINEAR_ASSEMBLY_LIMIT) {
+      result = buildChainLinear(id, validMonomers);
+    } else {
+      result = buildChainBalanced(id, validMonomers, pool);
+    }
+    LOG.debug("Polymer {} with {} monomers built in {} ms", id, validMonomers.size(), System.currentTimeMillis() - start);
+    return result;
+  }
+
+  /**
+   * method to build the chain of a Peptide or RNA component by merging the
+   * monomers from left to right into one growing molecule
    *
    * @param id name of the molecule
    * @param validMonomers all valid monomers of the component
@@ -322,81 +536,47 @@ public final class BuilderMolecule {
    * @throws BuilderMoleculeException if the molecule can't be built
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
-  private static RgroupStructure buildMoleculefromPeptideOrRNA(final String id, final List<Monomer> validMonomers) throws BuilderMoleculeException, ChemistryException {
+  static RgroupStructure buildChainLinear(final String id, final List<Monomer> validMonomers) throws BuilderMoleculeException, ChemistryException {
     try {
       String input = null;
       AbstractMolecule currentMolecule = null;
-      input = getInput(validMonomers.get(0));
-      AbstractMolecule prevMolecule =
-          Chemistry.getInstance().getManipulator().getMolecule(input, generateAttachmentList(validMonomers.get(0).getAttachmentList()));
-      AbstractMolecule firstMolecule = null;
-      Monomer prevMonomer = null;
+      AbstractMolecule molecule = null;
 
-      RgroupStructure first = new RgroupStructure();
-      RgroupStructure current = new RgroupStructure();
+      /* unused R-groups of the growing molecule, merged in place */
+      RgroupIndex rgroups = new RgroupIndex(validMonomers.size());
 
       int prev = 1;
 
-      if (validMonomers.size() == 0 || validMonomers == null) {
-        LOG.error("Polymer (Peptide/RNA) has no contents");
-        throw new BuilderMoleculeException("Polymer (Peptide/RNA) has no contents");
-      }
       int i = 0;
       /* First catch all IAtomBases */
       for (Monomer currentMonomer : validMonomers) {
         LOG.debug("Monomer " + currentMonomer.getAlternateId());
         i++;
-        if (prevMonomer != null) {
+        if (molecule != null) {
           input = getInput(currentMonomer);
-          currentMolecule = Chemistry.getInstance().getManipulator().getMolecule(input, generateAttachmentList(currentMonomer.getAttachmentList()));
-
-          current.setMolecule(currentMolecule);
-          current.setRgroupMap(generateRgroupMap(id + ":" + String.valueOf(i), currentMolecule));
+          currentMolecule = buildMonomerMolecule(currentMonomer, input);
+          rgroups.addAll(i, currentMolecule.getRgroups());
           /* Backbone Connection */
           if (currentMonomer.getMonomerType().equals(Monomer.BACKBONE_MOMONER_TYPE)) {
-
-            prevMolecule = Chemistry.getInstance().getManipulator().merge(first.getMolecule(), first.getRgroupMap().get(id + ":" + prev
-                + ":R2"), current.getMolecule(), current.getRgroupMap().get(id
-                    + ":" + i
-                    + ":R1"));
-
-            first.getRgroupMap().remove(id + ":" + prev + ":R2");
-            current.getRgroupMap().remove(id + ":" + i + ":R1");
-
-            first.setMolecule(prevMolecule);
-            Map<String, IAtomBase> map = new HashMap<String, IAtomBase>();
-            map.putAll(first.getRgroupMap());
-            map.putAll(current.getRgroupMap());
-            first.setRgroupMap(map);
+            molecule = merge(molecule, rgroups.remove(prev, 2), currentMolecule, rgroups.remove(i, 1));
             prev = i;
 
           } /* Backbone to Branch Connection */ else if (currentMonomer.getMonomerType().equals(Monomer.BRANCH_MOMONER_TYPE)) {
-            prevMolecule = Chemistry.getInstance().getManipulator().merge(first.getMolecule(), first.getRgroupMap().get(id + ":" + prev
-                + ":R3"), current.getMolecule(), current.getRgroupMap().get(id
-                    + ":"
-                    + i + ":R1"));
-            first.getRgroupMap().remove(id + ":" + prev + ":R3");
-            current.getRgroupMap().remove(id + ":" + i + ":R1");
-            first.setMolecule(prevMolecule);
-            Map<String, IAtomBase> map = new HashMap<String, IAtomBase>();
-            map.putAll(first.getRgroupMap());
-            map.putAll(current.getRgroupMap());
-            first.setRgroupMap(map);
+            molecule = merge(molecule, rgroups.remove(prev, 3), currentMolecule, rgroups.remove(i, 1));
           } /* Unknown connection */ else {
             LOG.error("Intra connection is unknown");
             throw new BuilderMoleculeException("Intra connection is unknown");
           }
         } /* first Monomer! */ else {
-          prevMonomer = currentMonomer;
-          input = getInput(prevMonomer);
-          prevMolecule =
-              Chemistry.getInstance().getManipulator().getMolecule(input, generateAttachmentList(prevMonomer.getAttachmentList()));
-          firstMolecule = prevMolecule;
-          first.setMolecule(firstMolecule);
-          first.setRgroupMap(generateRgroupMap(id + ":" + String.valueOf(i), firstMolecule));
+          input = getInput(currentMonomer);
+          molecule = buildMonomerMolecule(currentMonomer, input);
+          rgroups.addAll(i, molecule.getRgroups());
         }
 
       }
+      RgroupStructure first = new RgroupStructure();
+      first.setMolecule(molecule);
+      first.setRgroupMap(rgroups.toRgroupMap(id));
       LOG.debug(first.getRgroupMap().keySet().toString());
       return first;
     } catch (IOException | CTKException e) {
@@ -405,6 +585,166 @@ public final class BuilderMolecule {
     }
   }
 
+  /**
+   * method to build the chain of a Peptide or RNA component by tree
+   * reduction: the chain is cut into units of one backbone monomer with its
+   * branch monomers, neighbouring sub-chains are then merged pairwise. The
+   * bonds are the same as the ones of
+   * {@link #buildChainLinear(String, List)}, but no merge has to walk the
+   * whole chain built so far.
+   *
+   * @param id name of the molecule
+   * @param validMonomers all valid monomers of the component
+   * @param pool pool to merge the sub-chains in parallel, null to merge them
+   *          in the calling thread
+   * @return generated molecule
+   * @throws BuilderMoleculeException if the molecule can't be built
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  static RgroupStructure buildChainBalanced(final String id, final List<Monomer> validMonomers, final ForkJoinPool pool) throws BuilderMoleculeException, ChemistryException {
+    try {
+      int size = validMonomers.size();
+      RgroupIndex rgroups = new RgroupIndex(size);
+      AbstractMolecule[] molecules = new AbstractMolecule[size + 1];
+      /* residue number of the first monomer of every unit */
+      int[] heads = new int[size];
+      int units = 0;
+      for (int i = 1; i <= size; i++) {
+        Monomer monomer = validMonomers.get(i - 1);
+        LOG.debug("Monomer " + monomer.getAlternateId());
+        molecules[i] = buildMonomerMolecule(monomer, getInput(monomer));
+        rgroups.addAll(i, molecules[i].getRgroups());
+        if (i == 1 || monomer.getMonomerType().equals(Monomer.BACKBONE_MOMONER_TYPE)) {
+          heads[units++] = i;
+        } else if (!monomer.getMonomerType().equals(Monomer.BRANCH_MOMONER_TYPE)) {
+          LOG.error("Intra connection is unknown");
+          throw new BuilderMoleculeException("Intra connection is unknown");
+        }
+      }
+
+      /* Backbone to Branch Connections inside every unit */
+      AbstractMolecule[] unitMolecules = new AbstractMolecule[units];
+      for (int unit = 0; unit < units; unit++) {
+        int head = heads[unit];
+        int end = unit + 1 < units ? heads[unit + 1] : size + 1;
+        AbstractMolecule molecule = molecules[head];
+        for (int i = head + 1; i < end; i++) {
+          molecule = merge(molecule, rgroups.remove(head, 3), molecules[i], rgroups.remove(i, 1));
+        }
+        unitMolecules[unit] = molecule;
+      }
+
+      /* Backbone Connection between unit - 1 and unit */
+      IAtomBase[] linksLeft = new IAtomBase[units];
+      IAtomBase[] linksRight = new IAtomBase[units];
+      for (int unit = 1; unit < units; unit++) {
+        linksLeft[unit] = rgroups.remove(heads[unit - 1], 2);
+        linksRight[unit] = rgroups.remove(heads[unit], 1);
+      }
+
+      AbstractMolecule molecule;
+      if (pool == null) {
+        molecule = mergeUnits(unitMolecules, linksLeft, linksRight, 0, units - 1);
+      } else {
+        molecule = invokeChainMerge(pool, new ChainMerge(unitMolecules, linksLeft, linksRight, 0, units - 1));
+      }
+      RgroupStructure result = new RgroupStructure();
+      result.setMolecule(molecule);
+      result.setRgroupMap(rgroups.toRgroupMap(id));
+      return result;
+    } catch (IOException | CTKException e) {
+      LOG.error("Polymer(Peptide/RNA) molecule can't be built " + e.getMessage());
+      throw new BuilderMoleculeException("Polymer(Peptide/RNA) molecule can't be built " + e.getMessage());
+    }
+  }
+
+  /**
+   * method to merge the units from lower to upper into one molecule
+   *
+   * @param units molecules of the units
+   * @param linksLeft R2 atom of the unit before each unit
+   * @param linksRight R1 atom of each unit
+   * @param lower first unit
+   * @param upper last unit
+   * @return merged molecule
+   * @throws CTKException if the molecules can't be merged
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  private static AbstractMolecule mergeUnits(final AbstractMolecule[] units, final IAtomBase[] linksLeft, final IAtomBase[] linksRight, final int lower, final int upper)
+      throws CTKException, ChemistryException {
+    if (lower == upper) {
+      return units[lower];
+    }
+    int middle = (lower + upper) >>> 1;
+    AbstractMolecule left = mergeUnits(units, linksLeft, linksRight, lower, middle);
+    AbstractMolecule right = mergeUnits(units, linksLeft, linksRight, middle + 1, upper);
+    return merge(left, linksLeft[middle + 1], right, linksRight[middle + 1]);
+  }
+
+  private static AbstractMolecule invokeChainMerge(final ForkJoinPool pool, final ChainMerge task) throws CTKException, ChemistryException {
+    try {
+      /* a task of the pool itself, e.g. a polymer built on the pool, joins the merge */
+      if (ForkJoinTask.getPool() == pool) {
+        return task.invoke();
+      }
+      return pool.invoke(task);
+    } catch (RuntimeException e) {
+      Throwable cause = e;
+      while (cause != null && !(cause instanceof CTKException) && !(cause instanceof ChemistryException)) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof CTKException) {
+        throw (CTKException) cause;
+      } else if (cause instanceof ChemistryException) {
+        throw (ChemistryException) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * task to merge the units of a chain in parallel; small ranges are merged
+   * in the worker thread
+   */
+  private static final class ChainMerge extends RecursiveTask<AbstractMolecule> {
+    private static final long serialVersionUID = 1L;
+
+    private final AbstractMolecule[] units;
+
+    private final IAtomBase[] linksLeft;
+
+    private final IAtomBase[] linksRight;
+
+    private final int lower;
+
+    private final int upper;
+
+    private ChainMerge(final AbstractMolecule[] units, final IAtomBase[] linksLeft, final IAtomBase[] linksRight, final int lower, final int upper) {
+      this.units = units;
+      this.linksLeft = linksLeft;
+      this.linksRight = linksRight;
+      this.lower = lower;
+      this.upper = upper;
+    }
+
+    @Override
+    protected AbstractMolecule compute() {
+      try {
+        if (upper - lower < PARALLEL_MERGE_UNITS) {
+          return mergeUnits(units, linksLeft, linksRight, lower, upper);
+        }
+        int middle = (lower + upper) >>> 1;
+        ChainMerge leftTask = new ChainMerge(units, linksLeft, linksRight, lower, middle);
+        leftTask.fork();
+        AbstractMolecule right = new ChainMerge(units, linksLeft, linksRight, middle + 1, upper).compute();
+        AbstractMolecule left = leftTask.join();
+        return merge(left, linksLeft[middle + 1], right, linksRight[middle + 1]);
+      } catch (CTKException | ChemistryException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
   /**
    * method to generate the AttachmentList given a list of attachments
    *
@@ -421,7 +761,29 @@ public final class BuilderMolecule {
   }
 
   /**
-   * method to merge all unused rgroups into a molecule
+   * method to build the molecule of a single monomer; the parsed molecule is
+   * taken from the {@link MonomerMoleculeCache} if the monomer was already
+   * built before
+   *
+   * @param monomer input monomer
+   * @param input molfile or smiles of the monomer
+   * @return molecule of the monomer
+   * @throws IOException if the molecule can't be read
+   * @throws CTKException if the molecule can't be built
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  private static AbstractMolecule buildMonomerMolecule(final Monomer monomer, final String input) throws IOException, CTKException, ChemistryException {
+    AbstractMolecule molecule = MonomerMoleculeCache.get(monomer, input);
+    if (molecule == null) {
+      molecule = readMolecule(input, generateAttachmentList(monomer.getAttachmentList()));
+      MonomerMoleculeCache.put(monomer, input, molecule);
+    }
+    return molecule;
+  }
+
+  /**
+   * method to merge all unused rgroups into a molecule; the cap group
+   * fragments are taken from the {@link CapFragmentCache}
    *
    * @param molecule input molecule
    * @return molecule with all merged unused rgroups
@@ -430,21 +792,38 @@ public final class BuilderMolecule {
    */
   public static AbstractMolecule mergeRgroups(AbstractMolecule molecule) throws BuilderMoleculeException, ChemistryException {
     try {
-      boolean flag = true;
-      // while (flag) {
-      // if (molecule.getAttachments().size() > 0) {
       for (int i = molecule.getAttachments().size() - 1; i > -1; i--) {
         org.helm.chemtoolkit.Attachment attachment = molecule.getAttachments().get(i);
         int groupId = AbstractMolecule.getIdFromLabel(attachment.getLabel());
-        AbstractMolecule rMol = Chemistry.getInstance().getManipulator().getMolecule(attachment.getSmiles(), null);
-        molecule = Chemistry.getInstance().getManipulator().merge(molecule, molecule.getRGroupAtom(groupId, true), rMol, rMol.getRGroupAtom(groupId, true));
-      } 
+        AbstractMolecule rMol = CapFragmentCache.get(attachment.getSmiles(), groupId);
+        molecule = merge(molecule, molecule.getRGroupAtom(groupId, true), rMol, rMol.getRGroupAtom(groupId, true));
+      }
       return molecule;
     } catch (NullPointerException | IOException | CTKException e) {
       throw new BuilderMoleculeException("Unused rgroups can't be merged into the molecule" + e.getMessage());
     }
   }
 
+  /**
+   * method to merge all unused rgroups into every given molecule, one molecule
+   * after the other by {@link #mergeRgroups(AbstractMolecule)}; the cap group
+   * fragments are shared between the molecules by the
+   * {@link CapFragmentCache}
+   *
+   * @param molecules input molecules
+   * @return molecules with all merged unused rgroups, in the order of the
+   *         input molecules
+   * @throws BuilderMoleculeException if a molecule can't be built
+   * @throws ChemistryException if the Chemistry Engine ca not be initialized
+   */
+  public static List<AbstractMolecule> mergeRgroups(List<AbstractMolecule> molecules) throws BuilderMoleculeException, ChemistryException {
+    List<AbstractMolecule> capped = new ArrayList<AbstractMolecule>(molecules.size());
+    for (AbstractMolecule molecule : molecules) {
+      capped.add(mergeRgroups(molecule));
+    }
+    return capped;
+  }
+
   /**
    * method to build a molecule for a given monomer
    *
@@ -456,14 +835,8 @@ public final class BuilderMolecule {
   public static AbstractMolecule getMoleculeForMonomer(final Monomer monomer) throws BuilderMoleculeException, ChemistryException {
     String input = getInput(monomer);
     if (input != null) {
-      List<Attachment> listAttachments = monomer.getAttachmentList();
-      AttachmentList list = new AttachmentList();
-
-      for (Attachment attachment : listAttachments) {
-        list.add(new org.helm.chemtoolkit.Attachment(attachment.getAlternateId(), attachment.getLabel(), attachment.getCapGroupName(), attachment.getCapGroupSMILES()));
-      }
       try {
-        return Chemistry.getInstance().getManipulator().getMolecule(input, list);
+        return buildMonomerMolecule(monomer, input);
       } catch (IOException | CTKException e) {
         throw new BuilderMoleculeException("Molecule can't be built for the given monomer");
       }
@@ -479,7 +852,37 @@ public final class BuilderMolecule {
    * @throws IOException
    */
   public static AbstractMolecule getMolecule(String smiles) throws IOException, CTKException, ChemistryException {
-    return Chemistry.getInstance().getManipulator().getMolecule(smiles, null);
+    return readMolecule(smiles, null);
+  }
+
+  /**
+   * method to merge two molecules with the manipulator of the current thread
+   *
+   * @param first first molecule
+   * @param firstRgroup R-group atom of the first molecule
+   * @param second second molecule
+   * @param secondRgroup R-group atom of the second molecule
+   * @return merged molecule
+   * @throws CTKException if the molecules can't be merged
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  private static AbstractMolecule merge(final AbstractMolecule first, final IAtomBase firstRgroup, final AbstractMolecule second, final IAtomBase secondRgroup) throws CTKException,
+      ChemistryException {
+    return Chemistry.getInstance().getManipulator().merge(first, firstRgroup, second, secondRgroup);
+  }
+
+  /**
+   * method to read a molecule with the manipulator of the current thread
+   *
+   * @param input molfile or smiles
+   * @param attachments attachments of the molecule, can be null
+   * @return molecule
+   * @throws IOException if the input can't be read
+   * @throws CTKException if the molecule can't be built
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  private static AbstractMolecule readMolecule(final String input, final AttachmentList attachments) throws IOException, CTKException, ChemistryException {
+    return Chemistry.getInstance().getManipulator().getMolecule(input, attachments);
   }
 
   private static String getInput(Monomer monomer) {
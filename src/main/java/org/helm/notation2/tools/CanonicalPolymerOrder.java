@@ -0,0 +1,404 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * CanonicalPolymerOrder, class to order the polymers of a HELMNotation for
+ * the canonical HELM. Polymers are ordered by their label (the canonical
+ * representation of their elements); polymers with the same label are ranked
+ * by their connection environment using color refinement: in every round the
+ * color of a polymer is refined by the sorted colors of its neighbours
+ * together with the attachment points of the connections, until the number
+ * of colors does not change anymore.
+ *
+ * Color refinement alone can not tell apart polymers of regular structures,
+ * e.g. two pairs of identical polymers connected crosswise or in parallel. In
+ * this case one polymer of the first color with more than one polymer is
+ * individualized and the colors are refined again, for every polymer of that
+ * color; the order whose connections give the lexicographically smallest
+ * certificate is kept. Branches which are images of an already searched
+ * branch under a found automorphism are skipped.
+ *
+ * Every round of refinement needs O(n + c log c) for n polymers and c
+ * connections, and at most n rounds are needed. The ordering is polynomial
+ * only if refinement alone separates all polymers. Otherwise the search
+ * branches on every polymer of a color and is exponential in the worst
+ * case; the pruning by automorphisms and by neighbours with the same
+ * connections keeps it small for the common symmetric cases, e.g.
+ * homo-multimers, but does not bound it.
+ *
+ * @author hecht
+ */
+final class CanonicalPolymerOrder {
+
+  /**
+   * Default constructor.
+   */
+  private CanonicalPolymerOrder() {
+
+  }
+
+  /**
+   * method to order the given polymers
+   *
+   * @param labels label of every polymer, by index of the polymer
+   * @param graph connections between the polymers
+   * @return indexes of the polymers in canonical order
+   */
+  static int[] sort(final String[] labels, final ConnectionGraph graph) {
+    int size = labels.length;
+
+    /* initial color: rank of the label */
+    List<String> sortedLabels = new ArrayList<String>(new TreeSet<String>(Arrays.asList(labels)));
+    int[] colors = new int[size];
+    for (int i = 0; i < size; i++) {
+      colors[i] = Collections.binarySearch(sortedLabels, labels[i]);
+    }
+
+    /* connection environment of every polymer: seen from the polymer itself */
+    List<List<Edge>> edges = new ArrayList<List<Edge>>(size);
+    for (int i = 0; i < size; i++) {
+      edges.add(new ArrayList<Edge>());
+    }
+    for (int i = 0; i < graph.getNumberOfConnections(); i++) {
+      int source = graph.getSource(i);
+      int target = graph.getTarget(i);
+      if (source < 0 || target < 0) {
+        continue;
+      }
+      edges.get(source).add(new Edge(graph.getDetails(i), target));
+      edges.get(target).add(new Edge(graph.getReverseDetails(i), source));
+    }
+
+    colors = refine(colors, edges);
+    if (numberOfColors(colors) == size) {
+      return order(colors);
+    }
+    Search search = new Search(graph, edges);
+    search.search(colors, new ArrayList<Integer>());
+    return search.bestOrder;
+  }
+
+  /**
+   * method to refine the given colors until the number of colors does not
+   * change anymore; the refined colors are numbered from 0 and keep the order
+   * of the given colors
+   *
+   * @param colors color of every polymer
+   * @param edges connection environment of every polymer
+   * @return refined colors
+   */
+  private static int[] refine(int[] colors, final List<List<Edge>> edges) {
+    int size = colors.length;
+    int numberOfColors = -1;
+    while (true) {
+      final String[] signatures = new String[size];
+      for (int i = 0; i < size; i++) {
+        List<String> neighbours = new ArrayList<String>(edges.get(i).size());
+        for (Edge edge : edges.get(i)) {
+          neighbours.add(edge.points + ">" + colors[edge.neighbour]);
+        }
+        Collections.sort(neighbours);
+        signatures[i] = neighbours.toString();
+      }
+
+      /* the new colors refine the old ones: the old color stays the first key */
+      final int[] oldColors = colors;
+      List<Integer> order = new ArrayList<Integer>(size);
+      for (int i = 0; i < size; i++) {
+        order.add(i);
+      }
+      Collections.sort(order, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer one, Integer two) {
+          if (oldColors[one] != oldColors[two]) {
+            return oldColors[one] < oldColors[two] ? -1 : 1;
+          }
+          return signatures[one].compareTo(signatures[two]);
+        }
+      });
+      int[] refined = new int[size];
+      int color = 0;
+      for (int k = 0; k < size; k++) {
+        int current = order.get(k);
+        if (k > 0) {
+          int previous = order.get(k - 1);
+          if (oldColors[previous] != oldColors[current] || !signatures[previous].equals(signatures[current])) {
+            color++;
+          }
+        }
+        refined[current] = color;
+      }
+      colors = refined;
+      if (color + 1 == numberOfColors || color + 1 >= size) {
+        return colors;
+      }
+      numberOfColors = color + 1;
+    }
+  }
+
+  private static int numberOfColors(final int[] colors) {
+    int max = -1;
+    for (int color : colors) {
+      max = Math.max(max, color);
+    }
+    return max + 1;
+  }
+
+  /**
+   * method to order the polymers by their colors, polymers with the same color
+   * keep the input order
+   *
+   * @param colors refined color of every polymer
+   * @return indexes of the polymers ordered by color
+   */
+  private static int[] order(final int[] colors) {
+    List<Integer> order = new ArrayList<Integer>(colors.length);
+    for (int i = 0; i < colors.length; i++) {
+      order.add(i);
+    }
+    Collections.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer one, Integer two) {
+        return colors[one] < colors[two] ? -1 : (colors[one] == colors[two] ? 0 : 1);
+      }
+    });
+    int[] result = new int[colors.length];
+    for (int k = 0; k < colors.length; k++) {
+      result[k] = order.get(k);
+    }
+    return result;
+  }
+
+  /**
+   * search tree of the individualized polymers; every leaf is an order of the
+   * polymers, the leaf with the smallest certificate is kept
+   */
+  private static final class Search {
+    private final ConnectionGraph graph;
+
+    private final List<List<Edge>> edges;
+
+    /* polymers with the same neighbourhood can be swapped */
+    private final String[] neighbourhoods;
+
+    private final List<int[]> automorphisms = new ArrayList<int[]>();
+
+    private String bestCertificate;
+
+    private int[] bestOrder;
+
+    private List<Integer> bestPath;
+
+    private Search(final ConnectionGraph graph, final List<List<Edge>> edges) {
+      this.graph = graph;
+      this.edges = edges;
+      this.neighbourhoods = new String[edges.size()];
+      for (int i = 0; i < neighbourhoods.length; i++) {
+        List<String> neighbours = new ArrayList<String>(edges.get(i).size());
+        for (Edge edge : edges.get(i)) {
+          neighbours.add(edge.points + ">" + edge.neighbour);
+        }
+        Collections.sort(neighbours);
+        neighbourhoods[i] = neighbours.toString();
+      }
+    }
+
+    /**
+     * method to search the subtree of the given refined colors
+     *
+     * @param colors refined colors
+     * @param path individualized polymers leading to the colors
+     * @return depth of the node where the search continues; lower than the
+     *         depth of the path if the subtree was found to be an image of an
+     *         already searched one
+     */
+    private int search(final int[] colors, final List<Integer> path) {
+      int size = colors.length;
+      int depth = path.size();
+      int numberOfColors = numberOfColors(colors);
+      if (numberOfColors == size) {
+        return leaf(colors, path);
+      }
+
+      /* first color with more than one polymer */
+      int[] count = new int[numberOfColors];
+      for (int color : colors) {
+        count[color]++;
+      }
+      int cell = 0;
+      while (count[cell] == 1) {
+        cell++;
+      }
+
+      List<Integer> searched = new ArrayList<Integer>();
+      for (int i = 0; i < size; i++) {
+        if (colors[i] != cell || isInOrbit(i, searched, path)) {
+          continue;
+        }
+        searched.add(i);
+        int[] individualized = new int[size];
+        for (int k = 0; k < size; k++) {
+          individualized[k] = 2 * colors[k] + ((colors[k] == cell && k != i) ? 1 : 0);
+        }
+        path.add(i);
+        int next = search(refine(individualized, edges), path);
+        path.remove(depth);
+        if (next < depth) {
+          return next;
+        }
+      }
+      return depth;
+    }
+
+    private int leaf(final int[] colors, final List<Integer> path) {
+      int[] order = order(colors);
+      String certificate = certificate(colors);
+      int compare = bestCertificate == null ? -1 : certificate.compareTo(bestCertificate);
+      if (compare < 0) {
+        bestCertificate = certificate;
+        bestOrder = order;
+        bestPath = new ArrayList<Integer>(path);
+      } else if (compare == 0) {
+        /* same certificate: the mapping between the two orders is an automorphism */
+        int[] automorphism = new int[order.length];
+        for (int k = 0; k < order.length; k++) {
+          automorphism[bestOrder[k]] = order[k];
+        }
+        automorphisms.add(automorphism);
+        int common = 0;
+        while (common < path.size() && path.get(common).equals(bestPath.get(common))) {
+          common++;
+        }
+        return common;
+      }
+      return path.size();
+    }
+
+    /**
+     * method to generate the certificate of an order: the sorted connections
+     * between the positions of the polymers
+     *
+     * @param colors discrete colors, the position of every polymer
+     * @return certificate
+     */
+    private String certificate(final int[] colors) {
+      List<String> connections = new ArrayList<String>(graph.getNumberOfConnections());
+      for (int i = 0; i < graph.getNumberOfConnections(); i++) {
+        int source = graph.getSource(i);
+        int target = graph.getTarget(i);
+        if (source < 0 || target < 0) {
+          continue;
+        }
+        int one = colors[source];
+        int two = colors[target];
+        String details = graph.getDetails(i);
+        String reverseDetails = graph.getReverseDetails(i);
+        if (one > two || (one == two && reverseDetails.compareTo(details) < 0)) {
+          connections.add(two + "," + one + "," + reverseDetails);
+        } else {
+          connections.add(one + "," + two + "," + details);
+        }
+      }
+      Collections.sort(connections);
+      return connections.toString();
+    }
+
+    /**
+     * method to check if the given polymer is the image of an already searched
+     * polymer under the found automorphisms which fix the path, or has the same
+     * neighbourhood as an already searched polymer
+     *
+     * @param polymer index of the polymer
+     * @param searched already searched polymers
+     * @param path individualized polymers
+     * @return true if the polymer can be skipped, false otherwise
+     */
+    private boolean isInOrbit(final int polymer, final List<Integer> searched, final List<Integer> path) {
+      if (searched.isEmpty()) {
+        return false;
+      }
+      for (int other : searched) {
+        if (neighbourhoods[other].equals(neighbourhoods[polymer])) {
+          return true;
+        }
+      }
+      if (automorphisms.isEmpty()) {
+        return false;
+      }
+      int[] parent = new int[bestOrder.length];
+      for (int i = 0; i < parent.length; i++) {
+        parent[i] = i;
+      }
+      for (int[] automorphism : automorphisms) {
+        boolean fixesPath = true;
+        for (int individualized : path) {
+          if (automorphism[individualized] != individualized) {
+            fixesPath = false;
+            break;
+          }
+        }
+        if (fixesPath) {
+          for (int i = 0; i < parent.length; i++) {
+            parent[root(parent, i)] = root(parent, automorphism[i]);
+          }
+        }
+      }
+      for (int other : searched) {
+        if (root(parent, other) == root(parent, polymer)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static int root(final int[] parent, int i) {
+      while (parent[i] != i) {
+        i = parent[i];
+      }
+      return i;
+    }
+  }
+
+  /**
+   * connection to a neighbour polymer
+   */
+  private static final class Edge {
+    private final String points;
+
+    private final int neighbour;
+
+    private Edge(final String points, final int neighbour) {
+      this.points = points;
+      this.neighbour = neighbour;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.helm.chemtoolkit.AbstractMolecule;
+import org.helm.chemtoolkit.CTKException;
+import org.helm.notation2.Chemistry;
+import org.helm.notation2.exception.ChemistryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * class to cache the parsed cap group fragments (leaving groups like [*][H]
+ * or O[*]) used to cap the unused R-groups of a molecule. Only a handful of
+ * different cap groups exist, so every fragment is parsed once by the
+ * chemistry plugin; every lookup returns a clone of the cached fragment.
+ *
+ * The cache is keyed by the SMILES of the cap group and the number of the
+ * R-group; it is bounded and evicts the least recently used fragment.
+ *
+ * @author hecht
+ */
+public final class CapFragmentCache {
+
+  /** The Logger for this class */
+  private static final Logger LOG = LoggerFactory.getLogger(CapFragmentCache.class);
+
+  /** maximal number of cached fragments */
+  public static final int MAX_ENTRIES = 256;
+
+  private static final Map<String, AbstractMolecule> FRAGMENTS = new LinkedHashMap<String, AbstractMolecule>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, AbstractMolecule> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  /**
+   * Default constructor.
+   */
+  private CapFragmentCache() {
+
+  }
+
+  /**
+   * method to get the fragment of the given cap group; the fragment is parsed
+   * on the first request and cloned on every further one
+   *
+   * @param smiles SMILES of the cap group
+   * @param groupId number of the R-group the cap group belongs to
+   * @return new fragment, the caller is free to merge it
+   * @throws IOException if the SMILES can't be read
+   * @throws CTKException if the fragment can't be built
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  public static AbstractMolecule get(final String smiles, final int groupId) throws IOException, CTKException, ChemistryException {
+    String key = groupId + ":" + smiles;
+    AbstractMolecule template;
+    synchronized (FRAGMENTS) {
+      template = FRAGMENTS.get(key);
+    }
+    if (template == null) {
+      LOG.debug("Parse cap group " + smiles + " of R" + groupId);
+      template = Chemistry.getInstance().getManipulator().getMolecule(smiles, null);
+      synchronized (FRAGMENTS) {
+        AbstractMolecule existing = FRAGMENTS.get(key);
+        if (existing == null) {
+          FRAGMENTS.put(key, template);
+        } else {
+          template = existing;
+        }
+      }
+    }
+    synchronized (template) {
+      return template.cloneMolecule();
+    }
+  }
+
+  /**
+   * method to remove all fragments
+   */
+  public static void clear() {
+    synchronized (FRAGMENTS) {
+      FRAGMENTS.clear();
+    }
+  }
+
+  /**
+   * method to get the number of cached fragments
+   *
+   * @return number of cached fragments
+   */
+  public static int size() {
+    synchronized (FRAGMENTS) {
+      return FRAGMENTS.size();
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.helm.notation2.parser.exceptionparser.HELM1ConverterException;
+import org.helm.notation2.parser.notation.connection.ConnectionNotation;
+
+/**
+ * ConnectionGraph, class to hold the connections of a HELMNotation between
+ * polymers addressed by their index in the list of polymers. The attachment
+ * points of every connection are resolved once, so the canonical connection
+ * section can be written for any order of the polymers by a lookup in an array
+ * of the new polymer ids.
+ *
+ * @author hecht
+ */
+final class ConnectionGraph {
+
+  private final int size;
+
+  private final int[] sources;
+
+  private final int[] targets;
+
+  private final String[] details;
+
+  private final String[] reverseDetails;
+
+  private final boolean[] helm1;
+
+  /**
+   * Constructs the graph of the given connections; connections to polymer ids
+   * which are not in the given list (e.g. groups) get the index -1
+   *
+   * @param ids ids of the polymers in the order of the input
+   * @param connections connections between the polymers
+   * @throws HELM1ConverterException if a connection can not be written in
+   *           HELM1
+   */
+  ConnectionGraph(final List<String> ids, final List<ConnectionNotation> connections) throws HELM1ConverterException {
+    this.size = ids.size();
+    Map<String, Integer> indexes = new HashMap<String, Integer>();
+    for (int i = 0; i < size; i++) {
+      indexes.put(ids.get(i), i);
+    }
+
+    int numberOfConnections = connections.size();
+    this.sources = new int[numberOfConnections];
+    this.targets = new int[numberOfConnections];
+    this.details = new String[numberOfConnections];
+    this.reverseDetails = new String[numberOfConnections];
+    this.helm1 = new boolean[numberOfConnections];
+    for (int i = 0; i < numberOfConnections; i++) {
+      ConnectionNotation connection = connections.get(i);
+      sources[i] = index(indexes, connection.getSourceId().getId());
+      targets[i] = index(indexes, connection.getTargetId().getId());
+      String sourcePoint = connection.getSourceUnit() + ":" + connection.getrGroupSource();
+      String targetPoint = connection.getTargetUnit() + ":" + connection.getrGroupTarget();
+      details[i] = sourcePoint + "-" + targetPoint;
+      reverseDetails[i] = targetPoint + "-" + sourcePoint;
+      /* pairs will be not shown */
+      helm1[i] = !connection.toHELM().equals("");
+    }
+  }
+
+  private static int index(final Map<String, Integer> indexes, final String id) {
+    Integer index = indexes.get(id);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * method to get the number of polymers
+   *
+   * @return number of polymers
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * method to get the number of connections
+   *
+   * @return number of connections
+   */
+  int getNumberOfConnections() {
+    return sources.length;
+  }
+
+  /**
+   * method to get the index of the source polymer of the given connection
+   *
+   * @param connection index of the connection
+   * @return index of the source polymer, -1 if it is not a polymer
+   */
+  int getSource(final int connection) {
+    return sources[connection];
+  }
+
+  /**
+   * method to get the index of the target polymer of the given connection
+   *
+   * @param connection index of the connection
+   * @return index of the target polymer, -1 if it is not a polymer
+   */
+  int getTarget(final int connection) {
+    return targets[connection];
+  }
+
+  /**
+   * method to get the attachment points of the given connection seen from the
+   * source polymer, e.g. 1:R3-5:R3
+   *
+   * @param connection index of the connection
+   * @return attachment points from source to target
+   */
+  String getDetails(final int connection) {
+    return details[connection];
+  }
+
+  /**
+   * method to get the attachment points of the given connection seen from the
+   * target polymer
+   *
+   * @param connection index of the connection
+   * @return attachment points from target to source
+   */
+  String getReverseDetails(final int connection) {
+    return reverseDetails[connection];
+  }
+
+  /**
+   * method to generate the canonical HELM 1 connection section; every
+   * connection is written in the direction with the smaller notation and the
+   * connections are sorted, so the section does not depend on the input order;
+   * pairs are not shown
+   *
+   * @param canonicalIds new id of every polymer, by index of the polymer
+   * @return second section of HELM
+   * @throws HELM1ConverterException if a connection does not connect two
+   *           polymers
+   */
+  String toCanonicalSection(final String[] canonicalIds) throws HELM1ConverterException {
+    List<String> connections = new ArrayList<String>(sources.length);
+    for (int i = 0; i < sources.length; i++) {
+      if (!helm1[i]) {
+        continue;
+      }
+      if (sources[i] < 0 || targets[i] < 0) {
+        throw new HELM1ConverterException("Connection can't be downgraded to HELM1-Format");
+      }
+      String source = canonicalIds[sources[i]];
+      String target = canonicalIds[targets[i]];
+      /* ids contain no comma, so the ids alone decide unless they are equal */
+      int compare = source.compareTo(target);
+      if (compare > 0 || (compare == 0 && reverseDetails[i].compareTo(details[i]) < 0)) {
+        connections.add(target + "," + source + "," + reverseDetails[i]);
+      } else {
+        connections.add(source + "," + target + "," + details[i]);
+      }
+    }
+    Collections.sort(connections);
+    StringBuilder notation = new StringBuilder();
+    for (String connection : connections) {
+      if (notation.length() > 0) {
+        notation.append('|');
+      }
+      notation.append(connection);
+    }
+    return notation.toString();
+  }
+}
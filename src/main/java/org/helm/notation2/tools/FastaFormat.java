@@ -24,12 +24,12 @@
 package org.helm.notation2.tools;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.helm.chemtoolkit.CTKException;
 import org.helm.notation2.Monomer;
@@ -40,7 +40,6 @@ import org.helm.notation2.NucleotideFactory;
 import org.helm.notation2.exception.AnalogSequenceException;
 import org.helm.notation2.exception.ChemistryException;
 import org.helm.notation2.exception.FastaFormatException;
-import org.helm.notation2.exception.HELM2HandledException;
 import org.helm.notation2.exception.MonomerException;
 import org.helm.notation2.exception.NucleotideLoadingException;
 import org.helm.notation2.parser.exceptionparser.NotationException;
@@ -69,18 +68,11 @@ import org.slf4j.LoggerFactory;
  */
 public final class FastaFormat {
 
-  private static HELM2Notation helm2notation = null;
-
   /** The Logger for this class */
   private static final Logger LOG = LoggerFactory.getLogger(FastaFormat.class);
 
-  private static Map<String, String> nucleotides = null;
-
-  private static Map<String, String> transformNucleotides = null;
-
-  private static Map<String, Monomer> nucleotidesNaturalAnalog = null;
-
-  private static Map<String, Monomer> aminoacids = null;
+  /** immutable lookup table of the current nucleotide templates */
+  private static volatile NucleotideTable nucleotideTable = null;
 
   /**
    * Default constructor.
@@ -100,48 +92,44 @@ public final class FastaFormat {
    * @throws ChemistryException
    */
   public static HELM2Notation generatePeptidePolymersFromFASTAFormatHELM1(String fasta) throws FastaFormatException, ChemistryException {
-    helm2notation = new HELM2Notation();
+    HELM2Notation helm2notation = new HELM2Notation();
     if (null == fasta) {
       LOG.error("Peptide Sequence must be specified");
       throw new FastaFormatException("Peptide Sequence must be specified");
     }
 
-    initMapAminoAcid();
-    StringBuilder elements = new StringBuilder();
-    int counter = 0;
+    FastaReader reader = new FastaReader(new StringReader(fasta));
+    try {
+      FastaReader.Record record;
+      while ((record = reader.readRecord()) != null) {
+        helm2notation.addPolymer(generatePeptidePolymerFromFastaRecord(record));
+      }
+    } catch (IOException e) {
+      throw new FastaFormatException(e.getMessage());
+    }
+
+    return helm2notation;
+  }
 
+  /**
+   * method to generate a peptide polymer from a single FASTA record; the
+   * polymer is named PEPTIDE followed by the number of the record - be careful
+   * -> it produces only polymers in the HELM1 standard, no ambiguity
+   *
+   * @param record FASTA record
+   * @return generated peptide polymer
+   * @throws FastaFormatException if the record is not correct
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   */
+  public static PolymerNotation generatePeptidePolymerFromFastaRecord(FastaReader.Record record) throws FastaFormatException, ChemistryException {
     PolymerNotation polymer;
     try {
-      polymer = new PolymerNotation("PEPTIDE" + "1");
+      polymer = new PolymerNotation("PEPTIDE" + record.getNumber());
     } catch (org.helm.notation2.parser.exceptionparser.NotationException e) {
       e.printStackTrace();
       throw new FastaFormatException(e.getMessage());
     }
-    String annotation = "";
-    for (String line : fasta.split("\n")) {
-      if (line.startsWith(">")) {
-        counter++;
-        if (counter > 1) {
-          helm2notation.addPolymer(new PolymerNotation(polymer.getPolymerID(),
-              generateElementsOfPeptide(elements.toString(), polymer.getPolymerID()), annotation));
-          elements = new StringBuilder();
-          try {
-            polymer = new PolymerNotation("PEPTIDE" + counter);
-          } catch (org.helm.notation2.parser.exceptionparser.NotationException e) {
-            e.printStackTrace();
-            throw new FastaFormatException(e.getMessage());
-          }
-        }
-        annotation = line.substring(1);
-      } else {
-        line = cleanup(line);
-        elements.append(line);
-      }
-    }
-    helm2notation.addPolymer(new PolymerNotation(polymer.getPolymerID(),
-        generateElementsOfPeptide(elements.toString(), polymer.getPolymerID()), annotation));
-
-    return helm2notation;
+    return new PolymerNotation(polymer.getPolymerID(), generateElementsOfPeptide(record.getSequence(), polymer.getPolymerID()), record.getAnnotation());
   }
 
   /**
@@ -158,118 +146,83 @@ public final class FastaFormat {
    * @throws ChemistryException
    */
   public static HELM2Notation generateRNAPolymersFromFastaFormatHELM1(String fasta) throws FastaFormatException, IOException, JDOMException, NotationException, ChemistryException {
-    helm2notation = new HELM2Notation();
+    HELM2Notation helm2notation = new HELM2Notation();
     if (null == fasta) {
       LOG.error("Nucleotide Sequence must be specified");
       throw new FastaFormatException("Nucleotide Sequence must be specified");
     }
 
-    /* initialize Map to get the information for nucleotides! */
-    initMapNucleotides();
     /* walk through the fastafile: it can contain more than one sequence */
-    StringBuilder elements = new StringBuilder();
-    int counter = 0;
-    PolymerNotation polymer;
-    try {
-      polymer = new PolymerNotation("RNA" + "1");
-    } catch (org.helm.notation2.parser.exceptionparser.NotationException e) {
-      e.printStackTrace();
-      throw new FastaFormatException(e.getMessage());
+    FastaReader reader = new FastaReader(new StringReader(fasta));
+    FastaReader.Record record;
+    while ((record = reader.readRecord()) != null) {
+      helm2notation.addPolymer(generateRNAPolymerFromFastaRecord(record));
     }
-    String annotation = "";
-    for (String line : fasta.split("\n")) {
-      if (line.startsWith(">")) {
-        counter++;
-        if (counter > 1) {
-          if (!(isNormalDirection(elements.toString()))) {
-            annotation += " 3'-5'";
-          }
-          helm2notation.addPolymer(new PolymerNotation(polymer.getPolymerID(),
-              generateElementsforRNA(elements.toString(), polymer.getPolymerID()), annotation));
-          elements = new StringBuilder();
-          try {
-            polymer = new PolymerNotation("RNA" + counter);
-          } catch (org.helm.notation2.parser.exceptionparser.NotationException e) {
-            e.printStackTrace();
-            throw new FastaFormatException(e.getMessage());
-          }
-
-        }
-        annotation = line.substring(1);
-      } else {
-        line = cleanup(line);
-        elements.append(line);
-      }
-
-    }
-    if (!(isNormalDirection(elements.toString()))) {
-      annotation += " 3'-5'";
-    }
-    helm2notation.addPolymer(new PolymerNotation(polymer.getPolymerID(),
-        generateElementsforRNA(elements.toString(), polymer.getPolymerID()), annotation));
 
     return helm2notation;
   }
 
   /**
-   * method to initialize map of existing nucleotides in the database
+   * method to generate a rna polymer from a single FASTA record; the polymer
+   * is named RNA followed by the number of the record - be careful -> it
+   * produces only polymers in the HELM1 standard, no ambiguity
    *
-   * @throws FastaFormatException if the NucleotideFactory can not be
-   *           initalialized
+   * @param record FASTA record
+   * @return generated rna polymer
+   * @throws FastaFormatException if the record is not correct
+   * @throws IOException
+   * @throws JDOMException
+   * @throws NotationException if the sequence contains unknown nucleotides
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
-  private static void initMapNucleotides() throws FastaFormatException {
+  public static PolymerNotation generateRNAPolymerFromFastaRecord(FastaReader.Record record) throws FastaFormatException, IOException, JDOMException, NotationException,
+      ChemistryException {
+    PolymerNotation polymer;
     try {
-      nucleotides = NucleotideFactory.getInstance().getNucleotideTemplates().get("HELM Notation");
-    } catch (IOException e) {
+      polymer = new PolymerNotation("RNA" + record.getNumber());
+    } catch (org.helm.notation2.parser.exceptionparser.NotationException e) {
       e.printStackTrace();
-      LOG.error("NucleotideFactory can not be initialized");
       throw new FastaFormatException(e.getMessage());
     }
-  }
-
-  /**
-   * method to initialize map of transform nucleotides
-   */
-  private static void initMapTransformNucleotides() {
-    transformNucleotides = new HashMap<String, String>();
-    for (Map.Entry e : nucleotides.entrySet()) {
-      transformNucleotides.put(e.getValue().toString(), e.getKey().toString());
+    String annotation = record.getAnnotation();
+    if (!(isNormalDirection(record.getSequence()))) {
+      annotation += " 3'-5'";
     }
+    return new PolymerNotation(polymer.getPolymerID(), generateElementsforRNA(record.getSequence(), polymer.getPolymerID()), annotation);
   }
 
   /**
-   * method to initialize map of existing nucleotides with the natural analog
-   * sequence in the database
+   * method to get the monomers of the given polymer type from the database
    *
-   * @throws FastaFormatException if the NucleotideFactory can not be
-   *           initialized
-   * @throws ChemistryException
+   * @param polymerType polymer type
+   * @return monomers of the polymer type by their id
+   * @throws FastaFormatException if the monomers can not be initialized
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
-  private static void initMapNucleotidesNaturalAnalog() throws FastaFormatException, ChemistryException {
+  private static Map<String, Monomer> getMonomers(String polymerType) throws FastaFormatException, ChemistryException {
     try {
-      nucleotidesNaturalAnalog = MonomerFactory.getInstance().getMonomerDB().get("RNA");
+      return MonomerFactory.getInstance().getMonomerDB().get(polymerType);
     } catch (IOException e) {
       e.printStackTrace();
-      LOG.error("Nucleotides can not be initialized");
+      LOG.error("Monomers of " + polymerType + " can not be initialized");
       throw new FastaFormatException(e.getMessage());
     }
   }
 
   /**
-   * method to initialize map of existing amino acids in the database
+   * method to get the lookup table for the given nucleotide templates; the
+   * table is built once and shared as long as the templates do not change
    *
-   * @throws FastaFormatException AminoAcids can not be initialized
-   * @throws ChemistryException
-   * @throws CTKException
+   * @param nucleotides nucleotide templates: symbol to notation
+   * @return lookup table
    */
-  private static void initMapAminoAcid() throws FastaFormatException, ChemistryException {
-    try {
-      aminoacids = MonomerFactory.getInstance().getMonomerDB().get("PEPTIDE");
-    } catch (IOException e) {
-      e.printStackTrace();
-      LOG.error("AminoAcids can not be initialized");
-      throw new FastaFormatException(e.getMessage());
+  private static NucleotideTable getNucleotideTable(Map<String, String> nucleotides) {
+    NucleotideTable table = nucleotideTable;
+    if (table == null || !table.isBuiltFrom(nucleotides)) {
+      table = new NucleotideTable(nucleotides);
+      nucleotideTable = table;
     }
+    return table;
   }
 
   /**
@@ -284,7 +237,6 @@ public final class FastaFormat {
    */
   protected static PolymerListElements generateElementsOfPeptide(String sequence, HELMEntity entity)
       throws FastaFormatException, ChemistryException {
-    initMapAminoAcid();
     sequence = cleanup(sequence);
     try {
       PolymerListElements elements = new PolymerListElements(entity);
@@ -320,8 +272,6 @@ public final class FastaFormat {
    */
   protected static PolymerListElements generateElementsforRNA(String sequence, HELMEntity entity)
       throws FastaFormatException, IOException, JDOMException, NotationException, ChemistryException {
-    initMapNucleotides();
-    initMapNucleotidesNaturalAnalog();
     PolymerListElements elements = new PolymerListElements(entity);
     sequence = cleanup(sequence);
     sequence = prepareSequence(sequence);
@@ -352,22 +302,25 @@ public final class FastaFormat {
       throw new NotationException("Sequence must be specified");
     }
     Map<String, Map<String, String>> templates = NucleotideFactory.getInstance().getNucleotideTemplates();
-    Map<String, String> nucleotides = null;
-    nucleotides = templates.get(NotationConstant.NOTATION_SOURCE);
-    Set<String> keySet = nucleotides.keySet();
+    NucleotideTable table = getNucleotideTable(templates.get(NotationConstant.NOTATION_SOURCE));
 
     // walk the sequence
     List<Nucleotide> l = new ArrayList<Nucleotide>();
     int pos = 0;
     while (pos < sequence.length()) {
       boolean found = false;
-      for (Iterator i = keySet.iterator(); i.hasNext();) {
-        String symbol = (String) i.next();
+      /* one letter symbol without longer alternatives */
+      String notation = table.getSingle(sequence.charAt(pos));
+      if (notation != null) {
+        l.add(new Nucleotide(sequence.substring(pos, pos + 1), notation));
+        pos++;
+        continue;
+      }
+      for (Map.Entry<String, String> e : table.symbols.entrySet()) {
+        String symbol = e.getKey();
         if (sequence.startsWith(symbol, pos)) {
           found = true;
-          String notation = nucleotides.get(symbol);
-          Nucleotide nuc = new Nucleotide(symbol, notation);
-          l.add(nuc);
+          l.add(new Nucleotide(symbol, e.getValue()));
           pos = pos + symbol.length();
           break;
         }
@@ -388,7 +341,7 @@ public final class FastaFormat {
    * @param sequence
    * @return cleaned sequence
    */
-  private static String cleanup(String sequence) {
+  static String cleanup(String sequence) {
     String result = sequence.replaceAll("\\s", ""); // remove all white
     // space
     if (result.equals(result.toLowerCase())) {
@@ -407,21 +360,14 @@ public final class FastaFormat {
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
   public static String generateFastaFromPeptidePolymer(List<PolymerNotation> polymers) throws FastaFormatException, ChemistryException {
-    initMapAminoAcid();
     StringBuilder fasta = new StringBuilder();
-    for (PolymerNotation polymer : polymers) {
-      String header = polymer.getPolymerID().getId();
-      if (polymer.getAnnotation() != null) {
-        header = polymer.getAnnotation();
-      }
-      fasta.append(">" + header + "\n");
-      try {
-        fasta.append(generateFastaFromPeptide(MethodsMonomerUtils.getListOfHandledMonomers(polymer.getListMonomers()))
-            + "\n");
-      } catch (HELM2HandledException e) {
-        e.printStackTrace();
-        throw new FastaFormatException(e.getMessage());
+    FastaWriter writer = new FastaWriter(fasta);
+    try {
+      for (PolymerNotation polymer : polymers) {
+        writer.writePeptidePolymer(polymer);
       }
+    } catch (IOException e) {
+      throw new FastaFormatException(e.getMessage());
     }
     return fasta.toString();
   }
@@ -451,20 +397,13 @@ public final class FastaFormat {
    */
   public static String generateFastaFromRNAPolymer(List<PolymerNotation> polymers) throws FastaFormatException, ChemistryException {
     StringBuilder fasta = new StringBuilder();
-    for (PolymerNotation polymer : polymers) {
-      String header = polymer.getPolymerID().getId();
-      if (polymer.getAnnotation() != null) {
-        header = polymer.getAnnotation();
-      }
-
-      fasta.append(">" + header + "\n");
-      try {
-        fasta.append(generateFastaFromRNA(MethodsMonomerUtils.getListOfHandledMonomers(polymer.getListMonomers()))
-            + "\n");
-      } catch (HELM2HandledException e) {
-        e.printStackTrace();
-        throw new FastaFormatException(e.getMessage());
+    FastaWriter writer = new FastaWriter(fasta);
+    try {
+      for (PolymerNotation polymer : polymers) {
+        writer.writeRNAPolymer(polymer);
       }
+    } catch (IOException e) {
+      throw new FastaFormatException(e.getMessage());
     }
     return fasta.toString();
   }
@@ -498,23 +437,13 @@ public final class FastaFormat {
    * @throws CTKException
    */
   public static String generateFasta(HELM2Notation helm2Notation2) throws FastaFormatException, ChemistryException {
-    List<PolymerNotation> polymersPeptides = new ArrayList<PolymerNotation>();
-    List<PolymerNotation> polymerNucleotides = new ArrayList<PolymerNotation>();
     StringBuilder fasta = new StringBuilder();
-    for (PolymerNotation polymer : helm2Notation2.getListOfPolymers()) {
-      if (polymer.getPolymerID() instanceof RNAEntity) {
-        polymerNucleotides.add(polymer);
-      }
-      if (polymer.getPolymerID() instanceof PeptideEntity) {
-        polymersPeptides.add(polymer);
-      }
+    try {
+      new FastaWriter(fasta).write(helm2Notation2);
+    } catch (IOException e) {
+      throw new FastaFormatException(e.getMessage());
     }
-
-    fasta.append(generateFastaFromPeptidePolymer(polymersPeptides));
-    fasta.append(generateFastaFromRNAPolymer(polymerNucleotides));
-
     return fasta.toString();
-
   }
 
   /**
@@ -529,18 +458,16 @@ public final class FastaFormat {
    * @throws CTKException
    */
   public static HELM2Notation convertIntoAnalogSequence(HELM2Notation helm2Notation) throws FastaFormatException, AnalogSequenceException, ChemistryException, CTKException {
-    initMapAminoAcid();
-    initMapNucleotides();
-    initMapNucleotidesNaturalAnalog();
-    initMapTransformNucleotides();
+    Map<String, Monomer> aminoacids = getMonomers("PEPTIDE");
+    Map<String, Monomer> nucleotides = getMonomers("RNA");
     /* transform/convert only the peptides + rnas into the analog sequence */
     List<PolymerNotation> polymers = helm2Notation.getListOfPolymers();
     for (int i = 0; i < helm2Notation.getListOfPolymers().size(); i++) {
       if (helm2Notation.getListOfPolymers().get(i).getPolymerID() instanceof RNAEntity) {
-        helm2Notation.getListOfPolymers().set(i, convertRNAIntoAnalogSequence(polymers.get(i)));
+        helm2Notation.getListOfPolymers().set(i, convertRNAIntoAnalogSequence(polymers.get(i), nucleotides));
       }
       if (helm2Notation.getListOfPolymers().get(i).getPolymerID() instanceof PeptideEntity) {
-        helm2Notation.getListOfPolymers().set(i, convertPeptideIntoAnalogSequence(polymers.get(i)));
+        helm2Notation.getListOfPolymers().set(i, convertPeptideIntoAnalogSequence(polymers.get(i), aminoacids));
       }
     }
 
@@ -552,15 +479,16 @@ public final class FastaFormat {
    * analogue sequence
    *
    * @param polymer PolymerNotation
+   * @param aminoacids peptide monomers of the database
    * @return PolymerNotation with the natural analogue sequence
    * @throws AnalogSequenceException if the natural analog sequence can not be
    *           produced
    */
-  private static PolymerNotation convertPeptideIntoAnalogSequence(PolymerNotation polymer) throws AnalogSequenceException {
+  private static PolymerNotation convertPeptideIntoAnalogSequence(PolymerNotation polymer, Map<String, Monomer> aminoacids) throws AnalogSequenceException {
 
     for (int i = 0; i < polymer.getPolymerElements().getListOfElements().size(); i++) {
       /* Change current MonomerNotation */
-      polymer.getPolymerElements().getListOfElements().set(i, generateMonomerNotationPeptide(polymer.getPolymerElements().getListOfElements().get(i)));
+      polymer.getPolymerElements().getListOfElements().set(i, generateMonomerNotationPeptide(polymer.getPolymerElements().getListOfElements().get(i), aminoacids));
     }
 
     return polymer;
@@ -571,10 +499,11 @@ public final class FastaFormat {
    * peptide sequence
    *
    * @param current MonomerNotation
+   * @param aminoacids peptide monomers of the database
    * @return MonomerNotation with the peptide natural analogue sequence
    * @throws AnalogSequenceException
    */
-  private static MonomerNotation generateMonomerNotationPeptide(MonomerNotation current) throws AnalogSequenceException {
+  private static MonomerNotation generateMonomerNotationPeptide(MonomerNotation current, Map<String, Monomer> aminoacids) throws AnalogSequenceException {
     MonomerNotation change = null;
     try {
       /* simple MonomerNotationUnit */
@@ -641,22 +570,23 @@ public final class FastaFormat {
    * method to change the MonomerNotation in its analogue
    *
    * @param current MonomerNotation
+   * @param nucleotides rna monomers of the database
    * @return its analogue MonomerNotation
    * @throws AnalogSequenceException
    */
-  private static MonomerNotation generateMonomerNotationRNA(MonomerNotation current) throws AnalogSequenceException {
+  private static MonomerNotation generateMonomerNotationRNA(MonomerNotation current, Map<String, Monomer> nucleotides) throws AnalogSequenceException {
     MonomerNotation change = null;
     try {
       /* simple MonomerNotationUnit */
 
       if (current instanceof MonomerNotationUnit) {
-        change = new MonomerNotationUnit(changeIdForRNA(current), current.getType());
+        change = new MonomerNotationUnit(changeIdForRNA(current, nucleotides), current.getType());
       } else if (current instanceof MonomerNotationGroup) {
         if (current instanceof MonomerNotationGroupOr) {
           StringBuilder sb = new StringBuilder();
           for (MonomerNotationGroupElement element : ((MonomerNotationGroup) current).getListOfElements()) {
 
-            sb.append(changeIdForRNA(element.getMonomerNotation()) + ",");
+            sb.append(changeIdForRNA(element.getMonomerNotation(), nucleotides) + ",");
           }
           sb.setLength(sb.length() - 1);
           change = new MonomerNotationList(sb.toString(), current.getType());
@@ -664,7 +594,7 @@ public final class FastaFormat {
         } else if (current instanceof MonomerNotationGroupMixture) {
           StringBuilder sb = new StringBuilder();
           for (MonomerNotationGroupElement element : ((MonomerNotationGroup) current).getListOfElements()) {
-            sb.append(changeIdForRNA(element.getMonomerNotation()) + "+");
+            sb.append(changeIdForRNA(element.getMonomerNotation(), nucleotides) + "+");
           }
           sb.setLength(sb.length() - 1);
           change = new MonomerNotationList(sb.toString(), current.getType());
@@ -677,7 +607,7 @@ public final class FastaFormat {
       } else if (current instanceof MonomerNotationList) {
         StringBuilder sb = new StringBuilder();
         for (MonomerNotation element : ((MonomerNotationList) current).getListofMonomerUnits()) {
-          sb.append(changeIdForRNA(element) + ".");
+          sb.append(changeIdForRNA(element, nucleotides) + ".");
         }
         sb.setLength(sb.length() - 1);
         change = new MonomerNotationList(sb.toString(), current.getType());
@@ -706,15 +636,16 @@ public final class FastaFormat {
    * analogue sequence
    *
    * @param polymer PolymerNotation
+   * @param nucleotides rna monomers of the database
    * @return PolymerNotation with its natural analogue sequence
    * @throws AnalogSequenceException if the natural analogues MonomerNotations
    *           can not be built
    */
-  private static PolymerNotation convertRNAIntoAnalogSequence(PolymerNotation polymer) throws AnalogSequenceException {
+  private static PolymerNotation convertRNAIntoAnalogSequence(PolymerNotation polymer, Map<String, Monomer> nucleotides) throws AnalogSequenceException {
 
     /* change only if it is possible */
     for (int i = 0; i < polymer.getListMonomers().size(); i++) {
-      polymer.getPolymerElements().getListOfElements().set(i, generateMonomerNotationRNA(polymer.getPolymerElements().getListOfElements().get(i)));
+      polymer.getPolymerElements().getListOfElements().set(i, generateMonomerNotationRNA(polymer.getPolymerElements().getListOfElements().get(i), nucleotides));
     }
 
     return polymer;
@@ -724,14 +655,15 @@ public final class FastaFormat {
    * method to get the natural analogue sequence of a MonomerNotation
    *
    * @param monomerNotation MonomerNotation
+   * @param nucleotides rna monomers of the database
    * @return natural analogue sequence of MonomerNotation
    */
-  private static String changeIdForRNA(MonomerNotation monomerNotation) {
+  private static String changeIdForRNA(MonomerNotation monomerNotation, Map<String, Monomer> nucleotides) {
     if (monomerNotation instanceof MonomerNotationUnitRNA) {
       StringBuilder changeid = new StringBuilder();
 
       for (MonomerNotation not : ((MonomerNotationUnitRNA) monomerNotation).getContents()) {
-        Monomer monomer = nucleotidesNaturalAnalog.get(not.getUnit().replace("[", "").replace("]", ""));
+        Monomer monomer = nucleotides.get(not.getUnit().replace("[", "").replace("]", ""));
         String id = monomer.getNaturalAnalog();
         if (monomer.getMonomerType().equals(Monomer.BRANCH_MOMONER_TYPE)) {
           id = "(" + id + ")";
@@ -740,7 +672,7 @@ public final class FastaFormat {
       }
       return changeid.toString();
     } else {
-      Monomer monomer = nucleotidesNaturalAnalog.get(monomerNotation.getUnit().replace("[", "").replace("]", ""));
+      Monomer monomer = nucleotides.get(monomerNotation.getUnit().replace("[", "").replace("]", ""));
       String id = monomer.getNaturalAnalog();
       if (monomer.getMonomerType().equals(Monomer.BRANCH_MOMONER_TYPE)) {
         id = "(" + id + ")";
@@ -776,4 +708,44 @@ public final class FastaFormat {
     return result;
   }
 
+  /**
+   * immutable lookup table of the nucleotide templates: one letter symbols
+   * without longer alternatives are found by a char indexed array, all others
+   * by walking the symbols in the order of the templates
+   */
+  private static final class NucleotideTable {
+    private final Map<String, String> source;
+
+    private final int sourceSize;
+
+    private final Map<String, String> symbols;
+
+    private final String[] single = new String[128];
+
+    private NucleotideTable(Map<String, String> nucleotides) {
+      this.source = nucleotides;
+      this.sourceSize = nucleotides.size();
+      this.symbols = Collections.unmodifiableMap(new LinkedHashMap<String, String>(nucleotides));
+      int[] count = new int[single.length];
+      for (String symbol : symbols.keySet()) {
+        if (symbol.length() > 0 && symbol.charAt(0) < single.length) {
+          count[symbol.charAt(0)]++;
+        }
+      }
+      for (Map.Entry<String, String> e : symbols.entrySet()) {
+        String symbol = e.getKey();
+        if (symbol.length() == 1 && symbol.charAt(0) < single.length && count[symbol.charAt(0)] == 1) {
+          single[symbol.charAt(0)] = e.getValue();
+        }
+      }
+    }
+
+    private boolean isBuiltFrom(Map<String, String> nucleotides) {
+      return source == nucleotides && sourceSize == nucleotides.size();
+    }
+
+    private String getSingle(char symbol) {
+      return (symbol < single.length) ? single[symbol] : null;
+    }
+  }
 }
@@ -0,0 +1,150 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * FastaReader, class to read a FASTA input record by record; only the record
+ * currently read is kept in memory, so FASTA files of any size can be
+ * converted. The records are independent of each other and can be converted
+ * into polymers with
+ * {@link FastaFormat#generatePeptidePolymerFromFastaRecord(FastaReader.Record)}
+ * or {@link FastaFormat#generateRNAPolymerFromFastaRecord(FastaReader.Record)}
+ * in any thread.
+ *
+ * Lines before the first header belong to the first record, an input without
+ * any header is read as one record without annotation.
+ *
+ * @author hecht
+ */
+public final class FastaReader implements Closeable {
+
+  private final BufferedReader reader;
+
+  /** header line of the next record, null if the next record has no header */
+  private String pendingHeader;
+
+  private int number;
+
+  private boolean finished;
+
+  /**
+   * Constructs a FastaReader for the given input
+   *
+   * @param reader FASTA input
+   */
+  public FastaReader(final Reader reader) {
+    this.reader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+  }
+
+  /**
+   * method to read the next record of the input
+   *
+   * @return next record, null if the input is completely read
+   * @throws IOException if the input can not be read
+   */
+  public Record readRecord() throws IOException {
+    if (finished) {
+      return null;
+    }
+    String annotation = (pendingHeader == null) ? "" : pendingHeader.substring(1);
+    StringBuilder sequence = new StringBuilder();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.startsWith(">")) {
+        if (pendingHeader == null && number == 0) {
+          /* first header: the lines read so far belong to its record */
+          pendingHeader = line;
+          annotation = line.substring(1);
+          continue;
+        }
+        pendingHeader = line;
+        return new Record(++number, annotation, sequence.toString());
+      }
+      sequence.append(FastaFormat.cleanup(line));
+    }
+    finished = true;
+    return new Record(++number, annotation, sequence.toString());
+  }
+
+  /**
+   * method to close the underlying input
+   *
+   * @throws IOException if the input can not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * single FASTA record: the header without the leading &gt; and the cleaned
+   * sequence
+   */
+  public static final class Record {
+    private final int number;
+
+    private final String annotation;
+
+    private final String sequence;
+
+    private Record(final int number, final String annotation, final String sequence) {
+      this.number = number;
+      this.annotation = annotation;
+      this.sequence = sequence;
+    }
+
+    /**
+     * method to get the position of the record in the input, starting with 1
+     *
+     * @return position of the record
+     */
+    public int getNumber() {
+      return number;
+    }
+
+    /**
+     * method to get the header of the record
+     *
+     * @return header without the leading &gt;, empty if the record has no
+     *         header
+     */
+    public String getAnnotation() {
+      return annotation;
+    }
+
+    /**
+     * method to get the sequence of the record
+     *
+     * @return sequence without white space
+     */
+    public String getSequence() {
+      return sequence;
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.helm.notation2.Monomer;
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.FastaFormatException;
+import org.helm.notation2.exception.HELM2HandledException;
+import org.helm.notation2.parser.notation.HELM2Notation;
+import org.helm.notation2.parser.notation.polymer.PeptideEntity;
+import org.helm.notation2.parser.notation.polymer.PolymerNotation;
+import org.helm.notation2.parser.notation.polymer.RNAEntity;
+
+/**
+ * FastaWriter, class to write HELMNotations as FASTA records to an Appendable
+ * (e.g. a Writer); every record is written as soon as it is converted, so the
+ * FASTA of large collections never has to be kept in memory as a whole. The
+ * sequence lines can be wrapped at a fixed width.
+ *
+ * @author hecht
+ */
+public final class FastaWriter {
+
+  /** maximal number of notations converted ahead of the written one */
+  public static final int MAX_PENDING_NOTATIONS = 64;
+
+  private final Appendable out;
+
+  private final int lineWidth;
+
+  /**
+   * Constructs a FastaWriter writing every sequence in one line
+   *
+   * @param out output
+   */
+  public FastaWriter(final Appendable out) {
+    this(out, 0);
+  }
+
+  /**
+   * Constructs a FastaWriter wrapping the sequences at the given width
+   *
+   * @param out output
+   * @param lineWidth maximal number of residues per sequence line, 0 to write
+   *          every sequence in one line
+   */
+  public FastaWriter(final Appendable out, final int lineWidth) {
+    if (lineWidth < 0) {
+      throw new IllegalArgumentException("Line width must not be negative: " + lineWidth);
+    }
+    this.out = out;
+    this.lineWidth = lineWidth;
+  }
+
+  /**
+   * method to write the FASTA records of all peptides and rnas of the given
+   * HELMNotation; peptides are written first
+   *
+   * @param helm2notation HELMNotation
+   * @throws FastaFormatException if a polymer can not be transformed to FASTA
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   * @throws IOException if the output can not be written
+   */
+  public void write(final HELM2Notation helm2notation) throws FastaFormatException, ChemistryException, IOException {
+    for (PolymerNotation polymer : helm2notation.getListOfPolymers()) {
+      if (polymer.getPolymerID() instanceof PeptideEntity) {
+        writePeptidePolymer(polymer);
+      }
+    }
+    for (PolymerNotation polymer : helm2notation.getListOfPolymers()) {
+      if (polymer.getPolymerID() instanceof RNAEntity) {
+        writeRNAPolymer(polymer);
+      }
+    }
+  }
+
+  /**
+   * method to write the FASTA records of all given HELMNotations in their
+   * order; the notations are converted concurrently on the given executor,
+   * at most {@link #MAX_PENDING_NOTATIONS} ahead of the notation written
+   *
+   * @param notations HELMNotations
+   * @param executor executor to convert the notations, null to convert them
+   *          in the calling thread
+   * @throws FastaFormatException if a polymer can not be transformed to FASTA
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   * @throws IOException if the output can not be written
+   */
+  public void writeAll(final List<HELM2Notation> notations, final ExecutorService executor) throws FastaFormatException, ChemistryException, IOException {
+    if (executor == null) {
+      for (HELM2Notation helm2notation : notations) {
+        write(helm2notation);
+      }
+      return;
+    }
+
+    Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+    try {
+      int next = 0;
+      while (next < notations.size() || !pending.isEmpty()) {
+        while (next < notations.size() && pending.size() < MAX_PENDING_NOTATIONS) {
+          final HELM2Notation helm2notation = notations.get(next++);
+          pending.add(executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+              StringBuilder sb = new StringBuilder();
+              new FastaWriter(sb, lineWidth).write(helm2notation);
+              return sb.toString();
+            }
+          }));
+        }
+        out.append(getResult(pending.poll()));
+      }
+    } finally {
+      for (Future<String> future : pending) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * method to write the FASTA record of a peptide polymer
+   *
+   * @param polymer peptide PolymerNotation
+   * @throws FastaFormatException if the peptide can not be transformed to
+   *           FASTA
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   * @throws IOException if the output can not be written
+   */
+  public void writePeptidePolymer(final PolymerNotation polymer) throws FastaFormatException, ChemistryException, IOException {
+    writeRecord(getHeader(polymer), FastaFormat.generateFastaFromPeptide(getMonomers(polymer)));
+  }
+
+  /**
+   * method to write the FASTA record of a rna polymer
+   *
+   * @param polymer rna PolymerNotation
+   * @throws FastaFormatException if the rna can not be transformed to FASTA
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   * @throws IOException if the output can not be written
+   */
+  public void writeRNAPolymer(final PolymerNotation polymer) throws FastaFormatException, ChemistryException, IOException {
+    writeRecord(getHeader(polymer), FastaFormat.generateFastaFromRNA(getMonomers(polymer)));
+  }
+
+  /**
+   * method to write a single FASTA record
+   *
+   * @param header header of the record, without the leading &gt;
+   * @param sequence sequence of the record
+   * @throws IOException if the output can not be written
+   */
+  public void writeRecord(final String header, final String sequence) throws IOException {
+    out.append('>').append(header).append('\n');
+    if (lineWidth == 0 || sequence.length() <= lineWidth) {
+      out.append(sequence).append('\n');
+      return;
+    }
+    for (int start = 0; start < sequence.length(); start += lineWidth) {
+      out.append(sequence, start, Math.min(start + lineWidth, sequence.length())).append('\n');
+    }
+  }
+
+  private static String getHeader(final PolymerNotation polymer) {
+    if (polymer.getAnnotation() != null) {
+      return polymer.getAnnotation();
+    }
+    return polymer.getPolymerID().getId();
+  }
+
+  private static List<Monomer> getMonomers(final PolymerNotation polymer) throws FastaFormatException, ChemistryException {
+    try {
+      return MethodsMonomerUtils.getListOfHandledMonomers(polymer.getListMonomers());
+    } catch (HELM2HandledException e) {
+      e.printStackTrace();
+      throw new FastaFormatException(e.getMessage());
+    }
+  }
+
+  private static String getResult(final Future<String> future) throws FastaFormatException, ChemistryException, IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new FastaFormatException("FASTA export was interrupted");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof FastaFormatException) {
+        throw (FastaFormatException) cause;
+      } else if (cause instanceof ChemistryException) {
+        throw (ChemistryException) cause;
+      } else if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new FastaFormatException(cause.getMessage());
+    }
+  }
+}
@@ -23,14 +23,10 @@
  */
 package org.helm.notation2.tools;
 
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
 
 import org.helm.chemtoolkit.AbstractChemistryManipulator;
 import org.helm.chemtoolkit.CTKException;
@@ -46,6 +42,11 @@ import org.helm.notation2.parser.exceptionparser.HELM1ConverterException;
 import org.helm.notation2.parser.notation.HELM2Notation;
 import org.helm.notation2.parser.notation.annotation.AnnotationNotation;
 import org.helm.notation2.parser.notation.connection.ConnectionNotation;
+import org.helm.notation2.parser.notation.polymer.BlobEntity;
+import org.helm.notation2.parser.notation.polymer.GroupEntity;
+import org.helm.notation2.parser.notation.polymer.MonomerNotation;
+import org.helm.notation2.parser.notation.polymer.MonomerNotationUnit;
+import org.helm.notation2.parser.notation.polymer.MonomerNotationUnitRNA;
 import org.helm.notation2.parser.notation.polymer.PolymerNotation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -115,9 +116,7 @@ public final class HELM1Utils {
       String elementsToHELM = polymer.getPolymerElements().toHELM();
       Map<String, String> adHocList = findAdHocMonomers(elementsToHELM, polymer.getPolymerID().getType());
       Map<String, String> convert = convertAdHocMonomersIntoSMILES(adHocList);
-      for (Map.Entry<String, String> e : convert.entrySet()) {
-        elementsToHELM = elementsToHELM.replaceAll(e.getKey(), e.getValue());
-      }
+      elementsToHELM = replaceAdHocMonomers(elementsToHELM, convert, true);
       notation.append(id + "{" + elementsToHELM + "}" + "|");
     }
 
@@ -176,6 +175,63 @@ public final class HELM1Utils {
     return sb.toString();
   }
 
+  /**
+   * method to check if the given helm2notation contains features which can not
+   * be expressed in HELM1: groupings, blobs, connections of groups, lists and
+   * groups of monomers, counts, annotated and unknown monomers; it allows to
+   * decide without an exception if a canonical HELM1 can be generated
+   *
+   * @param helm2notation input HELM2Notation
+   * @return true if HELM2 features are there, false otherwise
+   */
+  public static boolean containsHELM2Features(HELM2Notation helm2notation) {
+    if (!helm2notation.getListOfGroupings().isEmpty()) {
+      return true;
+    }
+    for (ConnectionNotation connection : helm2notation.getListOfConnections()) {
+      if (connection.getSourceId() instanceof GroupEntity || connection.getTargetId() instanceof GroupEntity) {
+        return true;
+      }
+    }
+    for (PolymerNotation polymer : helm2notation.getListOfPolymers()) {
+      if (polymer.getPolymerID() instanceof BlobEntity) {
+        return true;
+      }
+      for (MonomerNotation monomerNotation : polymer.getPolymerElements().getListOfElements()) {
+        if (containsHELM2Features(monomerNotation)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * method to check if the given monomer notation can not be expressed in HELM1
+   *
+   * @param monomerNotation MonomerNotation
+   * @return true if HELM2 features are there, false otherwise
+   */
+  private static boolean containsHELM2Features(MonomerNotation monomerNotation) {
+    if (!"1".equals(monomerNotation.getCount()) || monomerNotation.isAnnotationTrue()) {
+      return true;
+    }
+    if (monomerNotation instanceof MonomerNotationUnitRNA) {
+      for (MonomerNotationUnit unit : ((MonomerNotationUnitRNA) monomerNotation).getContents()) {
+        if (containsHELM2Features(unit)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (monomerNotation instanceof MonomerNotationUnit) {
+      String unit = monomerNotation.getUnit();
+      return unit.equals("?") || unit.equals("_");
+    }
+    /* lists and groups of monomers */
+    return true;
+  }
+
   /**
    * method to generate from a helm2notation a valid canonical HELM1
    *
@@ -186,16 +242,20 @@ public final class HELM1Utils {
    * @throws NotationException if the notation objects can not be built
    */
   public static String getCanonical(HELM2Notation helm2notation) throws HELM1FormatException, ChemistryException {
-    Map<String, String> convertsortedIdstoIds;
     try {
-      Object[] temp = setCanonicalHELMFirstSection(helm2notation);
-      LOG.info("First Section of canonical HELM was generated");
-      convertsortedIdstoIds = (Map<String, String>) temp[0];
+      List<String> ids = new ArrayList<String>();
+      for (PolymerNotation polymer : helm2notation.getListOfPolymers()) {
+        ids.add(polymer.getPolymerID().getId());
+      }
+      ConnectionGraph graph = new ConnectionGraph(ids, helm2notation.getListOfConnections());
+      Object[] temp = setCanonicalHELMFirstSection(helm2notation, graph);
+      LOG.debug("First Section of canonical HELM was generated");
+      String[] canonicalIds = (String[]) temp[0];
       String firstSection = (String) temp[1];
-      String secondSection = setCanonicalHELMSecondSection(convertsortedIdstoIds, helm2notation.getListOfConnections());
-      LOG.info("Second Section of canonical HELM was generated");
+      String secondSection = graph.toCanonicalSection(canonicalIds);
+      LOG.debug("Second Section of canonical HELM was generated");
       return firstSection + "$" + secondSection + "$" + "" + "$" + "" + "$V2.0";
-    } catch (ClassNotFoundException | IOException | HELM1ConverterException | ValidationException | org.helm.notation2.parser.exceptionparser.NotationException e) {
+    } catch (HELM1ConverterException | ValidationException | org.helm.notation2.parser.exceptionparser.NotationException e) {
       e.printStackTrace();
       LOG.error("Canonical HELM 1 can not be generated due to HELM2 features");
       throw new HELM1FormatException("Canonical HELM 1 can not be generated due to HELM2 features " + e.getMessage() + e.getCause());
@@ -206,152 +266,67 @@ public final class HELM1Utils {
    * method to convert the first section into canonical first section
    *
    * @param helm2notation HELM2Notation
-   * @return an Object containing in the first place a Map of converted ids and
-   *         in the second place the firstSection
-   * @throws IOException
+   * @param graph connections between the polymers of the HELM2Notation
+   * @return an Object containing in the first place the new id of every
+   *         polymer, by index of the polymer, and in the second place the
+   *         firstSection
    * @throws HELM1ConverterException if there were HELM2 features in the
    *           HELMNotation
    * @throws HELM1FormatException if the adHocMonomers can not be found
-   * @throws ClassNotFoundException
    * @throws ValidationException if a smiles as monomer is not valid
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    * @throws org.helm.notation2.parser.exceptionparser.NotationException
    */
-  private static Object[] setCanonicalHELMFirstSection(HELM2Notation helm2notation) throws HELM1ConverterException, HELM1FormatException, ClassNotFoundException, IOException, ValidationException,
-      ChemistryException, org.helm.notation2.parser.exceptionparser.NotationException {
-    Map<String, String> idLabelMap = new HashMap<String, String>();
-    Map<String, List<String>> labelIdMap = new TreeMap<String, List<String>>();
+  private static Object[] setCanonicalHELMFirstSection(HELM2Notation helm2notation, ConnectionGraph graph) throws HELM1ConverterException, HELM1FormatException,
+      ValidationException, ChemistryException, org.helm.notation2.parser.exceptionparser.NotationException {
+    List<PolymerNotation> polymers = helm2notation.getListOfPolymers();
+    String[] labels = new String[polymers.size()];
 
-    for (PolymerNotation polymer : helm2notation.getListOfPolymers()) {
-      String id = polymer.getPolymerID().getId();
+    for (int i = 0; i < labels.length; i++) {
+      PolymerNotation polymer = polymers.get(i);
       String elementsToHELM = polymer.getPolymerElements().toHELM();
       Map<String, String> adHocList = findAdHocMonomers(elementsToHELM, polymer.getPolymerID().getType());
       Map<String, String> convert = convertAdHocMonomersIntoSMILES(adHocList);
-      for (Map.Entry<String, String> e : convert.entrySet()) {
-        elementsToHELM = elementsToHELM.replaceAll(e.getKey(), e.getValue());
-      }
-
-      elementsToHELM = elementsToHELM.replace("[", "");
-      elementsToHELM = elementsToHELM.replace("]", "");
-      idLabelMap.put(id, elementsToHELM);
-      if (labelIdMap.containsKey(elementsToHELM)) {
-        List<String> l = labelIdMap.get(elementsToHELM);
-        l.add(id);
-      } else {
-        List<String> l = new ArrayList<String>();
-        l.add(id);
-        labelIdMap.put(elementsToHELM, l);
-      }
-    }
-
-    Set<String> sortedLabelSet = labelIdMap.keySet();
-    List<List<String[]>> lol = new ArrayList<List<String[]>>();
-    for (String key : sortedLabelSet) {
-      List<String> value = labelIdMap.get(key);
-      List<String[]> al = new ArrayList<String[]>();
-      al.add(value.toArray(new String[0]));
-      PermutationAndExpansion.expand(lol, al);
-    }
-
-    List<List<String>> nodeIdPermutations = PermutationAndExpansion.linearize(lol);
-    List<String> notationList = new ArrayList<String>();
-    Map<String, String> convertsortedIdstoIds = new HashMap<String, String>();
-    for (List<String> sortedIdList : nodeIdPermutations) {
-
-      String notation = "";
-      int countCHEM = 0;
-      int countPEPTIDE = 0;
-      int countRNA = 0;
-      for (String id : sortedIdList) {
-
-        int count = 0;
-        if (helm2notation.getPolymerNotation(id).getPolymerID().getType().equals("PEPTIDE")) {
-          countPEPTIDE += 1;
-          count = countPEPTIDE;
-        }
-        if (helm2notation.getPolymerNotation(id).getPolymerID().getType().equals("CHEM")) {
-          countCHEM += 1;
-          count = countCHEM;
-        }
-        if (helm2notation.getPolymerNotation(id).getPolymerID().getType().equals("RNA")) {
-          countRNA += 1;
-          count = countRNA;
-        }
-
-        notation = notation + helm2notation.getPolymerNotation(id).getPolymerID().getType() + count + "{" + helm2notation.getPolymerNotation(id).toHELM() + "}|";
-        convertsortedIdstoIds.put(helm2notation.getPolymerNotation(id).getPolymerID().getId(), helm2notation.getPolymerNotation(id).getPolymerID().getType() + count);
-
-      }
-
-      notation = notation.substring(0, notation.length() - 1);
-      notationList.add(notation);
+      labels[i] = replaceAdHocMonomers(elementsToHELM, convert, false);
     }
 
-    Collections.sort(notationList);
-    return new Object[] {convertsortedIdstoIds, notationList.get(0)};
-  }
-
-  /**
-   * method to generate a canonical HELM 1 connection section
-   *
-   * @param convertsortedIdstoIds Map of old ids with the equivalent new ids
-   * @return second section of HELM
-   * @throws HELM1ConverterException
-   */
-  private static String setCanonicalHELMSecondSection(Map<String, String> convertsortedIdstoIds, List<ConnectionNotation> connectionNotations) throws HELM1ConverterException {
+    /* polymers ordered by label, identical ones by their connections */
+    int[] order = CanonicalPolymerOrder.sort(labels, graph);
+    String[] canonicalIds = new String[labels.length];
     StringBuilder notation = new StringBuilder();
-    for (ConnectionNotation connectionNotation : connectionNotations) {
-      /* canonicalize connection */
-      /* change the id's of the polymers to the sorted ids */
-      List<String> connections = new ArrayList<String>();
-      String source = connectionNotation.getSourceId().getId();
-      String target = connectionNotation.getTargetId().getId();
-
-      /* pairs will be not shown */
-      if (!(connectionNotation.toHELM().equals(""))) {
-        connections.add(convertConnection(connectionNotation.toHELM(), source, target, convertsortedIdstoIds));
-        connections.add(convertConnection(connectionNotation.toReverseHELM(), source, target, convertsortedIdstoIds));
-        Collections.sort(connections);
-        notation.append(connections.get(0) + "|");
+    int countCHEM = 0;
+    int countPEPTIDE = 0;
+    int countRNA = 0;
+    for (int index : order) {
+      PolymerNotation polymer = polymers.get(index);
+      int count = 0;
+      if (polymer.getPolymerID().getType().equals("PEPTIDE")) {
+        countPEPTIDE += 1;
+        count = countPEPTIDE;
+      }
+      if (polymer.getPolymerID().getType().equals("CHEM")) {
+        countCHEM += 1;
+        count = countCHEM;
+      }
+      if (polymer.getPolymerID().getType().equals("RNA")) {
+        countRNA += 1;
+        count = countRNA;
       }
-    }
-    if (notation.length() > 1) {
-      notation.setLength(notation.length() - 1);
-    }
-    return notation.toString();
-  }
 
-  /**
-   * method to convert the polymers ids of the connection
-   *
-   * @param notation connection description in HELM
-   * @param source polymer id of source
-   * @param target polymer id of target
-   * @param convertIds Map of old polymer ids with the new polymer ids
-   * @return connection description in HELM with the changed polymer ids
-   *         according to the map
-   * @throws HELM1ConverterException
-   */
-  private static String convertConnection(String notation, String source, String target, Map<String, String> convertIds) throws HELM1ConverterException {
-    try {
-      String test = notation.replace(source, "one");
-      test = test.replace(target, "two");
-      test = test.replace("one", convertIds.get(source));
-      test = test.replace("two", convertIds.get(target));
-      return test;
-    } catch (NullPointerException ex) {
-      ex.printStackTrace();
-      LOG.error("Connection can't be downgraded to HELM1-Format");
-      throw new HELM1ConverterException("Connection can't be downgraded to HELM1-Format");
+      notation.append(polymer.getPolymerID().getType() + count + "{" + polymer.toHELM() + "}|");
+      canonicalIds[index] = polymer.getPolymerID().getType() + count;
     }
+
+    notation.setLength(notation.length() - 1);
+    return new Object[] {canonicalIds, notation.toString()};
   }
 
   /**
    * method to find all adhocMonomers in one Polymer
    *
    * @param elements HELM representation of polymer elements
-   * @return HELM representation of polymer elements with the smiles
-   *         representation for adhoc monomers
+   * @param type polymer type
+   * @return Map of the ids of the adhocMonomers with their SMILES
    * @throws HELM1FormatException if the monomers can not be converted to the ad
    *           hoc monomer representation
    * @throws ValidationException if the smiles representation of a monomer is
@@ -369,7 +344,7 @@ public final class HELM1Utils {
     try {
       Map<String, String> listMatches = new HashMap<String, String>();
       String[] listelements = elements.split("\\.");
-      if (type == "RNA") {
+      if (type.equals("RNA")) {
         for (String element : listelements) {
           List<String> monomerIds;
           monomerIds = NucleotideParser.getMonomerIDListFromNucleotide(element);
@@ -378,7 +353,7 @@ public final class HELM1Utils {
 
             Monomer monomer = MonomerFactory.getInstance().getMonomerStore().getMonomer(type, id);
             if (monomer.isAdHocMonomer()) {
-              listMatches.put(element, "[" + monomer.getCanSMILES() + "]");
+              listMatches.put(withoutBrackets(id), monomer.getCanSMILES());
 
             }
           }
@@ -386,10 +361,11 @@ public final class HELM1Utils {
 
       } else {
         for (String element : listelements) {
-          Monomer monomer = MonomerFactory.getInstance().getMonomerStore().getMonomer(type, element.replace("[", "").replace("]", ""));
+          String id = element.replace("[", "").replace("]", "");
+          Monomer monomer = MonomerFactory.getInstance().getMonomerStore().getMonomer(type, id);
           try {
             if (monomer.isAdHocMonomer()) {
-              listMatches.put(element, "[" + monomer.getCanSMILES() + "]");
+              listMatches.put(withoutBrackets(element), monomer.getCanSMILES());
             }
           } catch (NullPointerException e) {
             if (!(Chemistry.getInstance().getManipulator().validateSMILES(element.substring(1, element.length() - 1)))) {
@@ -410,31 +386,96 @@ public final class HELM1Utils {
   /**
    * method to translate/convert the adhocMonomers into valid SMILES
    *
-   * @param monomersList Map of adhocMonomers with the type and the alternate
-   *          monomer id SMILES
+   * @param monomersList Map of adhocMonomers with the monomer alternate id and
+   *          the SMILES
    * @return Map of adhocMonomers with the monomer alternate id and the
-   *         appropriate SMILES
+   *         appropriate canonical SMILES
    * @throws HELM1FormatException if the SMILES for the Monomer can not be found
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
   private static Map<String, String> convertAdHocMonomersIntoSMILES(Map<String, String> monomersList) throws HELM1FormatException, ChemistryException {
     Map<String, String> convert = new HashMap<String, String>();
     try {
+      AbstractChemistryManipulator manipulator = Chemistry.getInstance().getManipulator();
       for (Map.Entry<String, String> element : monomersList.entrySet()) {
-
-        Monomer m;
-        m = MonomerFactory.getInstance().getMonomerStore().getMonomer(element.getValue().toString(), element.getKey().toString());
-
-        String smiles = m.getCanSMILES();
-        AbstractChemistryManipulator manipulator = Chemistry.getInstance().getManipulator();
-        String canSmiles = manipulator.canonicalize(smiles);
-        convert.put(element.getKey().toString(), canSmiles);
+        convert.put(element.getKey(), manipulator.canonicalize(element.getValue()));
       }
       return convert;
-    } catch (MonomerLoadingException | CTKException e) {
+    } catch (CTKException e) {
       e.printStackTrace();
       throw new HELM1FormatException("SMILES for Monomer can not be found: ");
     }
   }
 
+  /**
+   * method to replace the adhocMonomers of the HELM representation of polymer
+   * elements by their SMILES in a single scan; the monomer ids are compared
+   * literally, annotations in quotes are kept as they are
+   *
+   * @param elements HELM representation of polymer elements
+   * @param smiles Map of the ids of the adhocMonomers with their SMILES
+   * @param brackets true to keep the brackets around multi-character monomers,
+   *          false to remove all brackets outside of annotations
+   * @return HELM representation of polymer elements with the SMILES of the
+   *         adhocMonomers
+   */
+  static String replaceAdHocMonomers(String elements, Map<String, String> smiles, boolean brackets) {
+    StringBuilder sb = new StringBuilder(elements.length());
+    int length = elements.length();
+    int i = 0;
+    while (i < length) {
+      char c = elements.charAt(i);
+      if (c == '"') {
+        int end = elements.indexOf('"', i + 1);
+        end = end < 0 ? length : end + 1;
+        sb.append(elements, i, end);
+        i = end;
+      } else if (c == '[') {
+        /* find the matching bracket, SMILES contain brackets themselves */
+        int depth = 0;
+        int end = i;
+        for (; end < length; end++) {
+          char current = elements.charAt(end);
+          if (current == '[') {
+            depth++;
+          } else if (current == ']' && --depth == 0) {
+            break;
+          }
+        }
+        if (end == length) {
+          appendBrackets(sb, elements.substring(i), brackets);
+          break;
+        }
+        String id = elements.substring(i + 1, end);
+        String replacement = smiles.get(id);
+        appendBrackets(sb, "[" + (replacement == null ? id : replacement) + "]", brackets);
+        i = end + 1;
+      } else {
+        sb.append(c);
+        i++;
+      }
+    }
+    return sb.toString();
+  }
+
+  private static void appendBrackets(StringBuilder sb, String monomer, boolean brackets) {
+    if (brackets) {
+      sb.append(monomer);
+      return;
+    }
+    for (int i = 0; i < monomer.length(); i++) {
+      char c = monomer.charAt(i);
+      if (c != '[' && c != ']') {
+        sb.append(c);
+      }
+    }
+  }
+
+  private static String withoutBrackets(String id) {
+    if (id.length() > 1 && id.charAt(0) == '[' && id.charAt(id.length() - 1) == ']') {
+      return id.substring(1, id.length() - 1);
+    }
+    return id;
+  }
+
 }
@@ -235,7 +235,6 @@ public final class MethodsMonomerUtils {
 
             /* Add new monomer to the database */
             MonomerFactory.getInstance().getMonomerStore().addNewMonomer(monomer);
-            MonomerFactory.getInstance().getSmilesMonomerDB().put(monomer.getCanSMILES(), monomer);
             // save monomer db to local file after successful update //
             MonomerFactory.getInstance().saveMonomerCache();
             LOG.info("Monomer was added to the database");
@@ -0,0 +1,177 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.helm.chemtoolkit.AbstractMolecule;
+import org.helm.chemtoolkit.CTKException;
+import org.helm.notation2.Attachment;
+import org.helm.notation2.Monomer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * class to cache the parsed molecule of a monomer, so that a monomer occurring
+ * several times in a polymer is parsed only once by the chemistry plugin. The
+ * cached molecule serves as template: every lookup returns a clone of it, the
+ * caller is free to merge it.
+ *
+ * The cache is keyed by polymer type, monomer id and a hash of the structure
+ * (molfile or SMILES plus the attachments); it is bounded and evicts the least
+ * recently used template.
+ *
+ * @author hecht
+ */
+public final class MonomerMoleculeCache {
+
+  /** The Logger for this class */
+  private static final Logger LOG = LoggerFactory.getLogger(MonomerMoleculeCache.class);
+
+  /** maximal number of cached monomer templates */
+  public static final int MAX_ENTRIES = 1024;
+
+  private static final Map<String, Template> TEMPLATES = new LinkedHashMap<String, Template>(64, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  /**
+   * Default constructor.
+   */
+  private MonomerMoleculeCache() {
+
+  }
+
+  /**
+   * method to get a copy of the cached molecule for the given monomer
+   *
+   * @param monomer monomer
+   * @param input molfile or SMILES the molecule is built from
+   * @return copy of the cached molecule, null if the monomer is not cached
+   * @throws CTKException if the cached molecule can not be cloned
+   */
+  public static AbstractMolecule get(final Monomer monomer, final String input) throws CTKException {
+    String structure = generateStructure(monomer, input);
+    Template template;
+    synchronized (TEMPLATES) {
+      template = TEMPLATES.get(generateKey(monomer, structure));
+    }
+    if (template == null || !template.structure.equals(structure)) {
+      return null;
+    }
+    synchronized (template) {
+      return template.molecule.cloneMolecule();
+    }
+  }
+
+  /**
+   * method to store the parsed molecule of the given monomer as template; the
+   * given molecule is cloned, so it can still be used by the caller
+   *
+   * @param monomer monomer
+   * @param input molfile or SMILES the molecule was built from
+   * @param molecule parsed molecule
+   * @throws CTKException if the molecule can not be cloned
+   */
+  public static void put(final Monomer monomer, final String input, final AbstractMolecule molecule) throws CTKException {
+    String structure = generateStructure(monomer, input);
+    Template template = new Template(structure, molecule.cloneMolecule());
+    synchronized (TEMPLATES) {
+      TEMPLATES.put(generateKey(monomer, structure), template);
+    }
+  }
+
+  /**
+   * method to remove all templates of the given monomer
+   *
+   * @param polymerType polymer type of the monomer
+   * @param alternateId id of the monomer
+   */
+  public static void invalidate(final String polymerType, final String alternateId) {
+    String prefix = polymerType + ":" + alternateId + ":";
+    synchronized (TEMPLATES) {
+      for (Iterator<String> it = TEMPLATES.keySet().iterator(); it.hasNext();) {
+        if (it.next().startsWith(prefix)) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * method to remove all templates
+   */
+  public static void clear() {
+    LOG.debug("Clear monomer molecule cache");
+    synchronized (TEMPLATES) {
+      TEMPLATES.clear();
+    }
+  }
+
+  /**
+   * method to get the number of cached templates
+   *
+   * @return number of cached templates
+   */
+  public static int size() {
+    synchronized (TEMPLATES) {
+      return TEMPLATES.size();
+    }
+  }
+
+  private static String generateKey(final Monomer monomer, final String structure) {
+    return monomer.getPolymerType() + ":" + monomer.getAlternateId() + ":" + structure.hashCode();
+  }
+
+  private static String generateStructure(final Monomer monomer, final String input) {
+    StringBuilder sb = new StringBuilder(input);
+    if (monomer.getAttachmentList() != null) {
+      for (Attachment attachment : monomer.getAttachmentList()) {
+        sb.append('|').append(attachment.getLabel()).append('=').append(attachment.getCapGroupSMILES());
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * cached molecule with the structure it was built from
+   */
+  private static final class Template {
+    private final String structure;
+
+    private final AbstractMolecule molecule;
+
+    private Template(final String structure, final AbstractMolecule molecule) {
+      this.structure = structure;
+      this.molecule = molecule;
+    }
+  }
+}
@@ -32,6 +32,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -98,6 +105,9 @@ public class MonomerParser {
   
   protected static final String SMILES_EXTENSION_SEPARATOR_REGEX = "\\|";
 
+  /* threads of validateMonomers, shared by all calls; idle threads end after a minute */
+  private static ExecutorService validationExecutor;
+
   static {
     polymerTypes = Arrays.asList(Monomer.SUPPORTED_POLYMER_TYPES);
   }
@@ -418,17 +428,21 @@ public class MonomerParser {
         throw new MonomerException("Monomer has no monomerID defined");
       }
       String smiles = monomer.getCanSMILES();
-      String molfile = monomer.getMolfile();
       List<Attachment> attachments = monomer.getAttachmentList();
 
       if (!polymerType.equals(Monomer.CHEMICAL_POLYMER_TYPE)) {
-        if (null == smiles || null == molfile || null == attachments
+        if (null == smiles || !monomer.hasMolfile() || null == attachments
             || attachments.size() == 0) {
           throw new MonomerException(
               "Monomers for specific polymer type must have structure info");
         }
       }
 
+      /*
+       * only the presence of the molfile is checked, an encoded molfile is
+       * decoded when the monomer is used the first time
+       */
+
       String errorNote = alternateId + " (" + polymerType + ")";
       if (null != smiles && smiles.length() > 0) {
 
@@ -530,6 +544,106 @@ public class MonomerParser {
     return true;
   }
 
+  /**
+   * This method validates the given monomers like validateMonomer; the
+   * validation is distributed over the given number of threads, taken from a
+   * pool shared by all calls. If several monomers are invalid, the exception
+   * of the first one in list order is thrown, independent of the
+   * parallelism.
+   *
+   * @param monomers monomers to validate
+   * @param parallelism number of threads, 1 validates in the calling thread
+   * @throws MonomerException if one of the monomers is invalid
+   * @throws IOException
+   * @throws CTKException
+   * @throws ChemistryException
+   */
+  public static void validateMonomers(final List<Monomer> monomers, int parallelism)
+      throws MonomerException, IOException, CTKException, ChemistryException {
+    if (parallelism <= 1 || monomers.size() < 2) {
+      for (Monomer monomer : monomers) {
+        validateMonomer(monomer);
+      }
+      return;
+    }
+
+    final int size = monomers.size();
+    /* failure of every monomer, by index; all monomers are validated */
+    final Throwable[] failures = new Throwable[size];
+    final AtomicInteger next = new AtomicInteger();
+    ExecutorService executor = getValidationExecutor();
+    int workers = Math.min(parallelism, size);
+    List<Future<Void>> results = new ArrayList<Future<Void>>(workers);
+    try {
+      for (int i = 0; i < workers; i++) {
+        results.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int index = next.getAndIncrement(); index < size; index = next.getAndIncrement()) {
+              try {
+                validateMonomer(monomers.get(index));
+              } catch (Throwable e) {
+                failures[index] = e;
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> result : results) {
+        result.get();
+      }
+    } catch (ExecutionException e) {
+      rethrowValidationException(e.getCause());
+    } catch (InterruptedException e) {
+      for (Future<Void> result : results) {
+        result.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      throw new MonomerException("Validation of monomers was interrupted", e);
+    }
+    for (Throwable failure : failures) {
+      if (failure != null) {
+        rethrowValidationException(failure);
+      }
+    }
+  }
+
+  private static synchronized ExecutorService getValidationExecutor() {
+    if (validationExecutor == null) {
+      validationExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "monomer-validation-" + count.incrementAndGet());
+          /* the shared threads must not keep the JVM alive */
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return validationExecutor;
+  }
+
+  private static void rethrowValidationException(Throwable cause)
+      throws MonomerException, IOException, CTKException, ChemistryException {
+    if (cause instanceof MonomerException) {
+      throw (MonomerException) cause;
+    } else if (cause instanceof IOException) {
+      throw (IOException) cause;
+    } else if (cause instanceof CTKException) {
+      throw (CTKException) cause;
+    } else if (cause instanceof ChemistryException) {
+      throw (ChemistryException) cause;
+    } else if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    throw new MonomerException("Validation of monomer failed", cause);
+  }
+
   /**
    * This methods return the list of R groups in the extended SMILES string
    *
@@ -0,0 +1,243 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.helm.chemtoolkit.CTKException;
+import org.helm.notation2.Attachment;
+import org.helm.notation2.Monomer;
+import org.helm.notation2.MonomerCache;
+import org.helm.notation2.MonomerFactory;
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.MonomerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * class to read a monomer database document (MonomerDBGZEncoded.xml) in a
+ * single streaming pass: every monomer element is converted while it is read
+ * and validated exactly once afterwards, optionally by several threads. The
+ * molfiles stay encoded until they are used the first time.
+ *
+ * The returned MonomerCache contains the monomer and the attachment database,
+ * the SMILES database has to be built by the caller.
+ *
+ * @author hecht
+ */
+public final class MonomerStreamParser {
+
+  /** The Logger for this class */
+  private static final Logger LOG = LoggerFactory.getLogger(MonomerStreamParser.class);
+
+  private static final XMLInputFactory FACTORY = createFactory();
+
+  /**
+   * Default constructor.
+   */
+  private MonomerStreamParser() {
+
+  }
+
+  /**
+   * method to read the monomer and attachment database from the given monomer
+   * database document
+   *
+   * @param in monomer database document
+   * @return MonomerCache without SMILES database
+   * @throws MonomerException if the document or one of its monomers is not
+   *           valid
+   * @throws IOException
+   * @throws ChemistryException if the chemistry plugin can not be initialized
+   * @throws CTKException
+   */
+  public static MonomerCache parse(final InputStream in) throws MonomerException, IOException, ChemistryException, CTKException {
+    return parse(in, 1);
+  }
+
+  /**
+   * method to read the monomer and attachment database from the given monomer
+   * database document, the monomers are validated by the given number of
+   * threads; the result does not depend on the parallelism
+   *
+   * @param in monomer database document
+   * @param parallelism number of threads validating the monomers
+   * @return MonomerCache without SMILES database
+   * @throws MonomerException if the document or one of its monomers is not
+   *           valid
+   * @throws IOException
+   * @throws ChemistryException if the chemistry plugin can not be initialized
+   * @throws CTKException
+   */
+  public static MonomerCache parse(final InputStream in, final int parallelism) throws MonomerException, IOException, ChemistryException, CTKException {
+    long start = System.currentTimeMillis();
+    Map<String, Map<String, Monomer>> monomerDB = new HashMap<String, Map<String, Monomer>>();
+    Map<String, Attachment> attachmentDB = new HashMap<String, Attachment>();
+    /* monomers in document order, merged after the validation */
+    List<Monomer> monomerList = new ArrayList<Monomer>();
+    List<Map<String, Monomer>> targetList = new ArrayList<Map<String, Monomer>>();
+    XMLStreamReader reader = null;
+    try {
+      reader = FACTORY.createXMLStreamReader(in);
+      Map<String, Monomer> monomers = null;
+      while (reader.hasNext()) {
+        if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+          continue;
+        }
+        String name = reader.getLocalName();
+        if (MonomerFactory.POLYMER_ELEMENT.equals(name)) {
+          String polymerType = reader.getAttributeValue(null, MonomerFactory.POLYMER_TYPE_ATTRIBUTE);
+          if (polymerType == null) {
+            throw new MonomerException("Polymer element has no polymer type defined");
+          }
+          monomers = new HashMap<String, Monomer>();
+          monomerDB.put(polymerType, monomers);
+        } else if (MonomerParser.MONOMER_ELEMENT.equals(name)) {
+          if (monomers == null) {
+            throw new MonomerException("Monomer element outside of a polymer element");
+          }
+          monomerList.add(readMonomer(reader));
+          targetList.add(monomers);
+        } else if (MonomerParser.ATTACHEMENT_ELEMENT.equals(name)) {
+          /* attachments of monomers are consumed by readMonomer */
+          Attachment attachment = readAttachment(reader);
+          if (MonomerParser.validateAttachement(attachment)) {
+            attachmentDB.put(attachment.getAlternateId(), attachment);
+          }
+        }
+      }
+    } catch (XMLStreamException e) {
+      throw new MonomerException("Invalid monomer database document: " + e.getMessage(), e);
+    } finally {
+      close(reader);
+    }
+    long read = System.currentTimeMillis();
+
+    MonomerParser.validateMonomers(monomerList, parallelism);
+    for (int i = 0; i < monomerList.size(); i++) {
+      targetList.get(i).put(monomerList.get(i).getAlternateId(), monomerList.get(i));
+    }
+    LOG.info("Read {} monomers in {} ms, validated them in {} ms with parallelism {}", monomerList.size(), read - start,
+        System.currentTimeMillis() - read, parallelism);
+
+    MonomerCache cache = new MonomerCache();
+    cache.setMonomerDB(monomerDB);
+    cache.setAttachmentDB(attachmentDB);
+    return cache;
+  }
+
+  private static Monomer readMonomer(final XMLStreamReader reader) throws XMLStreamException {
+    Monomer monomer = new Monomer();
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String name = reader.getLocalName();
+      if (MonomerParser.ATTACHEMENTS_ELEMENT.equals(name)) {
+        List<Attachment> attachments = new ArrayList<Attachment>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+          if (MonomerParser.ATTACHEMENT_ELEMENT.equals(reader.getLocalName())) {
+            attachments.add(readAttachment(reader));
+          } else {
+            skipElement(reader);
+          }
+        }
+        monomer.setAttachmentList(attachments);
+      } else if (MonomerParser.MONOMER_ID_ELEMENT.equals(name)) {
+        monomer.setAlternateId(reader.getElementText());
+      } else if (MonomerParser.MONOMER_SMILES_ELEMENT.equals(name)) {
+        monomer.setCanSMILES(reader.getElementText());
+      } else if (MonomerParser.MONOMER_MOL_FILE_ELEMENT.equals(name)) {
+        monomer.setEncodedMolfile(reader.getElementText());
+      } else if (MonomerParser.MONOMER_TYPE_ELEMENT.equals(name)) {
+        monomer.setMonomerType(reader.getElementText());
+      } else if (MonomerParser.POLYMER_TYPE_ELEMENT.equals(name)) {
+        monomer.setPolymerType(reader.getElementText());
+      } else if (MonomerParser.NATURAL_ANALOG_ELEMENT.equals(name)) {
+        monomer.setNaturalAnalog(reader.getElementText());
+      } else if (MonomerParser.MONOMER_NAME_ELEMENT.equals(name)) {
+        monomer.setName(reader.getElementText());
+      } else {
+        skipElement(reader);
+      }
+    }
+    return monomer;
+  }
+
+  private static Attachment readAttachment(final XMLStreamReader reader) throws XMLStreamException {
+    Attachment attachment = new Attachment();
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String name = reader.getLocalName();
+      if (MonomerParser.ATTACHEMENT_ID_ELEMENT.equals(name)) {
+        attachment.setAlternateId(reader.getElementText());
+      } else if (MonomerParser.ATTACHEMENT_LABEL_ELEMENT.equals(name)) {
+        attachment.setLabel(reader.getElementText());
+      } else if (MonomerParser.CAP_GROUP_NAME_ELEMENT.equals(name)) {
+        attachment.setCapGroupName(reader.getElementText());
+      } else if (MonomerParser.CAP_GROUP_SMILES_ELEMENT.equals(name)) {
+        attachment.setCapGroupSMILES(reader.getElementText());
+      } else {
+        skipElement(reader);
+      }
+    }
+    return attachment;
+  }
+
+  private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private static void close(final XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        LOG.debug("Unable to close monomer database reader", e);
+      }
+    }
+  }
+
+  private static XMLInputFactory createFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    return factory;
+  }
+}
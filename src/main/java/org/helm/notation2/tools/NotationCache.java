@@ -0,0 +1,249 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.helm.notation2.MonomerFactory;
+import org.helm.notation2.parser.notation.HELM2Notation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * opt-in cache of read and validated HELM2Notation objects, keyed by the
+ * normalized input string. The cache is bounded by the number of entries and
+ * by its weight, the summed length of the cached input strings; the least
+ * recently used entries are evicted first. Entries which were cached before
+ * the monomer store changed are not returned anymore.
+ *
+ * The cached notation objects are shared between all callers and must not be
+ * modified.
+ *
+ * @author hecht
+ */
+public final class NotationCache {
+
+  /** The Logger for this class */
+  private static final Logger LOG = LoggerFactory.getLogger(NotationCache.class);
+
+  public static final int DEFAULT_MAXIMUM_ENTRIES = 10000;
+
+  public static final long DEFAULT_MAXIMUM_WEIGHT = 10000000L;
+
+  private static volatile NotationCache instance;
+
+  private final int maximumEntries;
+
+  private final long maximumWeight;
+
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+
+  private long weight;
+
+  private long hitCount;
+
+  private long missCount;
+
+  private long evictionCount;
+
+  private NotationCache(int maximumEntries, long maximumWeight) {
+    this.maximumEntries = maximumEntries;
+    this.maximumWeight = maximumWeight;
+  }
+
+  /**
+   * method to enable the cache with the default bounds
+   *
+   * @return the new cache
+   */
+  public static NotationCache enable() {
+    return enable(DEFAULT_MAXIMUM_ENTRIES, DEFAULT_MAXIMUM_WEIGHT);
+  }
+
+  /**
+   * method to enable the cache, a previously enabled cache is replaced
+   *
+   * @param maximumEntries maximal number of cached notations
+   * @param maximumWeight maximal summed length of the cached input strings
+   * @return the new cache
+   */
+  public static NotationCache enable(int maximumEntries, long maximumWeight) {
+    if (maximumEntries < 1 || maximumWeight < 1) {
+      throw new IllegalArgumentException("Bounds of the notation cache must be positive");
+    }
+    LOG.debug("Enable notation cache with " + maximumEntries + " entries and weight " + maximumWeight);
+    instance = new NotationCache(maximumEntries, maximumWeight);
+    return instance;
+  }
+
+  /**
+   * method to disable the cache
+   */
+  public static void disable() {
+    instance = null;
+  }
+
+  /**
+   * @return the enabled cache, null if the cache is disabled
+   */
+  public static NotationCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * method to normalize a HELM input for the use as key
+   *
+   * @param notation HELM input
+   * @return normalized HELM input
+   */
+  public static String normalize(String notation) {
+    return notation.trim();
+  }
+
+  /**
+   * method to get the cached notation object for the given HELM input
+   *
+   * @param notation HELM input
+   * @return cached notation object, null if it is not cached or the monomer
+   *         store has changed since it was cached
+   */
+  public synchronized HELM2Notation get(String notation) {
+    String key = normalize(notation);
+    Entry entry = entries.get(key);
+    if (entry != null && entry.storeVersion != MonomerFactory.getStoreVersion()) {
+      remove(key);
+      entry = null;
+    }
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.helm2notation;
+  }
+
+  /**
+   * method to cache the read and validated notation object of the given HELM
+   * input
+   *
+   * @param notation HELM input
+   * @param helm2notation validated notation object
+   * @param storeVersion version of the monomer store the notation was
+   *          validated against, see MonomerFactory.getStoreVersion()
+   */
+  public synchronized void put(String notation, HELM2Notation helm2notation, long storeVersion) {
+    String key = normalize(notation);
+    if (key.length() > maximumWeight) {
+      return;
+    }
+    remove(key);
+    entries.put(key, new Entry(helm2notation, storeVersion));
+    weight += key.length();
+    for (Iterator<String> it = entries.keySet().iterator(); it.hasNext() && (entries.size() > maximumEntries || weight > maximumWeight);) {
+      weight -= it.next().length();
+      it.remove();
+      evictionCount++;
+    }
+  }
+
+  /**
+   * method to remove all cached notations, the statistics are kept
+   */
+  public synchronized void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  private void remove(String key) {
+    if (entries.remove(key) != null) {
+      weight -= key.length();
+    }
+  }
+
+  /**
+   * @return number of cached notations
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return summed length of the cached input strings
+   */
+  public synchronized long getWeight() {
+    return weight;
+  }
+
+  /**
+   * @return number of lookups which returned a cached notation
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return number of lookups which did not return a cached notation
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return number of notations evicted because of the bounds
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * @return share of the lookups which returned a cached notation
+   */
+  public synchronized double getHitRate() {
+    long requests = hitCount + missCount;
+    return requests == 0 ? 0.0 : (double) hitCount / requests;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "NotationCache[size=" + entries.size() + ", weight=" + weight + ", hits=" + hitCount + ", misses=" + missCount + ", evictions="
+        + evictionCount + "]";
+  }
+
+  /**
+   * cached notation with the version of the monomer store it was validated
+   * against
+   */
+  private static final class Entry {
+    private final HELM2Notation helm2notation;
+
+    private final long storeVersion;
+
+    private Entry(HELM2Notation helm2notation, long storeVersion) {
+      this.helm2notation = helm2notation;
+      this.storeVersion = storeVersion;
+    }
+  }
+}
@@ -23,16 +23,84 @@ package org.helm.notation2.tools;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-
-import org.helm.notation2.DeepCopy;
+import java.util.NoSuchElementException;
 
 /**
+ * class to build the candidates of the cartesian product of groups of
+ * alternatives, e.g. the permutations of symmetric polymers; the candidates can
+ * be materialized with {@link #expand} and {@link #linearize} or iterated
+ * lazily with {@link #iterator(List)}
  *
  * @author ZHANGTIANHONG
  */
 public class PermutationAndExpansion {
 
+  /**
+   * method to get the number of candidates of the cartesian product of the
+   * given groups; an empty list of groups has no candidate, same as
+   * {@link #expand}
+   *
+   * @param groups groups of alternatives, all alternatives of one group must
+   *          have the same length
+   * @return number of candidates
+   * @throws IllegalArgumentException if the number of candidates exceeds
+   *           Long.MAX_VALUE
+   */
+  public static long size(List<List<String[]>> groups) {
+    if (groups.isEmpty()) {
+      return 0;
+    }
+    long size = 1;
+    for (List<String[]> group : groups) {
+      int n = group.size();
+      if (n == 0) {
+        return 0;
+      }
+      if (size > Long.MAX_VALUE / n) {
+        throw new IllegalArgumentException("Too many candidates in the cartesian product");
+      }
+      size *= n;
+    }
+    return size;
+  }
+
+  /**
+   * method to iterate lazily over all candidates of the cartesian product of
+   * the given groups, in the same order as {@link #expand} followed by
+   * {@link #linearize}; the iteration can be stopped at any candidate
+   *
+   * @param groups groups of alternatives, all alternatives of one group must
+   *          have the same length
+   * @return iterator over the linearized candidates, the returned array is
+   *         reused by the iterator and must be copied to be kept
+   */
+  public static Iterator<String[]> iterator(List<List<String[]>> groups) {
+    return new ProductIterator(groups, 0, size(groups));
+  }
+
+  /**
+   * method to iterate lazily over the candidates with the index from (inclusive)
+   * to (exclusive) of the cartesian product of the given groups; disjoint
+   * ranges can be iterated by different threads
+   *
+   * @param groups groups of alternatives, all alternatives of one group must
+   *          have the same length
+   * @param from index of the first candidate
+   * @param to index after the last candidate
+   * @return iterator over the linearized candidates, the returned array is
+   *         reused by the iterator and must be copied to be kept
+   * @throws IndexOutOfBoundsException if the range is not within the product
+   */
+  public static Iterator<String[]> iterator(List<List<String[]>> groups, long from, long to) {
+    long size = size(groups);
+    if (from < 0 || to > size || from > to) {
+      throw new IndexOutOfBoundsException("Range " + from + "-" + to + " is not within 0-" + size);
+    }
+    return new ProductIterator(groups, from, to);
+  }
+
   public static List<List<String>> linearize(List<List<String[]>> originalList) {
     List<List<String>> result = new ArrayList<List<String>>();
     for (List<String[]> l : originalList) {
@@ -47,10 +115,24 @@ public class PermutationAndExpansion {
     return result;
   }
 
+  /**
+   * method to expand the given candidates by every alternative of the child
+   * group; the number of candidates grows with the product of all groups, use
+   * {@link #iterator(List)} to avoid materializing them
+   *
+   * @param parent candidates, expanded in place
+   * @param child group of alternatives
+   * @throws IOException not thrown anymore, kept for compatibility
+   * @throws ClassNotFoundException not thrown anymore, kept for compatibility
+   */
   public static void expand(List<List<String[]>> parent, List<String[]> child)
       throws IOException, ClassNotFoundException {
     if (parent.size() == 0) {
-      parent.add(child);
+      for (String[] alternative : child) {
+        List<String[]> l = new ArrayList<String[]>();
+        l.add(alternative);
+        parent.add(l);
+      }
     } else {
       List<List<String[]>> remove = new ArrayList<List<String[]>>();
       List<List<String[]>> keep = new ArrayList<List<String[]>>();
@@ -58,7 +140,8 @@ public class PermutationAndExpansion {
         List<String[]> tmp = parent.get(i);
         remove.add(tmp);
         for (int j = 0; j < child.size(); j++) {
-          List<String[]> l = DeepCopy.copy(tmp);
+          List<String[]> l = new ArrayList<String[]>(tmp.size() + 1);
+          l.addAll(tmp);
           l.add(child.get(j));
           keep.add(l);
         }
@@ -96,4 +179,89 @@ public class PermutationAndExpansion {
     a[i] = a[j];
     a[j] = c;
   }
+
+  /**
+   * iterator over a range of the cartesian product; the candidate is kept in
+   * one buffer and only the groups whose alternative changed are copied into it
+   */
+  private static final class ProductIterator implements Iterator<String[]> {
+    private final String[][][] groups;
+
+    private final int[] offsets;
+
+    private final int[] digits;
+
+    private final String[] candidate;
+
+    private long remaining;
+
+    private boolean started;
+
+    private ProductIterator(List<List<String[]>> groups, long from, long to) {
+      this.groups = new String[groups.size()][][];
+      this.offsets = new int[groups.size()];
+      this.digits = new int[groups.size()];
+      int length = 0;
+      for (int i = 0; i < groups.size(); i++) {
+        this.groups[i] = groups.get(i).toArray(new String[0][]);
+        offsets[i] = length;
+        if (this.groups[i].length > 0) {
+          int groupLength = this.groups[i][0].length;
+          for (String[] alternative : this.groups[i]) {
+            if (alternative.length != groupLength) {
+              throw new IllegalArgumentException("Alternatives of group " + i + " differ in length");
+            }
+          }
+          length += groupLength;
+        }
+      }
+      this.candidate = new String[length];
+      this.remaining = to - from;
+      if (remaining > 0) {
+        /* the last group varies fastest */
+        long index = from;
+        for (int i = digits.length - 1; i >= 0; i--) {
+          digits[i] = (int) (index % this.groups[i].length);
+          index /= this.groups[i].length;
+          copy(i);
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remaining > 0;
+    }
+
+    @Override
+    public String[] next() {
+      if (remaining <= 0) {
+        throw new NoSuchElementException();
+      }
+      if (started) {
+        for (int i = digits.length - 1; i >= 0; i--) {
+          digits[i]++;
+          if (digits[i] < groups[i].length) {
+            copy(i);
+            break;
+          }
+          digits[i] = 0;
+          copy(i);
+        }
+      }
+      started = true;
+      remaining--;
+      return candidate;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private void copy(int group) {
+      String[] alternative = groups[group][digits[group]];
+      System.arraycopy(alternative, 0, candidate, offsets[group], alternative.length);
+    }
+  }
 }
@@ -0,0 +1,191 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.helm.chemtoolkit.IAtomBase;
+
+/**
+ * class to index the unused R-groups of a growing polymer molecule by residue
+ * number and R-group number. Merging a residue into the index only touches the
+ * slots of that residue, so building a chain of n residues is linear in n; the
+ * string keyed map used by {@link org.helm.notation2.RgroupStructure} is
+ * generated once at the end.
+ *
+ * @author hecht
+ */
+final class RgroupIndex {
+
+  private static final IAtomBase[] EMPTY = new IAtomBase[0];
+
+  /** slots per residue: slots[residue][rgroupNumber] */
+  private IAtomBase[][] slots;
+
+  /** R-groups whose label is not of the form R&lt;number&gt; */
+  private Map<String, IAtomBase> others;
+
+  private int size;
+
+  /**
+   * Constructs an index for the given number of residues
+   *
+   * @param residues expected number of residues
+   */
+  RgroupIndex(final int residues) {
+    this.slots = new IAtomBase[Math.max(residues, 1) + 1][];
+  }
+
+  /**
+   * method to add all R-groups of the given residue
+   *
+   * @param residue residue number, starting with 1
+   * @param rgroups R-groups of the residue, keyed by their label
+   */
+  void addAll(final int residue, final Map<String, IAtomBase> rgroups) {
+    for (Map.Entry<String, IAtomBase> e : rgroups.entrySet()) {
+      int number = parseRgroupNumber(e.getKey());
+      if (number < 0) {
+        if (others == null) {
+          others = new HashMap<String, IAtomBase>();
+        }
+        if (others.put(residue + ":" + e.getKey(), e.getValue()) == null) {
+          size++;
+        }
+      } else {
+        if (set(residue, number, e.getValue()) == null) {
+          size++;
+        }
+      }
+    }
+  }
+
+  /**
+   * method to get the atom of the given R-group
+   *
+   * @param residue residue number
+   * @param rgroup R-group number
+   * @return R-group atom, null if the R-group is not contained or already used
+   */
+  IAtomBase get(final int residue, final int rgroup) {
+    if (residue < slots.length && slots[residue] != null && rgroup < slots[residue].length) {
+      return slots[residue][rgroup];
+    }
+    return null;
+  }
+
+  /**
+   * method to remove the given R-group, as it was used for a bond
+   *
+   * @param residue residue number
+   * @param rgroup R-group number
+   * @return removed R-group atom, null if the R-group was not contained
+   */
+  IAtomBase remove(final int residue, final int rgroup) {
+    IAtomBase atom = get(residue, rgroup);
+    if (atom != null) {
+      slots[residue][rgroup] = null;
+      size--;
+    }
+    return atom;
+  }
+
+  /**
+   * method to get the number of unused R-groups
+   *
+   * @return number of unused R-groups
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * method to generate the RgroupMap of the polymer: the keys have the form
+   * id:residue:label
+   *
+   * @param id polymer id
+   * @return RgroupMap of all unused R-groups
+   */
+  Map<String, IAtomBase> toRgroupMap(final String id) {
+    Map<String, IAtomBase> rgroupMap = new HashMap<String, IAtomBase>(Math.max(16, size * 2));
+    for (int residue = 0; residue < slots.length; residue++) {
+      IAtomBase[] residueSlots = slots[residue];
+      if (residueSlots == null) {
+        continue;
+      }
+      for (int rgroup = 0; rgroup < residueSlots.length; rgroup++) {
+        if (residueSlots[rgroup] != null) {
+          rgroupMap.put(id + ":" + residue + ":R" + rgroup, residueSlots[rgroup]);
+        }
+      }
+    }
+    if (others != null) {
+      for (Map.Entry<String, IAtomBase> e : others.entrySet()) {
+        rgroupMap.put(id + ":" + e.getKey(), e.getValue());
+      }
+    }
+    return rgroupMap;
+  }
+
+  private IAtomBase set(final int residue, final int rgroup, final IAtomBase atom) {
+    if (residue >= slots.length) {
+      slots = Arrays.copyOf(slots, Math.max(residue + 1, slots.length * 2));
+    }
+    IAtomBase[] residueSlots = slots[residue];
+    if (residueSlots == null) {
+      residueSlots = EMPTY;
+    }
+    if (rgroup >= residueSlots.length) {
+      residueSlots = Arrays.copyOf(residueSlots, Math.max(rgroup + 1, 4));
+      slots[residue] = residueSlots;
+    }
+    IAtomBase old = residueSlots[rgroup];
+    residueSlots[rgroup] = atom;
+    return old;
+  }
+
+  /**
+   * method to get the number of an R-group label
+   *
+   * @param label R-group label, e.g. R1
+   * @return number of the R-group, -1 if the label is not of the form
+   *         R&lt;number&gt;
+   */
+  static int parseRgroupNumber(final String label) {
+    if (label == null || label.length() < 2 || label.charAt(0) != 'R') {
+      return -1;
+    }
+    int number = 0;
+    for (int i = 1; i < label.length(); i++) {
+      char c = label.charAt(i);
+      if (c < '0' || c > '9' || number > 9999 || (i == 1 && c == '0' && label.length() > 2)) {
+        return -1;
+      }
+      number = number * 10 + (c - '0');
+    }
+    return number;
+  }
+}
@@ -24,6 +24,7 @@
 package org.helm.notation2.tools;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.List;
 
 import org.helm.chemtoolkit.AbstractChemistryManipulator;
@@ -32,6 +33,8 @@ import org.helm.chemtoolkit.CTKException;
 import org.helm.chemtoolkit.CTKSmilesException;
 import org.helm.notation2.Chemistry;
 import org.helm.notation2.Monomer;
+import org.helm.notation2.calculation.ResultCache;
+import org.helm.notation2.calculation.ResultCacheManager;
 import org.helm.notation2.exception.BuilderMoleculeException;
 import org.helm.notation2.exception.ChemistryException;
 import org.helm.notation2.exception.HELM2HandledException;
@@ -70,8 +73,7 @@ public final class SMILES {
     /* get for every molecule the smiles */
     LOG.debug("Built single molecule(s)");
     StringBuffer sb = new StringBuffer();
-    for (AbstractMolecule molecule : molecules) {
-      molecule = BuilderMolecule.mergeRgroups(molecule);
+    for (AbstractMolecule molecule : BuilderMolecule.mergeRgroups(molecules)) {
       sb.append(Chemistry.getInstance().getManipulator().convertMolecule(molecule, AbstractChemistryManipulator.StType.SMILES) + ".");
     }
     sb.setLength(sb.length() - 1);
@@ -91,17 +93,26 @@ public final class SMILES {
    * @throws ChemistryException if the Chemistry Engine can not be initialized
    */
   public static String getCanonicalSMILESForAll(HELM2Notation helm2notation) throws BuilderMoleculeException, CTKSmilesException, CTKException, NotationException, ChemistryException {
+    ResultCache cache = ResultCacheManager.getResultCache();
+    String key = (cache == null) ? null : ResultCacheManager.generateInputKey(helm2notation, "canonicalSMILES");
+    Serializable cached = (key == null) ? null : cache.get(key);
+    if (cached instanceof String) {
+      return (String) cached;
+    }
     LOG.debug("Build single molecule(s)");
     List<AbstractMolecule> molecules = BuilderMolecule.buildMoleculefromPolymers(helm2notation.getListOfPolymers(), helm2notation.getListOfConnections());
     LOG.debug("Built single molecule(s)");
     /* get for every molecule the canonical smiles */
     StringBuffer sb = new StringBuffer();
-    for (AbstractMolecule molecule : molecules) {
-      molecule = BuilderMolecule.mergeRgroups(molecule);
+    for (AbstractMolecule molecule : BuilderMolecule.mergeRgroups(molecules)) {
       sb.append(Chemistry.getInstance().getManipulator().canonicalize(Chemistry.getInstance().getManipulator().convertMolecule(molecule, AbstractChemistryManipulator.StType.SMILES)) + ".");
     }
     sb.setLength(sb.length() - 1);
-    return sb.toString();
+    String result = sb.toString();
+    if (key != null) {
+      cache.put(key, result);
+    }
+    return result;
   }
 
   /**
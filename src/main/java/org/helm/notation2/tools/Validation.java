@@ -25,9 +25,12 @@ package org.helm.notation2.tools;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.helm.chemtoolkit.CTKException;
 import org.helm.notation2.Chemistry;
@@ -57,7 +60,6 @@ import org.helm.notation2.parser.notation.polymer.MonomerNotationGroupElement;
 import org.helm.notation2.parser.notation.polymer.MonomerNotationList;
 import org.helm.notation2.parser.notation.polymer.MonomerNotationUnit;
 import org.helm.notation2.parser.notation.polymer.MonomerNotationUnitRNA;
-import org.helm.notation2.parser.notation.polymer.PolymerNotation;
 import org.jdom2.JDOMException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -154,6 +156,9 @@ public final class Validation {
       List<ConnectionNotation> listConnections = helm2notation.getListOfConnections();
       List<String> listPolymerIDs = helm2notation.getPolymerAndGroupingIDs();
 
+      /* lookups of polymers, monomer positions and monomers */
+      ValidationContext context = new ValidationContext(helm2notation);
+
       /* Hash-Map to save only specific InterConnections */
       InterConnections interconnection = new InterConnections();
       boolean specific = true;
@@ -169,9 +174,9 @@ public final class Validation {
         }
 
         /* check Monomers:-> can be number */
-        PolymerNotation source = helm2notation.getPolymerNotation(connection.getSourceId().getId());
+        String source = connection.getSourceId().getId();
         String sourceUnit = connection.getSourceUnit();
-        PolymerNotation target = helm2notation.getPolymerNotation(connection.getTargetId().getId());
+        String target = connection.getTargetId().getId();
         String targetUnit = connection.getTargetUnit();
 
         /* check for specific interactions */
@@ -193,32 +198,32 @@ public final class Validation {
 
           List<Monomer> listMonomersOne;
 
-          listMonomersOne = getAllMonomers(source.getMonomerNotation(occurenceOne), occurenceOne);
+          listMonomersOne = context.getMonomers(source, occurenceOne);
 
-          List<Monomer> listMonomersTwo = getAllMonomers(target.getMonomerNotation(occurenceTwo), occurenceTwo);
+          List<Monomer> listMonomersTwo = context.getMonomers(target, occurenceTwo);
 
           /* check each single Attachment */
           checkAttachment(listMonomersOne, listMonomersTwo, connection, helm2notation, interconnection, specific);
 
         } /* Unspecific Interaction */ else {
           List<Integer> listMonomerOccurencesOne =
-              getOccurencesOfMonomerNotation(sourceUnit, connection.getSourceId(), helm2notation);
+              getOccurencesOfMonomerNotation(sourceUnit, connection.getSourceId(), context);
           List<Integer> listMonomerOccurencesTwo =
-              getOccurencesOfMonomerNotation(targetUnit, connection.getTargetId(), helm2notation);
+              getOccurencesOfMonomerNotation(targetUnit, connection.getTargetId(), context);
           /* ? - section has to be included */
           if (listMonomerOccurencesOne.isEmpty()) {
             for (Integer occurenceTwo : listMonomerOccurencesTwo) {
-              List<Monomer> listMonomersTwo = getAllMonomers(target.getMonomerNotation(occurenceTwo), occurenceTwo);
+              List<Monomer> listMonomersTwo = context.getMonomers(target, occurenceTwo);
               checkSingleAttachment(listMonomersTwo, connection.getrGroupTarget(), helm2notation, connection, interconnection, connection.getTargetId().getId());
             }
           }
           for (Integer occurenceOne : listMonomerOccurencesOne) {
             /* get Monomers */
-            List<Monomer> listMonomersOne = getAllMonomers(source.getMonomerNotation(occurenceOne), occurenceOne);
+            List<Monomer> listMonomersOne = context.getMonomers(source, occurenceOne);
             checkSingleAttachment(listMonomersOne, connection.getrGroupSource(), helm2notation, connection, interconnection, connection.getSourceId().getId());
             /* check single attachment */
             for (Integer occurenceTwo : listMonomerOccurencesTwo) {
-              List<Monomer> listMonomersTwo = getAllMonomers(target.getMonomerNotation(occurenceTwo), occurenceTwo);
+              List<Monomer> listMonomersTwo = context.getMonomers(target, occurenceTwo);
               checkSingleAttachment(listMonomersTwo, connection.getrGroupTarget(), helm2notation, connection, interconnection, connection.getTargetId().getId());
               checkAttachment(listMonomersOne, listMonomersTwo, connection, helm2notation, interconnection, false);
 
@@ -258,15 +263,15 @@ public final class Validation {
    *
    * @param sourceUnit
    * @param e HELMEntity of the sourceUnit
-   * @param helm2notation HELM2Notation object
+   * @param context lookups of the HELM2Notation object
    * @return occurences of the MonomerNotation
    * @throws org.helm.notation2.parser.exceptionparser.NotationException
    * @throws IOException
    * @throws AttachmentException
    * @throws JDOMException
    */
-  private static List<Integer> getOccurencesOfMonomerNotation(String sourceUnit, HELMEntity e,
-      HELM2Notation helm2notation) throws org.helm.notation2.parser.exceptionparser.NotationException,
+  static List<Integer> getOccurencesOfMonomerNotation(String sourceUnit, HELMEntity e,
+      ValidationContext context) throws org.helm.notation2.parser.exceptionparser.NotationException,
           IOException, AttachmentException, JDOMException {
     List<Integer> occurences = new ArrayList<Integer>();
 
@@ -278,37 +283,30 @@ public final class Validation {
       MonomerNotation mon = ValidationMethod.decideWhichMonomerNotation(sourceUnit, e.getType());
       /* it is only one monomer e.g. C */
       if (mon instanceof MonomerNotationUnit) {
-        PolymerNotation polymerNotation = helm2notation.getPolymerNotation(e.getId());
         /* monomer can also be unknown */
         if (sourceUnit.equals("?")) {
           return occurences;
         }
-        for (int i = 0; i < polymerNotation.getPolymerElements().getListOfElements().size(); i++) {
-          if (polymerNotation.getPolymerElements().getListOfElements().get(i).getUnit().equals(sourceUnit)) {
-            occurences.add(i + 1);
-          }
-        }
+        occurences.addAll(context.getPositions(e.getId(), sourceUnit));
 
         /* the specified monomer does not exist in the polymer */
         if (occurences.isEmpty()) {
           throw new AttachmentException("Monomer is not there");
         }
       } /* second: group (mixture or or) or list */ else if (mon instanceof MonomerNotationGroup || mon instanceof MonomerNotationList) {
-        PolymerNotation polymerNotation = helm2notation.getPolymerNotation(e.getId());
-        Map<String, String> elements = new HashMap<String, String>();
+        Set<String> units = new HashSet<String>();
         for (MonomerNotationGroupElement groupElement : ((MonomerNotationGroup) mon).getListOfElements()) {
-          elements.put(groupElement.getMonomerNotation().getUnit(), "");
+          units.add(groupElement.getMonomerNotation().getUnit());
         }
 
-        for (int i = 0; i < polymerNotation.getPolymerElements().getListOfElements().size(); i++) {
-          if (elements.containsKey(polymerNotation.getPolymerElements().getListOfElements().get(i).getUnit())) {
-            elements.put(polymerNotation.getPolymerElements().getListOfElements().get(i).getUnit(), "1");
-            occurences.add(i + 1);
+        for (String unit : units) {
+          List<Integer> positions = context.getPositions(e.getId(), unit);
+          if (positions.isEmpty()) {
+            throw new AttachmentException("Not all Monomers are there");
           }
+          occurences.addAll(positions);
         }
-        if (occurences.size() < elements.size() || elements.containsValue("")) {
-          throw new AttachmentException("Not all Monomers are there");
-        }
+        Collections.sort(occurences);
       }
       return occurences;
     }
@@ -0,0 +1,132 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.helm.chemtoolkit.CTKException;
+import org.helm.notation2.Monomer;
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.HELM2HandledException;
+import org.helm.notation2.exception.MonomerException;
+import org.helm.notation2.exception.NotationException;
+import org.helm.notation2.parser.notation.HELM2Notation;
+import org.helm.notation2.parser.notation.polymer.MonomerNotation;
+import org.helm.notation2.parser.notation.polymer.PolymerNotation;
+import org.jdom2.JDOMException;
+
+/**
+ * ValidationContext, class to hold the lookups of one HELM2Notation needed
+ * for the validation of its connections: the positions of every monomer unit
+ * in a polymer and the monomers at a position. Every
+ * lookup is built once, on first use, so the validation of many connections
+ * does not scan the polymers again.
+ *
+ * The context is not thread-safe and must not outlive changes of the
+ * HELM2Notation.
+ *
+ * @author hecht
+ */
+final class ValidationContext {
+
+  private final Map<String, PolymerNotation> polymers = new HashMap<String, PolymerNotation>();
+
+  private final Map<String, Map<String, List<Integer>>> positions = new HashMap<String, Map<String, List<Integer>>>();
+
+  private final Map<String, Map<Integer, List<Monomer>>> monomers = new HashMap<String, Map<Integer, List<Monomer>>>();
+
+  /**
+   * Constructs the context for the given HELM2Notation
+   *
+   * @param helm2notation HELM2Notation object
+   */
+  ValidationContext(final HELM2Notation helm2notation) {
+    for (PolymerNotation polymer : helm2notation.getListOfPolymers()) {
+      polymers.put(polymer.getPolymerID().getId(), polymer);
+    }
+  }
+
+  /**
+   * method to get the positions of the given monomer unit in the polymer
+   *
+   * @param id polymer id
+   * @param unit monomer unit
+   * @return positions of the unit, starting with 1, in ascending order; empty
+   *         if the unit is not in the polymer
+   */
+  List<Integer> getPositions(final String id, final String unit) {
+    Map<String, List<Integer>> units = positions.get(id);
+    if (units == null) {
+      units = new HashMap<String, List<Integer>>();
+      List<MonomerNotation> elements = polymers.get(id).getPolymerElements().getListOfElements();
+      for (int i = 0; i < elements.size(); i++) {
+        List<Integer> list = units.get(elements.get(i).getUnit());
+        if (list == null) {
+          list = new ArrayList<Integer>();
+          units.put(elements.get(i).getUnit(), list);
+        }
+        list.add(i + 1);
+      }
+      positions.put(id, units);
+    }
+    List<Integer> list = units.get(unit);
+    return list == null ? Collections.<Integer> emptyList() : Collections.unmodifiableList(list);
+  }
+
+  /**
+   * method to get all monomers at the given position of the polymer, see
+   * {@link Validation#getAllMonomers(MonomerNotation, int)}
+   *
+   * @param id polymer id
+   * @param position position of the MonomerNotation, starting with 1
+   * @return unmodifiable List of Monomer
+   * @throws HELM2HandledException if HELM2 features were there
+   * @throws MonomerException
+   * @throws IOException
+   * @throws JDOMException
+   * @throws NotationException
+   * @throws ChemistryException if the Chemistry Engine can not be initialized
+   * @throws CTKException
+   * @throws org.helm.notation2.parser.exceptionparser.NotationException
+   */
+  List<Monomer> getMonomers(final String id, final int position) throws HELM2HandledException, MonomerException, IOException, JDOMException,
+      NotationException, ChemistryException, CTKException, org.helm.notation2.parser.exceptionparser.NotationException {
+    Map<Integer, List<Monomer>> cached = monomers.get(id);
+    if (cached == null) {
+      cached = new HashMap<Integer, List<Monomer>>();
+      monomers.put(id, cached);
+    }
+    List<Monomer> list = cached.get(position);
+    if (list == null) {
+      list = Collections.unmodifiableList(Validation.getAllMonomers(polymers.get(id).getMonomerNotation(position), position));
+      cached.put(position, list);
+    }
+    return list;
+  }
+}
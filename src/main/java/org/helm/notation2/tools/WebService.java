@@ -25,9 +25,17 @@ package org.helm.notation2.tools;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.helm.chemtoolkit.CTKException;
 import org.helm.notation2.MoleculeProperty;
@@ -144,6 +152,15 @@ public class WebService {
    * @throws NotationException
    */
   private HELM2Notation validate(String helm) throws ValidationException, ChemistryException {
+    /* xHELM input changes the monomer store and is never cached */
+    NotationCache cache = helm.contains("<Xhelm>") ? null : NotationCache.getInstance();
+    if (cache != null) {
+      HELM2Notation cached = cache.get(helm);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    long storeVersion = MonomerFactory.getStoreVersion();
 
     try {
       /* Read */
@@ -154,6 +171,9 @@ public class WebService {
       Validation.validateNotationObjects(helm2notation);
       LOG.info("Validation was successful");
 
+      if (cache != null) {
+        cache.put(helm, helm2notation, storeVersion);
+      }
       return helm2notation;
 
     } catch (MonomerException | GroupingNotationException | ConnectionNotationException | PolymerIDsException | ParserException | JDOMException | IOException | NotationException
@@ -522,4 +542,177 @@ public class WebService {
     return result;
   }
 
+  /**
+   * method to calculate the requested outputs for a batch of HELM inputs with
+   * one thread per available processor
+   *
+   * @param notations HELM inputs
+   * @param outputs requested outputs
+   * @return one result per input, in input order
+   * @throws InterruptedException if the batch was interrupted
+   */
+  public List<BatchResult> processBatch(List<String> notations, Set<BatchOutput> outputs) throws InterruptedException {
+    return processBatch(notations, outputs, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * method to calculate the requested outputs for a batch of HELM inputs:
+   * every input is read and validated only once and all requested outputs are
+   * calculated from the same notation objects. The inputs are distributed over
+   * the given number of threads; errors are reported per input and output in
+   * the results. xHELM inputs are not supported, because they change the
+   * monomer store.
+   *
+   * @param notations HELM inputs
+   * @param outputs requested outputs
+   * @param parallelism number of threads
+   * @return one result per input, in input order
+   * @throws InterruptedException if the batch was interrupted
+   */
+  public List<BatchResult> processBatch(List<String> notations, Set<BatchOutput> outputs, int parallelism) throws InterruptedException {
+    final Set<BatchOutput> requested = EnumSet.noneOf(BatchOutput.class);
+    requested.addAll(outputs);
+    List<BatchResult> results = new ArrayList<BatchResult>(notations.size());
+    if (parallelism <= 1) {
+      for (int i = 0; i < notations.size(); i++) {
+        results.add(processNotation(i, notations.get(i), requested));
+      }
+      return results;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      List<Future<BatchResult>> futures = new ArrayList<Future<BatchResult>>(notations.size());
+      for (int i = 0; i < notations.size(); i++) {
+        final int index = i;
+        final String notation = notations.get(i);
+        futures.add(executor.submit(new Callable<BatchResult>() {
+          @Override
+          public BatchResult call() {
+            return processNotation(index, notation, requested);
+          }
+        }));
+      }
+      for (Future<BatchResult> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException e) {
+          /* processNotation reports every failure in its result */
+          throw new IllegalStateException(e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
+  /**
+   * method to read and validate one HELM input of a batch and to calculate
+   * all requested outputs from it
+   *
+   * @param index position of the input in the batch
+   * @param notation HELM input
+   * @param outputs requested outputs
+   * @return result of the input
+   */
+  private BatchResult processNotation(int index, String notation, Set<BatchOutput> outputs) {
+    BatchResult result = new BatchResult(index, notation);
+    if (notation == null) {
+      result.setValidationError("HELM input must be specified");
+      return result;
+    }
+    if (notation.contains("<Xhelm>")) {
+      result.setValidationError("xHELM input is not supported in batch processing");
+      return result;
+    }
+
+    HELM2Notation helm2notation;
+    try {
+      helm2notation = validate(notation);
+    } catch (ValidationException | ChemistryException | RuntimeException e) {
+      result.setValidationError(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+      return result;
+    }
+
+    /* build the molecule only once if several mass properties are requested */
+    MoleculeProperty massProperties = null;
+    int numberOfMassProperties = 0;
+    for (BatchOutput output : outputs) {
+      if (output.isMassProperty()) {
+        numberOfMassProperties++;
+      }
+    }
+    if (numberOfMassProperties > 1) {
+      try {
+        massProperties = MoleculePropertyCalculator.getMassProperties(helm2notation);
+      } catch (BuilderMoleculeException | CTKException | ChemistryException | RuntimeException e) {
+        for (BatchOutput output : outputs) {
+          if (output.isMassProperty()) {
+            result.putError(output, e.getMessage());
+          }
+        }
+      }
+    }
+
+    for (BatchOutput output : outputs) {
+      if (output.isMassProperty() && numberOfMassProperties > 1) {
+        if (massProperties != null) {
+          result.putResult(output, getMassProperty(output, massProperties));
+        }
+        continue;
+      }
+      try {
+        result.putResult(output, calculate(output, helm2notation));
+      } catch (Exception e) {
+        /* a failed output does not affect the other outputs */
+        LOG.debug("Batch output " + output + " failed for " + notation, e);
+        result.putError(output, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+      }
+    }
+    return result;
+  }
+
+  private static Object getMassProperty(BatchOutput output, MoleculeProperty massProperties) {
+    switch (output) {
+      case MOLECULAR_WEIGHT:
+        return massProperties.getMolecularWeight();
+      case MOLECULAR_FORMULA:
+        return massProperties.getMolecularFormula();
+      default:
+        return massProperties.getExactMass();
+    }
+  }
+
+  private static Object calculate(BatchOutput output, HELM2Notation helm2notation) throws Exception {
+    switch (output) {
+      case CANONICAL_HELM:
+        return HELM1Utils.getCanonical(helm2notation);
+      case STANDARD_HELM:
+        return HELM1Utils.getStandard(helm2notation);
+      case MOLECULAR_WEIGHT:
+        return MoleculePropertyCalculator.getMolecularWeight(helm2notation);
+      case MOLECULAR_FORMULA:
+        return MoleculePropertyCalculator.getMolecularFormular(helm2notation);
+      case EXACT_MASS:
+        return MoleculePropertyCalculator.getExactMass(helm2notation);
+      case EXTINCTION_COEFFICIENT:
+        return ExtinctionCoefficient.getInstance().calculate(helm2notation);
+      case FASTA:
+        return FastaFormat.generateFasta(helm2notation);
+      case SMILES:
+        return SMILES.getSMILESForAll(helm2notation);
+      case CANONICAL_SMILES:
+        return SMILES.getCanonicalSMILESForAll(helm2notation);
+      case JSON:
+        return HELM2NotationUtils.toJSON(helm2notation);
+      case NATURAL_ANALOG_PEPTIDE:
+        return SequenceConverter.getPeptideNaturalAnalogSequenceFromNotation(helm2notation);
+      case NATURAL_ANALOG_RNA:
+        return SequenceConverter.getNucleotideNaturalAnalogSequenceFromNotation(helm2notation);
+      default:
+        throw new IllegalArgumentException("Unknown batch output " + output);
+    }
+  }
+
 }
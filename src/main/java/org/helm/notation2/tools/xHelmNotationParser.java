@@ -24,6 +24,7 @@
 package org.helm.notation2.tools;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -83,10 +84,12 @@ public class xHelmNotationParser {
       @SuppressWarnings("unchecked")
       List<Element> elementList = monomerListElement.getChildren("Monomer");
 
+      List<Monomer> monomers = new ArrayList<Monomer>(elementList.size());
       for (Element monomerElement : elementList) {
-        Monomer m = MonomerParser.getMonomer(monomerElement);
-        monomerStore.addMonomer(m);
+        monomers.add(MonomerParser.getMonomer(monomerElement));
       }
+      /* one snapshot of the store for all monomers */
+      monomerStore.addMonomers(monomers, false);
     }
     return monomerStore;
   }
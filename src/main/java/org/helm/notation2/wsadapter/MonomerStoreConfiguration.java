@@ -77,6 +77,10 @@ public class MonomerStoreConfiguration {
 
   private static final String EXTERNAL_NUCLEOTIDES_PATH = "external.nucleotides.path";
 
+  private static final String MONOMER_LOAD_PARALLELISM = "monomer.load.parallelism";
+
+  private static final int DEFAULT_MONOMER_LOAD_PARALLELISM = 1;
+
   private static MonomerStoreConfiguration _instance;
 
   private boolean isUseWebservice;
@@ -107,6 +111,8 @@ public class MonomerStoreConfiguration {
 
   private String webserviceEditorCategorizationPath;
 
+  private int monomerLoadParallelism = DEFAULT_MONOMER_LOAD_PARALLELISM;
+
   /**
    * Private singleton constructor that initializes
    * {@code MonomerStoreConfiguration} using local config file.
@@ -130,6 +136,7 @@ public class MonomerStoreConfiguration {
     webserviceEditorCategorizationPath = "";
     externalNucleotidesPath = "";
     externalMonomersPath = "";
+    monomerLoadParallelism = DEFAULT_MONOMER_LOAD_PARALLELISM;
   }
 
   /**
@@ -291,6 +298,26 @@ public class MonomerStoreConfiguration {
     return externalMonomersPath;
   }
 
+  /**
+   * Returns the number of threads used to validate the monomers while the
+   * monomer store is loaded.
+   *
+   * @return number of threads, 1 means sequential loading
+   */
+  public int getMonomerLoadParallelism() {
+    return monomerLoadParallelism;
+  }
+
+  /**
+   * Sets the number of threads used to validate the monomers while the monomer
+   * store is loaded.
+   *
+   * @param monomerLoadParallelism number of threads, 1 means sequential loading
+   */
+  public void setMonomerLoadParallelism(int monomerLoadParallelism) {
+    this.monomerLoadParallelism = Math.max(1, monomerLoadParallelism);
+  }
+
   /**
    * Refreshes the configuration using the local properties file.
    */
@@ -349,6 +376,8 @@ public class MonomerStoreConfiguration {
       externalMonomersPath = conf.getString(EXTERNAL_MONOMERS_PATH);
       isUseExternalNucleotides = conf.getBoolean(USE_EXTERNAL_NUCLEOTIDES);
       externalNucleotidesPath = conf.getString(EXTERNAL_NUCLEOTIDES_PATH);
+      /* older config files do not contain the parallelism */
+      setMonomerLoadParallelism(conf.getInt(MONOMER_LOAD_PARALLELISM, DEFAULT_MONOMER_LOAD_PARALLELISM));
 
     } catch (ConfigurationException | NoSuchElementException e) {
       resetConfigToDefault();
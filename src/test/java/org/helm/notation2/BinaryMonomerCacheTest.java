@@ -0,0 +1,130 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.helm.notation2.exception.MonomerException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BinaryMonomerCacheTest {
+
+  private static MonomerCache createCache() {
+    Attachment r1 = new Attachment("R1", "R1-H");
+    r1.setAlternateId("R1-H");
+    r1.setCapGroupSMILES("[*][H] |$_R1;$|");
+    Attachment r2 = new Attachment("R2", "R2-OH");
+    r2.setAlternateId("R2-OH");
+    r2.setCapGroupSMILES("O[*] |$;_R2$|");
+
+    Monomer monomer = new Monomer(Monomer.PEPTIDE_POLYMER_TYPE, Monomer.BACKBONE_MOMONER_TYPE, "A", "A");
+    monomer.setId(7);
+    monomer.setName("Alanine");
+    monomer.setCanSMILES("C[C@H](N[*])C([*])=O |$;;;_R1;;_R2;$|");
+    monomer.addAttachment(new Attachment(r1));
+    monomer.addAttachment(new Attachment(r2));
+
+    Map<String, Monomer> peptides = new HashMap<String, Monomer>();
+    peptides.put(monomer.getAlternateId(), monomer);
+    Map<String, Map<String, Monomer>> monomerDB = new HashMap<String, Map<String, Monomer>>();
+    monomerDB.put(Monomer.PEPTIDE_POLYMER_TYPE, peptides);
+    Map<String, Monomer> smilesDB = new HashMap<String, Monomer>();
+    smilesDB.put(monomer.getCanSMILES(), monomer);
+    Map<String, Attachment> attachmentDB = new HashMap<String, Attachment>();
+    attachmentDB.put(r1.getAlternateId(), r1);
+    attachmentDB.put(r2.getAlternateId(), r2);
+
+    MonomerCache cache = new MonomerCache();
+    cache.setMonomerDB(monomerDB);
+    cache.setSmilesMonomerDB(smilesDB);
+    cache.setAttachmentDB(attachmentDB);
+    return cache;
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException, MonomerException {
+    File file = File.createTempFile("MonomerCache", ".bin");
+    try {
+      BinaryMonomerCache.write(createCache(), file);
+      MonomerCache cache = BinaryMonomerCache.read(file);
+
+      Monomer monomer = cache.getMonomerDB().get(Monomer.PEPTIDE_POLYMER_TYPE).get("A");
+      Assert.assertEquals(monomer.getId(), 7);
+      Assert.assertEquals(monomer.getName(), "Alanine");
+      Assert.assertEquals(monomer.getNaturalAnalog(), "A");
+      Assert.assertEquals(monomer.getMonomerType(), Monomer.BACKBONE_MOMONER_TYPE);
+      Assert.assertNull(monomer.getMolfile());
+      Assert.assertEquals(monomer.getAttachmentList().size(), 2);
+      Assert.assertEquals(monomer.getAttachment("R2").getCapGroupSMILES(), "O[*] |$;_R2$|");
+
+      Assert.assertSame(cache.getSmilesMonomerDB().get(monomer.getCanSMILES()), monomer);
+      Assert.assertEquals(cache.getAttachmentDB().get("R1-H").getLabel(), "R1");
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test(expectedExceptions = MonomerException.class)
+  public void testCorruptedCacheIsRejected() throws IOException, MonomerException {
+    File file = File.createTempFile("MonomerCache", ".bin");
+    try {
+      BinaryMonomerCache.write(createCache(), file);
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+        raf.seek(12);
+        raf.write(raf.read() ^ 0xFF);
+      } finally {
+        raf.close();
+      }
+      BinaryMonomerCache.read(file);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testFailedWriteLeavesNoTemporaryFile() throws IOException {
+    /* a non-empty directory can not be replaced by the cache file */
+    File file = File.createTempFile("MonomerCache", ".bin");
+    file.delete();
+    file.mkdir();
+    File content = new File(file, "content");
+    content.createNewFile();
+    try {
+      BinaryMonomerCache.write(createCache(), file);
+      Assert.fail("IOException expected");
+    } catch (IOException e) {
+      Assert.assertFalse(new File(file.getPath() + ".tmp").exists());
+    } finally {
+      content.delete();
+      file.delete();
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.helm.chemtoolkit.AbstractChemistryManipulator;
+import org.helm.notation2.exception.ChemistryException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ChemistryTest {
+
+  @Test
+  public void testManipulatorPerThread() throws Exception {
+    final Chemistry chemistry = Chemistry.getInstance();
+    AbstractChemistryManipulator manipulator = chemistry.getManipulator();
+    Assert.assertSame(chemistry.getManipulator(), manipulator);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      AbstractChemistryManipulator other = executor.submit(new Callable<AbstractChemistryManipulator>() {
+        @Override
+        public AbstractChemistryManipulator call() throws ChemistryException {
+          Assert.assertSame(Chemistry.getInstance(), chemistry);
+          return Chemistry.getInstance().getManipulator();
+        }
+      }).get();
+      Assert.assertNotNull(other);
+      Assert.assertNotSame(other, manipulator);
+      Assert.assertEquals(other.getClass(), manipulator.getClass());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.helm.notation2.exception.MonomerException;
+import org.helm.notation2.exception.NotationException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DeepCopyTest {
+
+  @Test
+  public void testCopyMonomer() throws IOException, MonomerException {
+    Monomer monomer = new Monomer(Monomer.PEPTIDE_POLYMER_TYPE, Monomer.BACKBONE_MOMONER_TYPE, "A", "A");
+    monomer.setCanSMILES("C[C@H](N[*])C([*])=O |$;;;_R1;;_R2;$|");
+    monomer.setName("Alanine");
+    monomer.setNewMonomer(true);
+    Attachment attachment = new Attachment("R1", "H");
+    attachment.setAlternateId("R1-H");
+    attachment.setCapGroupSMILES("[*][H] |$_R1;$|");
+    monomer.addAttachment(attachment);
+
+    Monomer copy = DeepCopy.copy(monomer);
+    Assert.assertNotSame(copy, monomer);
+    Assert.assertEquals(copy.getAlternateId(), "A");
+    Assert.assertEquals(copy.getCanSMILES(), monomer.getCanSMILES());
+    Assert.assertEquals(copy.getName(), "Alanine");
+    Assert.assertTrue(copy.isNewMonomer());
+    Assert.assertNotSame(copy.getAttachmentList(), monomer.getAttachmentList());
+    Assert.assertNotSame(copy.getAttachment("R1"), attachment);
+    Assert.assertEquals(copy.getAttachment("R1").getCapGroupSMILES(), "[*][H] |$_R1;$|");
+
+    copy.getAttachment("R1").setCapGroupName("OH");
+    copy.addAttachment(new Attachment("R2", "OH"));
+    Assert.assertEquals(attachment.getCapGroupName(), "H");
+    Assert.assertEquals(monomer.getAttachmentList().size(), 1);
+  }
+
+  @Test
+  public void testCopyNucleotide() throws IOException, NotationException {
+    Nucleotide nucleotide = new Nucleotide("A", "R(A)P", Nucleotide.STARTING_POSITION_TYPE);
+    Nucleotide copy = DeepCopy.copy(nucleotide);
+    Assert.assertNotSame(copy, nucleotide);
+    Assert.assertEquals(copy.getSymbol(), "A");
+    Assert.assertEquals(copy.getNotation(), "R(A)P");
+    Assert.assertEquals(copy.getPositionType(), Nucleotide.STARTING_POSITION_TYPE);
+  }
+
+  @Test
+  public void testCopyListOfArrays() throws IOException, ClassNotFoundException {
+    List<String[]> list = new ArrayList<String[]>();
+    list.add(new String[] {"A", "B"});
+    list.add(new String[] {"C"});
+
+    List<String[]> copy = DeepCopy.copy(list);
+    Assert.assertEquals(copy.size(), 2);
+    Assert.assertNotSame(copy.get(0), list.get(0));
+    Assert.assertEquals(copy.get(0), list.get(0));
+    copy.get(0)[0] = "X";
+    Assert.assertEquals(list.get(0)[0], "A");
+  }
+
+}
@@ -31,6 +31,7 @@ import org.helm.notation2.calculation.MoleculePropertyCalculator;
 import org.helm.notation2.exception.AnalogSequenceException;
 import org.helm.notation2.exception.BuilderMoleculeException;
 import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.ExtinctionCoefficientException;
 import org.helm.notation2.exception.FastaFormatException;
 import org.helm.notation2.exception.MonomerException;
 import org.helm.notation2.exception.MonomerLoadingException;
@@ -132,6 +133,19 @@ public class MoleculePropertyCalculatorTest {
     Assert.assertEquals(MoleculePropertyCalculator.getMolecularFormular(HELM2NotationUtils.readNotation(newNotation)), "C51H87N15O14S2");
 
   }
+
+  @Test
+  public void testGetMoleculeProperties() throws ParserException, JDOMException, BuilderMoleculeException, CTKException, ExtinctionCoefficientException, ChemistryException {
+    String notation = "PEPTIDE1{A.G.G.G.C.C.K.K.K.K}|CHEM1{[MCC]}$PEPTIDE1,CHEM1,10:R3-1:R1$$$";
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation(notation);
+    MoleculeProperty property = MoleculePropertyCalculator.getMoleculeProperties(helm2notation);
+    Assert.assertEquals(property.getMolecularFormula(), "C51H87N15O14S2");
+    Assert.assertEquals(property.getMolecularWeight(), MoleculePropertyCalculator.getMolecularWeight(helm2notation), 1e-6);
+    Assert.assertEquals(property.getExactMass(), MoleculePropertyCalculator.getExactMass(helm2notation), 1e-6);
+    Assert.assertTrue(property.getBuildTime() > 0);
+    Assert.assertTrue(property.getCappingTime() > 0);
+    Assert.assertTrue(property.getCalculationTime() > 0);
+  }
   
   
   
@@ -0,0 +1,64 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2;
+
+import org.helm.chemtoolkit.CTKException;
+import org.helm.notation2.calculation.MoleculePropertyCalculator;
+import org.helm.notation2.calculation.MonomerContributionCalculator;
+import org.helm.notation2.exception.BuilderMoleculeException;
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.ParserException;
+import org.helm.notation2.parser.notation.HELM2Notation;
+import org.helm.notation2.tools.HELM2NotationUtils;
+import org.jdom2.JDOMException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MonomerContributionCalculatorTest {
+
+  private static final String[] NOTATIONS = {
+      "PEPTIDE1{L.P}$$$$",
+      "PEPTIDE1{L.L.L}$$$$",
+      "PEPTIDE1{A.G.G.W.E.E.E.E.E.W}$$$$",
+      "PEPTIDE1{A.G}|PEPTIDE2{L.G}$$$$V2.0",
+      "PEPTIDE1{A.A.G.K}$PEPTIDE1,PEPTIDE1,1:R1-4:R2$$$",
+      "PEPTIDE1{K.A.A.G.K}$PEPTIDE1,PEPTIDE1,1:R1-5:R2$$$",
+      "PEPTIDE1{D.F.D}|PEPTIDE2{C}|PEPTIDE3{E.D}$PEPTIDE3,PEPTIDE1,2:R3-1:R3|PEPTIDE2,PEPTIDE1,1:R3-3:R3$$$",
+      "RNA1{R(A)P}$$$$",
+      "RNA1{R(A)P.R(G)}$$$$",
+      "RNA1{R(G)P.R(A)P.R(G)P.R(G)}|RNA2{R(C)P.R(C)P.R(U)P.R(C)}$$RNA1,RNA2,5:pair-8:pair|RNA1,RNA2,11:pair-2:pair|RNA1,RNA2,8:pair-5:pair|RNA1,RNA2,2:pair-11:pair$$",
+      "PEPTIDE1{A.G.G.G.C.C.K.K.K.K}|CHEM1{[MCC]}$PEPTIDE1,CHEM1,10:R3-1:R1$$$",
+      "CHEM1{[MCC]}|CHEM2{[Az]}$CHEM2,CHEM1,1:R1-1:R1$$$"};
+
+  @Test
+  public void testCrossCheckWithMoleculePropertyCalculator() throws ParserException, JDOMException, BuilderMoleculeException, CTKException, ChemistryException {
+    for (String notation : NOTATIONS) {
+      HELM2Notation helm2notation = HELM2NotationUtils.readNotation(notation);
+      Assert.assertEquals(MonomerContributionCalculator.getMolecularFormular(helm2notation), MoleculePropertyCalculator.getMolecularFormular(helm2notation), notation);
+      Assert.assertEquals(MonomerContributionCalculator.getMolecularWeight(helm2notation), MoleculePropertyCalculator.getMolecularWeight(helm2notation), 0.01, notation);
+      Assert.assertEquals(MonomerContributionCalculator.getExactMass(helm2notation), MoleculePropertyCalculator.getExactMass(helm2notation), 0.01, notation);
+    }
+  }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.helm.notation2.exception.MonomerException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MonomerStoreTest {
+
+  @Test
+  public void testAddMonomerPublishesNewSnapshot() throws IOException, MonomerException {
+    MonomerStore store = new MonomerStore();
+    Map<String, Map<String, Monomer>> before = store.getMonomerDB();
+
+    Monomer monomer = new Monomer(Monomer.PEPTIDE_POLYMER_TYPE, Monomer.BACKBONE_MOMONER_TYPE, "A", "A");
+    monomer.setCanSMILES("C[C@H](N[*])C([*])=O |$;;;_R1;;_R2;$|");
+    store.addMonomer(monomer);
+
+    Assert.assertTrue(before.isEmpty());
+    Assert.assertTrue(store.hasMonomer(Monomer.PEPTIDE_POLYMER_TYPE, "A"));
+    Assert.assertNotSame(store.getMonomer(Monomer.PEPTIDE_POLYMER_TYPE, "A"), monomer);
+    Assert.assertNotNull(store.getMonomer(monomer.getCanSMILES()));
+  }
+
+  @Test
+  public void testAddMonomersPublishesOneSnapshot() throws IOException, MonomerException {
+    MonomerStore store = new MonomerStore();
+    store.addMonomer(new Monomer(Monomer.PEPTIDE_POLYMER_TYPE, Monomer.BACKBONE_MOMONER_TYPE, "G", "G"));
+    Map<String, Map<String, Monomer>> before = store.getMonomerDB();
+    long version = MonomerFactory.getStoreVersion();
+
+    store.addMonomers(Arrays.asList(new Monomer(Monomer.PEPTIDE_POLYMER_TYPE, Monomer.BACKBONE_MOMONER_TYPE, "A", "A"),
+        new Monomer(Monomer.PEPTIDE_POLYMER_TYPE, Monomer.BACKBONE_MOMONER_TYPE, "G", "G"),
+        new Monomer(Monomer.NUCLIEC_ACID_POLYMER_TYPE, Monomer.BACKBONE_MOMONER_TYPE, "R", "R")), true);
+
+    Assert.assertEquals(MonomerFactory.getStoreVersion(), version + 1);
+    Assert.assertEquals(before.get(Monomer.PEPTIDE_POLYMER_TYPE).size(), 1);
+    Assert.assertEquals(store.getMonomers(Monomer.PEPTIDE_POLYMER_TYPE).size(), 2);
+    Assert.assertTrue(store.hasMonomer(Monomer.NUCLIEC_ACID_POLYMER_TYPE, "R"));
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testMonomerDBIsUnmodifiable() throws IOException, MonomerException {
+    MonomerStore store = new MonomerStore();
+    store.addMonomer(new Monomer(Monomer.PEPTIDE_POLYMER_TYPE, Monomer.BACKBONE_MOMONER_TYPE, "G", "G"));
+    store.getMonomers(Monomer.PEPTIDE_POLYMER_TYPE).put("X", new Monomer());
+  }
+
+}
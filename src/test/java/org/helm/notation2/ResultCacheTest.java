@@ -0,0 +1,201 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.helm.chemtoolkit.CTKException;
+import org.helm.chemtoolkit.CTKSmilesException;
+import org.helm.notation2.calculation.MemoryResultCache;
+import org.helm.notation2.calculation.MemoryResultCache.EvictionPolicy;
+import org.helm.notation2.calculation.MoleculePropertyCalculator;
+import org.helm.notation2.calculation.ResultCacheManager;
+import org.helm.notation2.exception.BuilderMoleculeException;
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.MonomerException;
+import org.helm.notation2.exception.MonomerLoadingException;
+import org.helm.notation2.exception.NotationException;
+import org.helm.notation2.exception.ParserException;
+import org.helm.notation2.parser.notation.HELM2Notation;
+import org.helm.notation2.tools.HELM1Utils;
+import org.helm.notation2.tools.HELM2NotationUtils;
+import org.helm.notation2.tools.SMILES;
+import org.jdom2.JDOMException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class ResultCacheTest {
+
+  @AfterMethod
+  public void disableResultCache() {
+    ResultCacheManager.setResultCache(null);
+  }
+
+  @Test
+  public void testEvictionPolicies() {
+    MemoryResultCache lru = new MemoryResultCache(2, EvictionPolicy.LRU);
+    MemoryResultCache fifo = new MemoryResultCache(2, EvictionPolicy.FIFO);
+    for (MemoryResultCache cache : new MemoryResultCache[] {lru, fifo}) {
+      cache.put("a", "1");
+      cache.put("b", "2");
+      cache.get("a");
+      cache.put("c", "3");
+      Assert.assertEquals(cache.getEvictionCount(), 1);
+    }
+    Assert.assertNotNull(lru.get("a"));
+    Assert.assertNull(lru.get("b"));
+    Assert.assertNull(fifo.get("a"));
+    Assert.assertNotNull(fifo.get("b"));
+  }
+
+  @Test
+  public void testSpill() throws IOException {
+    File directory = File.createTempFile("results", "");
+    directory.delete();
+    try {
+      MemoryResultCache cache = new MemoryResultCache(1, EvictionPolicy.LRU, directory);
+      cache.put("a", 1.5);
+      cache.put("b", 2.5);
+      Assert.assertEquals(cache.size(), 1);
+
+      /* a new cache, e.g. after a restart, finds the spilled result */
+      MemoryResultCache restarted = new MemoryResultCache(1, EvictionPolicy.LRU, directory);
+      Assert.assertEquals(restarted.get("a"), 1.5);
+      Assert.assertEquals(restarted.getSpillHitCount(), 1);
+      Assert.assertNull(restarted.get("c"));
+      Assert.assertEquals(restarted.getMissCount(), 1);
+    } finally {
+      for (File file : directory.listFiles()) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  @Test
+  public void testSpillIsBounded() throws IOException {
+    File directory = File.createTempFile("results", "");
+    directory.delete();
+    try {
+      MemoryResultCache cache = new MemoryResultCache(1, EvictionPolicy.LRU, directory, 2);
+      cache.put("a", 1.5);
+      cache.put("b", 2.5);
+      cache.put("c", 3.5);
+      cache.put("d", 4.5);
+      Assert.assertEquals(cache.getSpilledCount(), 2);
+      Assert.assertEquals(directory.listFiles().length, 2);
+
+      /* the oldest results were deleted, a result read back leaves the directory */
+      MemoryResultCache restarted = new MemoryResultCache(1, EvictionPolicy.LRU, directory, 2);
+      Assert.assertNull(restarted.get("a"));
+      Assert.assertEquals(restarted.get("b"), 2.5);
+      Assert.assertEquals(restarted.getSpilledCount(), 1);
+      Assert.assertEquals(directory.listFiles().length, 1);
+    } finally {
+      for (File file : directory.listFiles()) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  @Test
+  public void testSpillIsTyped() throws IOException {
+    File directory = File.createTempFile("results", "");
+    directory.delete();
+    try {
+      MemoryResultCache cache = new MemoryResultCache(1, EvictionPolicy.FIFO, directory);
+      cache.put("formula", "C6H12O6");
+      cache.put("coefficient", 1.5f);
+      cache.put("list", new ArrayList<String>());
+      cache.put("weight", 180.16);
+      /* only results of the typed format are written */
+      Assert.assertEquals(cache.getSpilledCount(), 2);
+
+      MemoryResultCache restarted = new MemoryResultCache(3, EvictionPolicy.FIFO, directory);
+      Assert.assertEquals(restarted.get("formula"), "C6H12O6");
+      Assert.assertEquals(restarted.get("coefficient"), 1.5f);
+      Assert.assertNull(restarted.get("list"));
+    } finally {
+      for (File file : directory.listFiles()) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  @Test
+  public void testKeyOfHELM2Notation() throws ParserException, JDOMException, ChemistryException {
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation("PEPTIDE1{(A,G).C}$$$$V2.0");
+    Assert.assertTrue(HELM1Utils.containsHELM2Features(helm2notation));
+    Assert.assertTrue(ResultCacheManager.generateKey(helm2notation, "MW").endsWith("|MW|" + helm2notation.toHELM2()));
+    Assert.assertFalse(HELM1Utils.containsHELM2Features(HELM2NotationUtils.readNotation("PEPTIDE1{A.G.C}$$$$V2.0")));
+  }
+
+  @Test
+  public void testAdHocMonomerKeepsKey() throws ParserException, JDOMException, ChemistryException, MonomerLoadingException, IOException, MonomerException {
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation("PEPTIDE1{A.G.G}$$$$");
+    String key = ResultCacheManager.generateKey(helm2notation, "MW");
+
+    Monomer monomer = new Monomer(Monomer.CHEMICAL_POLYMER_TYPE, Monomer.UNDEFINED_MOMONER_TYPE, "", "AM#ResultCacheTest");
+    monomer.setCanSMILES("[*]OCCCCCCCO[*] |$_R1;;;;;;;;;_R2$|");
+    monomer.setAdHocMonomer(true);
+    MonomerFactory.getInstance().getMonomerStore().addNewMonomer(monomer);
+
+    Assert.assertEquals(ResultCacheManager.generateKey(helm2notation, "MW"), key);
+  }
+
+  @Test
+  public void testMolecularWeightIsCached() throws ParserException, JDOMException, BuilderMoleculeException, CTKException, ChemistryException {
+    MemoryResultCache cache = new MemoryResultCache(100, EvictionPolicy.LRU);
+    ResultCacheManager.setResultCache(cache);
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation("PEPTIDE1{A.G.G}$$$$");
+
+    double first = MoleculePropertyCalculator.getMolecularWeight(helm2notation);
+    double second = MoleculePropertyCalculator.getMolecularWeight(helm2notation);
+
+    Assert.assertEquals(second, first);
+    Assert.assertEquals(cache.getMissCount(), 1);
+    Assert.assertEquals(cache.getHitCount(), 1);
+  }
+
+  @Test
+  public void testCanonicalSMILESKeepsPolymerOrder() throws ParserException, JDOMException, BuilderMoleculeException, CTKException, CTKSmilesException, NotationException,
+      ChemistryException {
+    HELM2Notation first = HELM2NotationUtils.readNotation("PEPTIDE1{A}|PEPTIDE2{G}$$$$");
+    HELM2Notation second = HELM2NotationUtils.readNotation("PEPTIDE1{G}|PEPTIDE2{A}$$$$");
+    String expectedFirst = SMILES.getCanonicalSMILESForAll(first);
+    String expectedSecond = SMILES.getCanonicalSMILESForAll(second);
+    Assert.assertNotEquals(expectedSecond, expectedFirst);
+
+    ResultCacheManager.setResultCache(new MemoryResultCache(100, EvictionPolicy.LRU));
+    Assert.assertEquals(SMILES.getCanonicalSMILESForAll(first), expectedFirst);
+    Assert.assertEquals(SMILES.getCanonicalSMILESForAll(second), expectedSecond);
+    Assert.assertEquals(SMILES.getCanonicalSMILESForAll(first), expectedFirst);
+  }
+
+}
@@ -25,10 +25,15 @@ package org.helm.notation2.tools;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
+import org.helm.chemtoolkit.AbstractChemistryManipulator;
 import org.helm.chemtoolkit.AbstractMolecule;
 import org.helm.chemtoolkit.AttachmentList;
 import org.helm.chemtoolkit.CTKException;
+import org.helm.chemtoolkit.CTKSmilesException;
 import org.helm.notation2.Attachment;
 import org.helm.notation2.Chemistry;
 import org.helm.notation2.Monomer;
@@ -103,6 +108,33 @@ public class BuilderMoleculeTest {
     System.out.println(MDLUtils.generateMDL(helm2notation));
   }
 
+  @Test
+  public void testBuildMoleculeCrossLinkedPeptides() throws ParserException, JDOMException, BuilderMoleculeException, NotationException, ChemistryException {
+    String notation = "PEPTIDE1{C.A.C}|PEPTIDE2{C.G.C}|CHEM1{[MCC]}$PEPTIDE1,PEPTIDE2,1:R3-1:R3|PEPTIDE1,PEPTIDE2,3:R3-3:R3$$$";
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation(notation);
+    List<AbstractMolecule> molecules = BuilderMolecule.buildMoleculefromPolymers(helm2notation.getListOfPolymers(), helm2notation.getListOfConnections());
+    Assert.assertEquals(molecules.size(), 2);
+  }
+
+  @Test
+  public void testBuildMoleculeWithExecutor() throws ParserException, JDOMException, BuilderMoleculeException, CTKException, CTKSmilesException, NotationException, ChemistryException {
+    String notation =
+        "PEPTIDE1{C.A.C.L.L.K}|PEPTIDE2{C.G.C.P.W}|PEPTIDE3{C.A.C.S.T}|PEPTIDE4{C.G.C.F.Y}$PEPTIDE1,PEPTIDE2,1:R3-1:R3|PEPTIDE3,PEPTIDE4,3:R3-3:R3|PEPTIDE1,PEPTIDE3,3:R3-1:R3$$$";
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation(notation);
+    List<AbstractMolecule> sequential = BuilderMolecule.buildMoleculefromPolymers(helm2notation.getListOfPolymers(), helm2notation.getListOfConnections());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<AbstractMolecule> parallel = BuilderMolecule.buildMoleculefromPolymers(helm2notation.getListOfPolymers(), helm2notation.getListOfConnections(), executor);
+      Assert.assertEquals(parallel.size(), sequential.size());
+      for (int i = 0; i < sequential.size(); i++) {
+        Assert.assertEquals(parallel.get(i).getRgroups().keySet(), sequential.get(i).getRgroups().keySet());
+        Assert.assertEquals(getCanonicalSMILES(parallel.get(i)), getCanonicalSMILES(sequential.get(i)));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testBuildMoleculePeptide() throws ParserException, JDOMException, BuilderMoleculeException, CTKException, NotationException, ChemistryException {
     String notation = "PEPTIDE1{L.P}$$$$";
@@ -124,6 +156,133 @@ public class BuilderMoleculeTest {
     Assert.assertEquals(MoleculePropertyCalculator.getMolecularFormular(helm2notation), "C20H25N10O11P");
   }
 
+  @Test
+  public void testBuildMoleculePeptideWithMonomerMoleculeCache() throws ParserException, JDOMException, BuilderMoleculeException, CTKException, NotationException, ChemistryException {
+    MonomerMoleculeCache.clear();
+    String notation = "PEPTIDE1{L.L.L}$$$$";
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation(notation);
+    Assert.assertEquals(MoleculePropertyCalculator.getMolecularFormular(helm2notation), "C18H35N3O4");
+    Assert.assertEquals(MonomerMoleculeCache.size(), 1);
+    Assert.assertEquals(MoleculePropertyCalculator.getMolecularFormular(helm2notation), "C18H35N3O4");
+  }
+
+  @Test
+  public void testBuildMoleculeLongPeptideChains() throws ParserException, JDOMException, BuilderMoleculeException, HELM2HandledException, NotationException, ChemistryException {
+    for (int length : new int[] {50, 500, 1000}) {
+      StringBuilder sb = new StringBuilder("PEPTIDE1{A");
+      for (int i = 1; i < length; i++) {
+        sb.append(".A");
+      }
+      sb.append("}$$$$");
+      HELM2Notation helm2notation = HELM2NotationUtils.readNotation(sb.toString());
+      RgroupStructure structure = BuilderMolecule.buildMoleculefromSinglePolymer(helm2notation.getListOfPolymers().get(0));
+      Assert.assertEquals(structure.getRgroupMap().size(), 2);
+      Assert.assertTrue(structure.getRgroupMap().containsKey("PEPTIDE1:1:R1"));
+      Assert.assertTrue(structure.getRgroupMap().containsKey("PEPTIDE1:" + length + ":R2"));
+    }
+  }
+
+  @Test
+  public void testBalancedChainIsIdenticalToLinearChain() throws ParserException, JDOMException, BuilderMoleculeException, HELM2HandledException, CTKException, CTKSmilesException,
+      NotationException, ChemistryException {
+    StringBuilder rna = new StringBuilder("RNA1{R(A)P");
+    StringBuilder peptide = new StringBuilder("PEPTIDE1{C");
+    String[] bases = {"C", "G", "U"};
+    String[] aminoacids = {"A", "G", "K", "L", "S", "W"};
+    for (int i = 0; i < 40; i++) {
+      rna.append(".R(" + bases[i % bases.length] + ")P");
+      peptide.append("." + aminoacids[i % aminoacids.length]);
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (String notation : new String[] {rna.append("}$$$$").toString(), peptide.append("}$$$$").toString()}) {
+        PolymerNotation polymer = HELM2NotationUtils.readNotation(notation).getListOfPolymers().get(0);
+        String id = polymer.getPolymerID().getId();
+        List<Monomer> monomers = MethodsMonomerUtils.getListOfHandledMonomers(polymer.getPolymerElements().getListOfElements());
+        RgroupStructure linear = BuilderMolecule.buildChainLinear(id, monomers);
+        RgroupStructure balanced = BuilderMolecule.buildChainBalanced(id, monomers, null);
+        RgroupStructure parallel = BuilderMolecule.buildChainBalanced(id, monomers, pool);
+        Assert.assertEquals(balanced.getRgroupMap().keySet(), linear.getRgroupMap().keySet());
+        Assert.assertEquals(parallel.getRgroupMap().keySet(), linear.getRgroupMap().keySet());
+        String expected = getCanonicalSMILES(linear.getMolecule());
+        Assert.assertEquals(getCanonicalSMILES(balanced.getMolecule()), expected);
+        Assert.assertEquals(getCanonicalSMILES(parallel.getMolecule()), expected);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testBalancedChainOfThousandResidues() throws ParserException, JDOMException, BuilderMoleculeException, HELM2HandledException, CTKException, CTKSmilesException,
+      NotationException, ChemistryException {
+    StringBuilder peptide = new StringBuilder("PEPTIDE1{C");
+    String[] aminoacids = {"A", "G", "K", "L", "S", "W"};
+    for (int i = 1; i < 1000; i++) {
+      peptide.append("." + aminoacids[i % aminoacids.length]);
+    }
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation(peptide.append("}$$$$").toString());
+    PolymerNotation polymer = helm2notation.getListOfPolymers().get(0);
+    List<Monomer> monomers = MethodsMonomerUtils.getListOfHandledMonomers(polymer.getPolymerElements().getListOfElements());
+    RgroupStructure linear = BuilderMolecule.buildChainLinear("PEPTIDE1", monomers);
+    String expected = getCanonicalSMILES(linear.getMolecule());
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      RgroupStructure balanced = BuilderMolecule.buildChainBalanced("PEPTIDE1", monomers, pool);
+      Assert.assertEquals(balanced.getRgroupMap().keySet(), linear.getRgroupMap().keySet());
+      Assert.assertEquals(getCanonicalSMILES(balanced.getMolecule()), expected);
+      /* the pool is passed through the public entry point */
+      List<AbstractMolecule> molecules = BuilderMolecule.buildMoleculefromPolymers(helm2notation.getListOfPolymers(), helm2notation.getListOfConnections(), pool, pool);
+      Assert.assertEquals(molecules.size(), 1);
+      Assert.assertEquals(getCanonicalSMILES(molecules.get(0)), expected);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testLongChainWithoutPoolIsBuiltLinear() throws ParserException, JDOMException, BuilderMoleculeException, HELM2HandledException, CTKException, NotationException,
+      ChemistryException {
+    StringBuilder peptide = new StringBuilder("PEPTIDE1{C");
+    for (int i = 0; i < 2 * BuilderMolecule.LINEAR_ASSEMBLY_LIMIT; i++) {
+      peptide.append(i % 2 == 0 ? ".A" : ".K");
+    }
+    PolymerNotation polymer = HELM2NotationUtils.readNotation(peptide.append("}$$$$").toString()).getListOfPolymers().get(0);
+    List<Monomer> monomers = MethodsMonomerUtils.getListOfHandledMonomers(polymer.getPolymerElements().getListOfElements());
+    AbstractChemistryManipulator manipulator = Chemistry.getInstance().getManipulator();
+    /* same atom order: the SMILES are equal without canonicalization */
+    String expected = manipulator.convertMolecule(BuilderMolecule.mergeRgroups(BuilderMolecule.buildChainLinear("PEPTIDE1", monomers).getMolecule()), AbstractChemistryManipulator.StType.SMILES);
+    String smiles = manipulator.convertMolecule(BuilderMolecule.mergeRgroups(BuilderMolecule.buildMoleculefromSinglePolymer(polymer).getMolecule()), AbstractChemistryManipulator.StType.SMILES);
+    Assert.assertEquals(smiles, expected);
+  }
+
+  private static String getCanonicalSMILES(AbstractMolecule molecule) throws BuilderMoleculeException, CTKException, CTKSmilesException, ChemistryException {
+    AbstractChemistryManipulator manipulator = Chemistry.getInstance().getManipulator();
+    return manipulator.canonicalize(manipulator.convertMolecule(BuilderMolecule.mergeRgroups(molecule), AbstractChemistryManipulator.StType.SMILES));
+  }
+
+  @Test
+  public void testRgroupIndex() {
+    Assert.assertEquals(RgroupIndex.parseRgroupNumber("R1"), 1);
+    Assert.assertEquals(RgroupIndex.parseRgroupNumber("R12"), 12);
+    Assert.assertEquals(RgroupIndex.parseRgroupNumber("R"), -1);
+    Assert.assertEquals(RgroupIndex.parseRgroupNumber("R01"), -1);
+    Assert.assertEquals(RgroupIndex.parseRgroupNumber("X1"), -1);
+  }
+
+  @Test
+  public void testMergeRgroupsWithCapFragmentCache() throws ParserException, JDOMException, BuilderMoleculeException, CTKException, NotationException, ChemistryException {
+    CapFragmentCache.clear();
+    String notation = "PEPTIDE1{L.P}|PEPTIDE2{A.G}$$$$";
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation(notation);
+    List<AbstractMolecule> molecules = BuilderMolecule.mergeRgroups(BuilderMolecule.buildMoleculefromPolymers(helm2notation.getListOfPolymers(), helm2notation.getListOfConnections()));
+    Assert.assertEquals(molecules.size(), 2);
+    Assert.assertEquals(CapFragmentCache.size(), 2);
+    Assert.assertEquals(Chemistry.getInstance().getManipulator().getMoleculeInfo(molecules.get(0)).getMolecularFormula(), "C11H20N2O3");
+    Assert.assertEquals(MoleculePropertyCalculator.getMolecularFormular(helm2notation), "C16H30N4O6");
+    Assert.assertEquals(CapFragmentCache.size(), 2);
+  }
+
   @Test(expectedExceptions = HELM2HandledException.class)
   public void testBuildMoleculeFromSinglePolymerCHEMUnknownWithException() throws org.helm.notation2.parser.exceptionparser.NotationException, IOException, BuilderMoleculeException,
       HELM2HandledException, NotationException, ChemistryException {
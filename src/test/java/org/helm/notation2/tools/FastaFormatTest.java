@@ -24,6 +24,12 @@
 package org.helm.notation2.tools;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.helm.chemtoolkit.CTKException;
 import org.helm.notation2.exception.AnalogSequenceException;
@@ -110,6 +116,35 @@ public class FastaFormatTest {
     return FastaFormat.generateFastaFromRNAPolymer(parserHELM2.getHELM2Notation().getListOfPolymers());
   }
 
+  @Test
+  public void testReadFastaConcurrently() throws Exception {
+    final String peptides = ">seq0\nFQTWEEFSRAAEKLYLADPMKVRVVLKYRHVDGNLCIKVTDDLVCLVYRTDQAQDVKKIEKF\n>seq1\nKYRTWEEFTRAAEKLYQADPMKVRVVLKYRHCDGNLCIKVTDDVVCLLYRTDQAQDVKKIEKF";
+    final String nucleotides = ">seq0\nCCTTTATCTAATCTTTGGAGCATGAGCTGG\n>seq1\nUUAGCCAGCUAGCUAG";
+    final String expectedPeptides = FastaFormat.generatePeptidePolymersFromFASTAFormatHELM1(peptides).toHELM2();
+    final String expectedNucleotides = FastaFormat.generateRNAPolymersFromFastaFormatHELM1(nucleotides).toHELM2();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (int i = 0; i < 32; i++) {
+        final boolean peptide = i % 2 == 0;
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() throws Exception {
+            if (peptide) {
+              return FastaFormat.generatePeptidePolymersFromFASTAFormatHELM1(peptides).toHELM2().equals(expectedPeptides);
+            }
+            return FastaFormat.generateRNAPolymersFromFastaFormatHELM1(nucleotides).toHELM2().equals(expectedNucleotides);
+          }
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        Assert.assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testHELMToAnalogSequenceExamples() throws ExceptionState, IOException, JDOMException,
       FastaFormatException, AnalogSequenceException, ChemistryException, CTKException {
@@ -0,0 +1,79 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.FastaFormatException;
+import org.helm.notation2.parser.notation.polymer.PolymerNotation;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FastaReaderTest {
+
+  @Test
+  public void testReadRecords() throws IOException {
+    FastaReader reader = new FastaReader(new StringReader(">seq0\nFQTW\nEEFS\n\n>seq1\nkyrt\n>seq2\n"));
+    FastaReader.Record record = reader.readRecord();
+    Assert.assertEquals(record.getNumber(), 1);
+    Assert.assertEquals(record.getAnnotation(), "seq0");
+    Assert.assertEquals(record.getSequence(), "FQTWEEFS");
+    record = reader.readRecord();
+    Assert.assertEquals(record.getNumber(), 2);
+    Assert.assertEquals(record.getAnnotation(), "seq1");
+    Assert.assertEquals(record.getSequence(), "KYRT");
+    record = reader.readRecord();
+    Assert.assertEquals(record.getAnnotation(), "seq2");
+    Assert.assertEquals(record.getSequence(), "");
+    Assert.assertNull(reader.readRecord());
+    reader.close();
+  }
+
+  @Test
+  public void testReadRecordWithoutHeader() throws IOException {
+    FastaReader reader = new FastaReader(new StringReader("FQTW\r\nEEFS\r\n"));
+    FastaReader.Record record = reader.readRecord();
+    Assert.assertEquals(record.getAnnotation(), "");
+    Assert.assertEquals(record.getSequence(), "FQTWEEFS");
+    Assert.assertNull(reader.readRecord());
+    reader.close();
+  }
+
+  @Test
+  public void testGeneratePeptidePolymerFromFastaRecord() throws IOException, FastaFormatException, ChemistryException {
+    FastaReader reader = new FastaReader(new StringReader(">seq0\nFQTWEEF\n>seq1\nKYRTW"));
+    FastaReader.Record record;
+    int count = 0;
+    while ((record = reader.readRecord()) != null) {
+      PolymerNotation polymer = FastaFormat.generatePeptidePolymerFromFastaRecord(record);
+      count++;
+      Assert.assertEquals(polymer.getPolymerID().getId(), "PEPTIDE" + count);
+      Assert.assertEquals(polymer.getAnnotation(), "seq" + (count - 1));
+    }
+    Assert.assertEquals(count, 2);
+    reader.close();
+  }
+}
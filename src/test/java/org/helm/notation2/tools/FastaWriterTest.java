@@ -0,0 +1,85 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.FastaFormatException;
+import org.helm.notation2.exception.NotationException;
+import org.helm.notation2.exception.ParserException;
+import org.helm.notation2.parser.notation.HELM2Notation;
+import org.jdom2.JDOMException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FastaWriterTest {
+
+  @Test
+  public void testWriteRecordWrapped() throws IOException {
+    StringWriter out = new StringWriter();
+    FastaWriter writer = new FastaWriter(out, 4);
+    writer.writeRecord("seq0", "FQTWEEFSRA");
+    writer.writeRecord("seq1", "KYRT");
+    Assert.assertEquals(out.toString(), ">seq0\nFQTW\nEEFS\nRA\n>seq1\nKYRT\n");
+  }
+
+  @Test
+  public void testWrite() throws ParserException, JDOMException, NotationException, FastaFormatException, ChemistryException, IOException {
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation("RNA1{R(U)P.R(T)P.R(G)P.R(C)}|PEPTIDE1{G.H.K}$$$$");
+    StringWriter out = new StringWriter();
+    new FastaWriter(out).write(helm2notation);
+    Assert.assertEquals(out.toString(), ">PEPTIDE1\nGHK\n>RNA1\nUTGC\n");
+    Assert.assertEquals(FastaFormat.generateFasta(helm2notation), out.toString());
+  }
+
+  @Test
+  public void testWriteAllOrdered() throws ParserException, JDOMException, NotationException, FastaFormatException, ChemistryException, IOException {
+    List<HELM2Notation> notations = new ArrayList<HELM2Notation>();
+    StringBuilder expected = new StringBuilder();
+    String[] sequences = {"GHK", "LLPA", "WYF", "CCS"};
+    for (int i = 0; i < 100; i++) {
+      String sequence = sequences[i % sequences.length];
+      StringBuilder notation = new StringBuilder("PEPTIDE1{");
+      for (int j = 0; j < sequence.length(); j++) {
+        notation.append(j == 0 ? "" : ".").append(sequence.charAt(j));
+      }
+      notations.add(HELM2NotationUtils.readNotation(notation.append("}$$$$").toString()));
+      expected.append(">PEPTIDE1\n").append(sequence).append("\n");
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      StringWriter out = new StringWriter();
+      new FastaWriter(out).writeAll(notations, executor);
+      Assert.assertEquals(out.toString(), expected.toString());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright C 2012, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package org.helm.notation2.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.helm.chemtoolkit.CTKException;
+import org.helm.notation2.Monomer;
+import org.helm.notation2.MonomerCache;
+import org.helm.notation2.MonomerFactory;
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.MonomerException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * MonomerStreamParserTest
+ *
+ * @author hecht
+ *
+ */
+public class MonomerStreamParserTest {
+
+  @Test
+  public void testParseMonomerDB() throws MonomerException, IOException, ChemistryException, CTKException {
+    InputStream in = MonomerFactory.class.getResourceAsStream(MonomerFactory.MONOMER_DB_XML_RESOURCE);
+    MonomerCache cache;
+    try {
+      cache = MonomerStreamParser.parse(in);
+    } finally {
+      in.close();
+    }
+
+    Assert.assertTrue(cache.getAttachmentDB().containsKey("R1-H"));
+    Monomer monomer = cache.getMonomerDB().get(Monomer.PEPTIDE_POLYMER_TYPE).get("Aze");
+    Assert.assertEquals(monomer.getName(), "2-carboxyazetidine");
+    Assert.assertEquals(monomer.getAttachmentList().size(), 2);
+    Assert.assertEquals(monomer.getAttachment("R2").getCapGroupSMILES(), "O[*:2]");
+    Assert.assertTrue(monomer.hasMolfile());
+    Assert.assertTrue(monomer.getMolfile().contains("M  END"));
+  }
+
+  @Test
+  public void testCorruptEncodedMolfile() {
+    Monomer monomer = new Monomer(Monomer.PEPTIDE_POLYMER_TYPE, Monomer.BACKBONE_MOMONER_TYPE, "A", "A");
+    monomer.setEncodedMolfile("not a gzipped molfile");
+    Assert.assertTrue(monomer.hasMolfile());
+    try {
+      monomer.checkMolfile();
+      Assert.fail("corrupt molfile was accepted");
+    } catch (MonomerException e) {
+      Assert.assertTrue(e.getMessage().contains("A"));
+    }
+    Assert.assertFalse(monomer.hasMolfile());
+    Assert.assertNull(monomer.getMolfile());
+  }
+
+  @Test
+  public void testParseMonomerDBInParallel() throws MonomerException, IOException, ChemistryException, CTKException {
+    MonomerCache sequential = parseResource(1);
+    MonomerCache parallel = parseResource(4);
+
+    Assert.assertEquals(parallel.getMonomerDB().keySet(), sequential.getMonomerDB().keySet());
+    for (String polymerType : sequential.getMonomerDB().keySet()) {
+      Assert.assertEquals(parallel.getMonomerDB().get(polymerType).keySet(), sequential.getMonomerDB().get(polymerType).keySet());
+    }
+    Assert.assertEquals(parallel.getAttachmentDB().keySet(), sequential.getAttachmentDB().keySet());
+  }
+
+  private static MonomerCache parseResource(int parallelism) throws MonomerException, IOException, ChemistryException, CTKException {
+    InputStream in = MonomerFactory.class.getResourceAsStream(MonomerFactory.MONOMER_DB_XML_RESOURCE);
+    try {
+      return MonomerStreamParser.parse(in, parallelism);
+    } finally {
+      in.close();
+    }
+  }
+
+  @Test
+  public void testMolfileIsDecodedOnFirstUse() throws MonomerException, IOException, ChemistryException, CTKException {
+    String xml = "<MonomerDB xmlns=\"lmr\"><PolymerList><Polymer polymerType=\"CHEM\">"
+        + "<Monomer><MonomerID>Bad</MonomerID><MonomerMolFile>not a gzipped molfile</MonomerMolFile>"
+        + "<MonomerType>Undefined</MonomerType><PolymerType>CHEM</PolymerType>"
+        + "<Attachments><Attachment><AttachmentID>R1-H</AttachmentID><AttachmentLabel>R1</AttachmentLabel>"
+        + "<CapGroupName>H</CapGroupName><CapGroupSmiles>[*][H] |$_R1;$|</CapGroupSmiles></Attachment></Attachments>"
+        + "</Monomer></Polymer></PolymerList></MonomerDB>";
+    MonomerCache cache = MonomerStreamParser.parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+
+    /* the corrupt molfile is not decoded while loading */
+    Monomer monomer = cache.getMonomerDB().get(Monomer.CHEMICAL_POLYMER_TYPE).get("Bad");
+    Assert.assertTrue(monomer.hasMolfile());
+    Assert.assertNull(monomer.getMolfile());
+    Assert.assertFalse(monomer.hasMolfile());
+  }
+
+  @Test(expectedExceptions = MonomerException.class)
+  public void testParseInvalidMonomer() throws MonomerException, IOException, ChemistryException, CTKException {
+    String xml = "<MonomerDB xmlns=\"lmr\"><PolymerList><Polymer polymerType=\"PEPTIDE\">"
+        + "<Monomer><MonomerID>Q</MonomerID><MonomerType>Backbone</MonomerType>"
+        + "<PolymerType>PEPTIDE</PolymerType></Monomer>"
+        + "</Polymer></PolymerList></MonomerDB>";
+    MonomerStreamParser.parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+  }
+
+}
@@ -0,0 +1,86 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import org.helm.notation2.MonomerFactory;
+import org.helm.notation2.parser.notation.HELM2Notation;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * NotationCacheTest
+ *
+ * @author hecht
+ */
+public class NotationCacheTest {
+
+  @AfterMethod
+  public void disableCache() {
+    NotationCache.disable();
+  }
+
+  @Test
+  public void testHitsAndMisses() {
+    NotationCache cache = NotationCache.enable(10, 1000);
+    HELM2Notation notation = new HELM2Notation();
+
+    Assert.assertNull(cache.get("PEPTIDE1{A}$$$$"));
+    cache.put("PEPTIDE1{A}$$$$", notation, MonomerFactory.getStoreVersion());
+    Assert.assertSame(cache.get(" PEPTIDE1{A}$$$$ "), notation);
+
+    Assert.assertEquals(cache.getHitCount(), 1);
+    Assert.assertEquals(cache.getMissCount(), 1);
+    Assert.assertEquals(cache.getWeight(), "PEPTIDE1{A}$$$$".length());
+  }
+
+  @Test
+  public void testEviction() {
+    NotationCache cache = NotationCache.enable(2, 40);
+    cache.put("PEPTIDE1{A}$$$$", new HELM2Notation(), MonomerFactory.getStoreVersion());
+    cache.put("PEPTIDE1{G}$$$$", new HELM2Notation(), MonomerFactory.getStoreVersion());
+    cache.get("PEPTIDE1{A}$$$$");
+    cache.put("PEPTIDE1{C}$$$$", new HELM2Notation(), MonomerFactory.getStoreVersion());
+
+    Assert.assertEquals(cache.size(), 2);
+    Assert.assertEquals(cache.getEvictionCount(), 1);
+    Assert.assertNull(cache.get("PEPTIDE1{G}$$$$"));
+    Assert.assertNotNull(cache.get("PEPTIDE1{A}$$$$"));
+
+    cache.put("PEPTIDE1{A.G.C.D.E.F}$$$$", new HELM2Notation(), MonomerFactory.getStoreVersion());
+    Assert.assertTrue(cache.getWeight() <= 40);
+  }
+
+  @Test
+  public void testInvalidationByMonomerStore() {
+    NotationCache cache = NotationCache.enable();
+    cache.put("PEPTIDE1{A}$$$$", new HELM2Notation(), MonomerFactory.getStoreVersion());
+
+    MonomerFactory.setDBChanged(true);
+
+    Assert.assertNull(cache.get("PEPTIDE1{A}$$$$"));
+    Assert.assertEquals(cache.size(), 0);
+  }
+
+}
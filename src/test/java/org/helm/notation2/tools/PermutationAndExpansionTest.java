@@ -0,0 +1,111 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PermutationAndExpansionTest {
+
+  private List<List<String[]>> generateGroups() {
+    List<List<String[]>> groups = new ArrayList<List<String[]>>();
+    List<String[]> first = new ArrayList<String[]>();
+    PermutationAndExpansion.permutate(first, Arrays.asList("A", "B", "C"));
+    groups.add(first);
+    List<String[]> second = new ArrayList<String[]>();
+    second.add(new String[] {"D"});
+    groups.add(second);
+    List<String[]> third = new ArrayList<String[]>();
+    PermutationAndExpansion.permutate(third, Arrays.asList("E", "F"));
+    groups.add(third);
+    return groups;
+  }
+
+  private List<List<String>> collect(Iterator<String[]> it) {
+    List<List<String>> result = new ArrayList<List<String>>();
+    while (it.hasNext()) {
+      result.add(new ArrayList<String>(Arrays.asList(it.next())));
+    }
+    return result;
+  }
+
+  @Test
+  public void testIteratorIsIdenticalToExpand() throws Exception {
+    List<List<String[]>> groups = generateGroups();
+    List<List<String[]>> expanded = new ArrayList<List<String[]>>();
+    for (List<String[]> group : groups) {
+      PermutationAndExpansion.expand(expanded, group);
+    }
+    List<List<String>> expected = PermutationAndExpansion.linearize(expanded);
+
+    Assert.assertEquals(PermutationAndExpansion.size(groups), 12);
+    Assert.assertEquals(collect(PermutationAndExpansion.iterator(groups)), expected);
+  }
+
+  @Test
+  public void testIteratorRanges() {
+    List<List<String[]>> groups = generateGroups();
+    List<List<String>> expected = collect(PermutationAndExpansion.iterator(groups));
+
+    List<List<String>> result = new ArrayList<List<String>>();
+    result.addAll(collect(PermutationAndExpansion.iterator(groups, 0, 5)));
+    result.addAll(collect(PermutationAndExpansion.iterator(groups, 5, 5)));
+    result.addAll(collect(PermutationAndExpansion.iterator(groups, 5, 12)));
+    Assert.assertEquals(result, expected);
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testIteratorRangeOutOfBounds() {
+    PermutationAndExpansion.iterator(generateGroups(), 0, 13);
+  }
+
+  @Test
+  public void testIteratorOverLargeProduct() {
+    List<List<String[]>> groups = new ArrayList<List<String[]>>();
+    for (int i = 0; i < 6; i++) {
+      List<String[]> group = new ArrayList<String[]>();
+      PermutationAndExpansion.permutate(group, Arrays.asList("A" + i, "B" + i, "C" + i, "D" + i, "E" + i));
+      groups.add(group);
+    }
+    Assert.assertEquals(PermutationAndExpansion.size(groups), 2985984000000L);
+
+    Iterator<String[]> it = PermutationAndExpansion.iterator(groups, 2985983999999L, 2985984000000L);
+    String[] last = it.next();
+    Assert.assertEquals(last.length, 30);
+    Assert.assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void testEmptyGroups() {
+    List<List<String[]>> groups = new ArrayList<List<String[]>>();
+    Assert.assertEquals(PermutationAndExpansion.size(groups), 0);
+    Assert.assertFalse(PermutationAndExpansion.iterator(groups).hasNext());
+  }
+
+}
@@ -24,6 +24,11 @@
 package org.helm.notation2.tools;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.helm.chemtoolkit.CTKException;
 import org.helm.chemtoolkit.CTKSmilesException;
@@ -134,6 +139,103 @@ public class TestCanonicalHELM {
     Assert.assertEquals(HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(test)), "PEPTIDE1{C}|RNA1{R(A)P.R(C)}|RNA2{R(C)P.R(T)P.R(G)}|RNA3{R(G)P.R(T)}|PEPTIDE2{R.E}|PEPTIDE3{R.I.P}$PEPTIDE1,PEPTIDE2,1:R2-2:R3$$$V2.0");
   }
 
+  @Test
+  public void testCanonicalHELMIdenticalPolymers() throws HELM1FormatException, ChemistryException, ParserException, JDOMException {
+    String first = "PEPTIDE1{C.A}|PEPTIDE2{C.A}|CHEM1{[MCC]}$PEPTIDE2,CHEM1,1:R3-1:R1$$$V2.0";
+    String second = "PEPTIDE1{C.A}|PEPTIDE2{C.A}|CHEM1{[MCC]}$PEPTIDE1,CHEM1,1:R3-1:R1$$$V2.0";
+    String canonical = HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(first));
+    Assert.assertEquals(HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(second)), canonical);
+  }
+
+  @Test
+  public void testCanonicalHELMCrosswiseAndParallelPairs() throws HELM1FormatException, ChemistryException, ParserException, JDOMException {
+    String crosswise = "PEPTIDE1{C.A}|PEPTIDE2{C.A}|PEPTIDE3{G.G}|PEPTIDE4{G.G}$PEPTIDE1,PEPTIDE3,1:R3-1:R1|PEPTIDE2,PEPTIDE4,1:R3-1:R1$$$V2.0";
+    String parallel = "PEPTIDE1{C.A}|PEPTIDE2{C.A}|PEPTIDE3{G.G}|PEPTIDE4{G.G}$PEPTIDE1,PEPTIDE4,1:R3-1:R1|PEPTIDE2,PEPTIDE3,1:R3-1:R1$$$V2.0";
+    String canonical = HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(crosswise));
+    Assert.assertEquals(HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(parallel)), canonical);
+  }
+
+  @Test
+  public void testCanonicalHELMHomoMultimer() throws HELM1FormatException, ChemistryException, ParserException, JDOMException {
+    String canonical = HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(homoMultimer(1)));
+    Assert.assertTrue(canonical.startsWith("PEPTIDE1{C.G.K}|"));
+    /* relabelled and permuted rings of the same 12 polymers */
+    Assert.assertEquals(HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(homoMultimer(5))), canonical);
+    Assert.assertEquals(HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(homoMultimer(7))), canonical);
+  }
+
+  /**
+   * ring of 12 identical peptides; the peptide at position i of the ring gets
+   * the id (i * factor) mod 13, polymers and connections are listed in reverse
+   * order for factors other than 1
+   */
+  private static String homoMultimer(int factor) {
+    List<String> polymers = new ArrayList<String>();
+    List<String> connections = new ArrayList<String>();
+    for (int i = 1; i <= 12; i++) {
+      int next = i % 12 + 1;
+      polymers.add("PEPTIDE" + (i * factor % 13) + "{C.G.K}");
+      connections.add("PEPTIDE" + (i * factor % 13) + ",PEPTIDE" + (next * factor % 13) + ",3:R3-1:R3");
+    }
+    if (factor != 1) {
+      Collections.reverse(polymers);
+      Collections.reverse(connections);
+    }
+    StringBuilder notation = new StringBuilder();
+    for (String polymer : polymers) {
+      notation.append(notation.length() == 0 ? "" : "|").append(polymer);
+    }
+    notation.append('$');
+    for (int i = 0; i < connections.size(); i++) {
+      notation.append(i == 0 ? "" : "|").append(connections.get(i));
+    }
+    return notation + "$$$V2.0";
+  }
+
+  @Test
+  public void testCanonicalHELMCrossLinkedPolymers() throws HELM1FormatException, ChemistryException, ParserException, JDOMException {
+    StringBuilder polymers = new StringBuilder();
+    StringBuilder connections = new StringBuilder();
+    for (int i = 1; i <= 12; i++) {
+      polymers.append(i == 1 ? "" : "|").append("PEPTIDE" + i + "{" + (i % 2 == 0 ? "C.A.C" : "C.G.C") + "}");
+    }
+    for (int i = 1; i <= 12; i++) {
+      for (int j = i + 1; j <= 12; j += 5) {
+        connections.append(connections.length() == 0 ? "" : "|").append("PEPTIDE" + i + ",PEPTIDE" + j + ",1:R3-3:R3");
+      }
+    }
+    String canonical = HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(polymers + "$" + connections + "$$$V2.0"));
+    Assert.assertEquals(HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(canonical)), canonical);
+  }
+
+  @Test
+  public void testCanonicalHELMConnectionOrder() throws HELM1FormatException, ChemistryException, ParserException, JDOMException {
+    String first = "PEPTIDE1{C}|PEPTIDE2{R.E}|CHEM1{[MCC]}$PEPTIDE1,PEPTIDE2,1:R3-2:R3|CHEM1,PEPTIDE2,1:R1-1:R1$$$V2.0";
+    String second = "PEPTIDE1{C}|PEPTIDE2{R.E}|CHEM1{[MCC]}$CHEM1,PEPTIDE2,1:R1-1:R1|PEPTIDE1,PEPTIDE2,1:R3-2:R3$$$V2.0";
+    String canonical = HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(first));
+    Assert.assertEquals(HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(second)), canonical);
+    Assert.assertTrue(canonical.contains("$CHEM1,PEPTIDE2,1:R1-1:R1|PEPTIDE1,PEPTIDE2,1:R3-2:R3$"));
+  }
+
+  @Test
+  public void testCanonicalHELMSortedConnections() throws HELM1FormatException, ChemistryException, ParserException, JDOMException {
+    String test =
+        "PEPTIDE1{C.A.C.L.L.K}|PEPTIDE2{C.G.C.P.W}|PEPTIDE3{C.A.C.S.T}|PEPTIDE4{C.G.C.F.Y}$PEPTIDE1,PEPTIDE2,1:R3-1:R3|PEPTIDE3,PEPTIDE4,3:R3-3:R3|PEPTIDE1,PEPTIDE3,3:R3-1:R3$$$";
+    Assert.assertEquals(HELM1Utils.getCanonical(HELM2NotationUtils.readNotation(test)),
+        "PEPTIDE1{C.A.C.L.L.K}|PEPTIDE2{C.A.C.S.T}|PEPTIDE3{C.G.C.F.Y}|PEPTIDE4{C.G.C.P.W}$PEPTIDE1,PEPTIDE2,3:R3-1:R3|PEPTIDE1,PEPTIDE4,1:R3-1:R3|PEPTIDE2,PEPTIDE3,3:R3-3:R3$$$V2.0");
+  }
+
+  @Test
+  public void testReplaceAdHocMonomers() {
+    Map<String, String> smiles = new HashMap<String, String>();
+    smiles.put("A+B$1", "C([*])O[*]");
+    smiles.put("*", "N[*]");
+    String elements = "G.[A+B$1].[*].K\"[A+B$1]\".[[*]OCC[*]]";
+    Assert.assertEquals(HELM1Utils.replaceAdHocMonomers(elements, smiles, true), "G.[C([*])O[*]].[N[*]].K\"[A+B$1]\".[[*]OCC[*]]");
+    Assert.assertEquals(HELM1Utils.replaceAdHocMonomers(elements, smiles, false), "G.C(*)O*.N*.K\"[A+B$1]\".*OCC*");
+    Assert.assertEquals(HELM1Utils.replaceAdHocMonomers("R([A+B$1])P.R(A)", smiles, true), "R([C([*])O[*]])P.R(A)");
+  }
+
   @Test
   public void testCanonicalHELMCHEM() throws HELM1FormatException, ChemistryException, ParserException, JDOMException {
     String test = "CHEM1{MCC}$$$$V2.0";
@@ -23,10 +23,12 @@
  */
 package org.helm.notation2.tools;
 
+import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.helm.chemtoolkit.CTKException;
 import org.helm.notation2.calculation.MoleculePropertyCalculator;
+import org.helm.notation2.exception.AttachmentException;
 import org.helm.notation2.exception.BuilderMoleculeException;
 import org.helm.notation2.exception.ChemistryException;
 import org.helm.notation2.exception.MonomerLoadingException;
@@ -162,6 +164,53 @@ public class TestValidation {
 
   }
 
+  @Test
+  public void testConnectionsOfLongPolymers() throws NotationException, ChemistryException, ParserException, JDOMException {
+    StringBuilder peptide = new StringBuilder();
+    StringBuilder connections = new StringBuilder();
+    for (int i = 1; i <= 300; i++) {
+      peptide.append(i == 1 ? "" : ".").append(i % 2 == 1 ? "C" : "A");
+      if (i % 2 == 1) {
+        connections.append(i == 1 ? "" : "|").append("PEPTIDE1,PEPTIDE2," + i + ":R3-" + i + ":R3");
+      }
+    }
+    String test = "PEPTIDE1{" + peptide + "}|PEPTIDE2{" + peptide + "}$" + connections + "$$$V2.0";
+
+    Assert.assertTrue(Validation.validateConnections(HELM2NotationUtils.readNotation(test)));
+
+    test = "PEPTIDE1{" + peptide + "}|PEPTIDE2{" + peptide + "}$" + connections + "|PEPTIDE1,PEPTIDE2,299:R3-1:R3$$$V2.0";
+    Assert.assertFalse(Validation.validateConnections(HELM2NotationUtils.readNotation(test)));
+  }
+
+  @Test
+  public void testConnectionsOfLongPolymersByMonomer() throws NotationException, ChemistryException, ParserException, JDOMException {
+    String peptide = longPeptide("C", "K");
+    String test = "PEPTIDE1{" + peptide + "}|CHEM1{[SMPEG2]}$PEPTIDE1,CHEM1,C:R3-1:R1$$$V2.0";
+    Assert.assertTrue(Validation.validateConnections(HELM2NotationUtils.readNotation(test)));
+
+    test = "PEPTIDE1{" + peptide + "}|CHEM1{[SMPEG2]}$PEPTIDE1,CHEM1,(C,K):R3-1:R1$$$V2.0";
+    Assert.assertTrue(Validation.validateConnections(HELM2NotationUtils.readNotation(test)));
+
+    test = "PEPTIDE1{" + peptide + "}|CHEM1{[SMPEG2]}$PEPTIDE1,CHEM1,G:R3-1:R1$$$V2.0";
+    Assert.assertFalse(Validation.validateConnections(HELM2NotationUtils.readNotation(test)));
+  }
+
+  @Test(expectedExceptions = AttachmentException.class)
+  public void testConnectionsOfLongPolymersWithMissingMonomer() throws ParserException, JDOMException, IOException, AttachmentException,
+      org.helm.notation2.parser.exceptionparser.NotationException {
+    String test = "PEPTIDE1{" + longPeptide("C", "K") + "}|CHEM1{[SMPEG2]}$PEPTIDE1,CHEM1,G:R3-1:R1$$$V2.0";
+    HELM2Notation helm2notation = HELM2NotationUtils.readNotation(test);
+    Validation.getOccurencesOfMonomerNotation("G", helm2notation.getListOfConnections().get(0).getSourceId(), new ValidationContext(helm2notation));
+  }
+
+  private static String longPeptide(String odd, String even) {
+    StringBuilder peptide = new StringBuilder();
+    for (int i = 1; i <= 300; i++) {
+      peptide.append(i == 1 ? "" : ".").append(i % 2 == 1 ? odd : even);
+    }
+    return peptide.toString();
+  }
+
   @Test
   public void testConnectionHELM2Simple() throws NotationException, ChemistryException, ParserException, JDOMException {
     String test =
@@ -0,0 +1,82 @@
+/**
+ * *****************************************************************************
+ * Copyright C 2015, The Pistoia Alliance
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *****************************************************************************
+ */
+package org.helm.notation2.tools;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.helm.chemtoolkit.CTKException;
+import org.helm.notation2.exception.BuilderMoleculeException;
+import org.helm.notation2.exception.ChemistryException;
+import org.helm.notation2.exception.MonomerLoadingException;
+import org.helm.notation2.exception.ValidationException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * WebServiceBatchTest
+ *
+ * @author hecht
+ */
+public class WebServiceBatchTest {
+
+  @Test
+  public void testProcessBatch() throws InterruptedException, BuilderMoleculeException, CTKException, ValidationException, MonomerLoadingException, ChemistryException {
+    WebService service = new WebService();
+    List<String> notations = Arrays.asList("PEPTIDE1{L.L.L}$$$$", "PEPTIDE1{L.L.L", "RNA1{R(A)P.R(C)P.R(G)}$$$$");
+
+    List<BatchResult> results = service.processBatch(notations, EnumSet.of(BatchOutput.MOLECULAR_FORMULA, BatchOutput.MOLECULAR_WEIGHT, BatchOutput.FASTA), 2);
+
+    Assert.assertEquals(results.size(), notations.size());
+    for (int i = 0; i < notations.size(); i++) {
+      Assert.assertEquals(results.get(i).getIndex(), i);
+      Assert.assertEquals(results.get(i).getNotation(), notations.get(i));
+    }
+
+    BatchResult peptide = results.get(0);
+    Assert.assertFalse(peptide.hasErrors());
+    Assert.assertEquals(peptide.getResult(BatchOutput.MOLECULAR_FORMULA), "C18H35N3O4");
+    Assert.assertEquals(peptide.getResult(BatchOutput.MOLECULAR_WEIGHT), service.calculateMolecularWeight(notations.get(0)));
+    Assert.assertNotNull(peptide.getResult(BatchOutput.FASTA));
+
+    Assert.assertFalse(results.get(1).isValid());
+    Assert.assertTrue(results.get(1).getResults().isEmpty());
+
+    Assert.assertTrue(results.get(2).isValid());
+    Assert.assertEquals(results.get(2).getResult(BatchOutput.MOLECULAR_FORMULA), service.getMolecularFormula(notations.get(2)));
+  }
+
+  @Test
+  public void testProcessBatchWithMissingInput() throws InterruptedException {
+    WebService service = new WebService();
+    List<String> notations = Arrays.asList(null, "<Xhelm></Xhelm>");
+
+    List<BatchResult> results = service.processBatch(notations, EnumSet.of(BatchOutput.MOLECULAR_FORMULA));
+
+    Assert.assertEquals(results.get(0).getValidationError(), "HELM input must be specified");
+    Assert.assertEquals(results.get(1).getValidationError(), "xHELM input is not supported in batch processing");
+  }
+
+}